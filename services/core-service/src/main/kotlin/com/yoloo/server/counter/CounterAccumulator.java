@@ -0,0 +1,153 @@
+package com.yoloo.server.counter;
+
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongPredicate;
+
+/**
+ * Process-local buffer that coalesces counter updates between two flushes. Every counter name owns
+ * a striped {@link LongAdder}, so concurrent likes on a hot post never contend on a shared entity.
+ *
+ * <p>Flushed deltas are held until the snapshot includes their batches, so a count doesn't go back
+ * while its delta waits in the pull queue.
+ */
+@Component
+public class CounterAccumulator {
+
+  private final ConcurrentMap<String, LongAdder> adders = new ConcurrentHashMap<>();
+
+  // Updates share the read lock, eviction takes the write lock so no update can still be holding
+  // an adder which is removed from the map.
+  private final ReadWriteLock evictionLock = new ReentrantReadWriteLock();
+
+  private final Queue<HeldBatch> held = new ConcurrentLinkedQueue<>();
+
+  void add(String name, long delta) {
+    evictionLock.readLock().lock();
+    try {
+      adders.computeIfAbsent(name, key -> new LongAdder()).add(delta);
+    } finally {
+      evictionLock.readLock().unlock();
+    }
+  }
+
+  /**
+   * Returns the delta of the given counter which the snapshot doesn't include yet, the buffered
+   * delta plus the held deltas of the batches which are not applied.
+   *
+   * @param name the name of the counter
+   * @param hash {@link CounterSketch#hash(String)} of the name
+   * @param applied whether the snapshot includes a batch id
+   * @return pending delta, may be negative
+   */
+  long pending(String name, long hash, LongPredicate applied) {
+    LongAdder adder = adders.get(name);
+    long pending = adder == null ? 0L : adder.sum();
+    for (HeldBatch batch : held) {
+      if (!batch.isApplied(applied)) {
+        pending += batch.deltas.getOrDefault(hash, 0L);
+      }
+    }
+    return pending;
+  }
+
+  /**
+   * Holds flushed deltas until {@link #release(LongPredicate, long)} finds their batches applied.
+   *
+   * @param batchIds ids of the batches the deltas were sent in
+   * @param deltas the flushed deltas keyed by {@link CounterSketch#hash(String)}
+   * @param flushedAt flush time in millis
+   */
+  void hold(long[] batchIds, Map<Long, Long> deltas, long flushedAt) {
+    held.add(new HeldBatch(batchIds, deltas, flushedAt));
+  }
+
+  /**
+   * Drops held deltas whose batches could not be sent.
+   *
+   * @param batchIds the ids passed to {@link #hold(long[], Map, long)}
+   */
+  void unhold(long[] batchIds) {
+    held.removeIf(batch -> batch.batchIds == batchIds);
+  }
+
+  /**
+   * Drops the held deltas whose batches are all applied, and the ones flushed before the given
+   * time, e.g. because their batch ids were overwritten before the snapshot saw them.
+   *
+   * @param applied whether the snapshot includes a batch id
+   * @param expiredBefore held deltas flushed before this time in millis are dropped
+   */
+  void release(LongPredicate applied, long expiredBefore) {
+    held.removeIf(batch -> batch.flushedAt < expiredBefore || batch.isApplied(applied));
+  }
+
+  /**
+   * Collects and resets every buffered delta. Emptied adders are evicted, so the map stays bounded
+   * by the set of counters updated since the last drain.
+   *
+   * @return non-zero deltas keyed by counter name
+   */
+  Map<String, Long> drain() {
+    Map<String, Long> deltas = new HashMap<>();
+
+    // sumThenReset isn't atomic against concurrent updates on Java 8, an update landing between
+    // the read and the reset of a cell would be lost. Subtracting the sum keeps it.
+    adders.forEach(
+        (name, adder) -> {
+          long delta = adder.sum();
+          if (delta != 0L) {
+            adder.add(-delta);
+            deltas.put(name, delta);
+          }
+        });
+
+    evictionLock.writeLock().lock();
+    try {
+      adders.values().removeIf(adder -> adder.sum() == 0L);
+    } finally {
+      evictionLock.writeLock().unlock();
+    }
+
+    return deltas;
+  }
+
+  /**
+   * Puts back deltas which could not be flushed so they are retried with the next drain.
+   *
+   * @param deltas the deltas returned by {@link #drain()}
+   */
+  void restore(Map<String, Long> deltas) {
+    deltas.forEach(this::add);
+  }
+
+  private static final class HeldBatch {
+    private final long[] batchIds;
+    private final Map<Long, Long> deltas;
+    private final long flushedAt;
+
+    private HeldBatch(long[] batchIds, Map<Long, Long> deltas, long flushedAt) {
+      this.batchIds = batchIds;
+      this.deltas = deltas;
+      this.flushedAt = flushedAt;
+    }
+
+    private boolean isApplied(LongPredicate applied) {
+      for (long batchId : batchIds) {
+        if (!applied.test(batchId)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
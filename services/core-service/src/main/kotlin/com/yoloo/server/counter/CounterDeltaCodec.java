@@ -0,0 +1,116 @@
+package com.yoloo.server.counter;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Binary format of the counter delta batches exchanged through the pull queue. A batch is a 21
+ * byte header (version, random batch id, creation timestamp in millis and record count) followed
+ * by fixed size records of the 64-bit counter name hash and the signed delta. All records of a
+ * batch share the header timestamp. Batches of the first version have no id.
+ */
+final class CounterDeltaCodec {
+
+  static final String TAG = "counter";
+
+  /** Keeps a single task well below the 1MB pull task payload limit. */
+  static final int MAX_RECORDS_PER_BATCH = 32_768;
+
+  private static final byte VERSION_1 = 1;
+  private static final byte VERSION = 2;
+  private static final int HEADER_SIZE_1 = Byte.BYTES + Long.BYTES + Integer.BYTES;
+  private static final int HEADER_SIZE = HEADER_SIZE_1 + Long.BYTES;
+  private static final int RECORD_SIZE = Long.BYTES + Long.BYTES;
+
+  private CounterDeltaCodec() {}
+
+  /**
+   * Encodes the given deltas, splitting them into as many batches as needed.
+   *
+   * @param deltas signed deltas keyed by counter name hash
+   * @param timestamp creation time of the batch in millis
+   * @return encoded batches
+   */
+  static List<byte[]> encode(Map<Long, Long> deltas, long timestamp) {
+    List<byte[]> batches = new ArrayList<>(deltas.size() / MAX_RECORDS_PER_BATCH + 1);
+    Iterator<Map.Entry<Long, Long>> it = deltas.entrySet().iterator();
+    int remaining = deltas.size();
+
+    while (remaining > 0) {
+      int count = Math.min(MAX_RECORDS_PER_BATCH, remaining);
+      remaining -= count;
+      ByteBuffer bb = ByteBuffer.allocate(HEADER_SIZE + count * RECORD_SIZE);
+      bb.put(VERSION).putLong(newBatchId()).putLong(timestamp).putInt(count);
+      for (int i = 0; i < count; i++) {
+        Map.Entry<Long, Long> entry = it.next();
+        bb.putLong(entry.getKey()).putLong(entry.getValue());
+      }
+      batches.add(bb.array());
+    }
+
+    return batches;
+  }
+
+  /**
+   * Decodes a batch and folds its records into the given map.
+   *
+   * @param payload the encoded batch
+   * @param into signed deltas keyed by counter name hash
+   * @return creation time of the batch in millis
+   * @throws IllegalArgumentException if the payload is not a counter delta batch
+   */
+  static long decodeInto(byte[] payload, Map<Long, Long> into) {
+    ByteBuffer bb = header(payload);
+    if (payload[0] == VERSION) {
+      bb.getLong();
+    }
+    long timestamp = bb.getLong();
+    int count = bb.getInt();
+    if (bb.remaining() != count * RECORD_SIZE) {
+      throw new IllegalArgumentException("Truncated counter delta batch");
+    }
+
+    for (int i = 0; i < count; i++) {
+      into.merge(bb.getLong(), bb.getLong(), Long::sum);
+    }
+    return timestamp;
+  }
+
+  /**
+   * Reads the id of a batch.
+   *
+   * @param payload the encoded batch
+   * @return the batch id, 0 for a batch of the first version
+   * @throws IllegalArgumentException if the payload is not a counter delta batch
+   */
+  static long batchId(byte[] payload) {
+    ByteBuffer bb = header(payload);
+    return payload[0] == VERSION ? bb.getLong() : 0L;
+  }
+
+  // Checks the version and returns a buffer positioned after it.
+  private static ByteBuffer header(byte[] payload) {
+    boolean supported =
+        (payload.length >= HEADER_SIZE && payload[0] == VERSION)
+            || (payload.length >= HEADER_SIZE_1 && payload[0] == VERSION_1);
+    if (!supported) {
+      throw new IllegalArgumentException("Unsupported counter delta batch");
+    }
+
+    ByteBuffer bb = ByteBuffer.wrap(payload);
+    bb.get();
+    return bb;
+  }
+
+  private static long newBatchId() {
+    long id;
+    do {
+      id = ThreadLocalRandom.current().nextLong();
+    } while (id == 0L);
+    return id;
+  }
+}
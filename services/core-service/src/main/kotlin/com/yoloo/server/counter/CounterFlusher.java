@@ -0,0 +1,98 @@
+package com.yoloo.server.counter;
+
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.yoloo.server.queue.QueueNames;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Ships the deltas coalesced by {@link CounterAccumulator} to the pull queue as compact {@link
+ * CounterDeltaCodec} batches. Deltas of a failed flush are put back and retried on the next run.
+ *
+ * <p>App Engine API calls only work on request threads, so the flush runs on the request which
+ * finds it due, see {@link #flushIfDue()}, at most once per {@link
+ * CounterProperties#getFlushIntervalMillis()}. Deltas of an instance which receives no further
+ * counter requests wait for the next one, the shutdown flush is a best effort.
+ */
+@Component
+public class CounterFlusher {
+  private static final Logger logger = LoggerFactory.getLogger(CounterFlusher.class);
+
+  private final CounterAccumulator accumulator;
+  private final Queue queue;
+  private final CounterProperties properties;
+  private final AtomicLong lastFlushAt = new AtomicLong(System.currentTimeMillis());
+
+  @Autowired
+  public CounterFlusher(
+      CounterAccumulator accumulator,
+      @Qualifier(QueueNames.BATCH_SAVE_PULL_QUEUE) Queue queue,
+      CounterProperties properties) {
+    this.accumulator = accumulator;
+    this.queue = queue;
+    this.properties = properties;
+  }
+
+  /**
+   * Flushes on the calling request thread if the flush interval has passed since the last flush.
+   * Only one of the concurrent callers flushes, the others return right away.
+   */
+  void flushIfDue() {
+    long now = System.currentTimeMillis();
+    long last = lastFlushAt.get();
+    if (now - last >= properties.getFlushIntervalMillis() && lastFlushAt.compareAndSet(last, now)) {
+      flush();
+    }
+  }
+
+  void flush() {
+    Map<String, Long> deltas = accumulator.drain();
+    if (deltas.isEmpty()) {
+      return;
+    }
+
+    Map<Long, Long> hashed = new HashMap<>(deltas.size());
+    deltas.forEach((name, delta) -> hashed.merge(CounterSketch.hash(name), delta, Long::sum));
+
+    long now = System.currentTimeMillis();
+    List<byte[]> payloads = CounterDeltaCodec.encode(hashed, now);
+    long[] batchIds = payloads.stream().mapToLong(CounterDeltaCodec::batchId).toArray();
+    List<TaskOptions> tasks =
+        payloads
+            .stream()
+            .map(
+                payload ->
+                    TaskOptions.Builder.withMethod(TaskOptions.Method.PULL)
+                        .tag(CounterDeltaCodec.TAG)
+                        .payload(payload))
+            .collect(toList());
+
+    // Held before the add, so reads keep counting the deltas until a snapshot includes them.
+    accumulator.hold(batchIds, hashed, now);
+    try {
+      queue.add(tasks);
+      logger.debug("Flushed {} counters in {} tasks", hashed.size(), tasks.size());
+    } catch (RuntimeException e) {
+      accumulator.unhold(batchIds);
+      accumulator.restore(deltas);
+      logger.warn("Counter flush failed, {} counters will be retried", deltas.size(), e);
+    }
+  }
+
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+}
@@ -0,0 +1,22 @@
+package com.yoloo.server.counter;
+
+/** Names of the counters kept by {@link CounterService}. */
+public final class CounterNames {
+
+  private CounterNames() {}
+
+  /** Likes of a post or comment. */
+  public static String likes(long likeableId) {
+    return "LIKE:" + likeableId;
+  }
+
+  /** Comments of a post. */
+  public static String postComments(long postId) {
+    return "POST_COMMENT:" + postId;
+  }
+
+  /** Comments written by a user. */
+  public static String userComments(long userId) {
+    return "USER_COMMENT:" + userId;
+  }
+}
@@ -0,0 +1,23 @@
+package com.yoloo.server.counter;
+
+import com.googlecode.objectify.impl.translate.SimpleTranslatorFactory;
+import com.yoloo.server.objectify.ObjectifyConfigurer;
+import com.yoloo.server.util.sketch.CountMinSketchTranslatorFactory;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+import java.util.Collections;
+
+@Configuration
+public class CounterObjectifyConfig implements ObjectifyConfigurer {
+
+  @Override
+  public Collection<SimpleTranslatorFactory<?, ?>> registerTranslators() {
+    return Collections.singletonList(new CountMinSketchTranslatorFactory());
+  }
+
+  @Override
+  public Collection<Class<?>> registerEntities() {
+    return Collections.singletonList(CounterSketch.class);
+  }
+}
@@ -0,0 +1,58 @@
+package com.yoloo.server.counter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "counter")
+public class CounterProperties {
+  /**
+   * Number of {@link CounterSketch} shards the flushed deltas are spread over. Shards are summed
+   * on read, so this value may be increased safely but must never be decreased.
+   */
+  private int shardCount = 16;
+
+  /** Interval between two flushes of the in-process deltas to the pull queue. */
+  private long flushIntervalMillis = 5_000L;
+
+  /** How long the merged local snapshot serves reads before the shards are reloaded. */
+  private long snapshotTtlMillis = 10_000L;
+
+  /**
+   * Upper bound of how long flushed deltas are added to the reads of this instance while the
+   * snapshot doesn't include them yet.
+   */
+  private long pendingHoldMillis = 900_000L;
+
+  public int getShardCount() {
+    return shardCount;
+  }
+
+  public void setShardCount(int shardCount) {
+    this.shardCount = shardCount;
+  }
+
+  public long getFlushIntervalMillis() {
+    return flushIntervalMillis;
+  }
+
+  public void setFlushIntervalMillis(long flushIntervalMillis) {
+    this.flushIntervalMillis = flushIntervalMillis;
+  }
+
+  public long getSnapshotTtlMillis() {
+    return snapshotTtlMillis;
+  }
+
+  public void setSnapshotTtlMillis(long snapshotTtlMillis) {
+    this.snapshotTtlMillis = snapshotTtlMillis;
+  }
+
+  public long getPendingHoldMillis() {
+    return pendingHoldMillis;
+  }
+
+  public void setPendingHoldMillis(long pendingHoldMillis) {
+    this.pendingHoldMillis = pendingHoldMillis;
+  }
+}
@@ -0,0 +1,143 @@
+package com.yoloo.server.counter;
+
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import com.yoloo.server.queue.PullQueueHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+/**
+ * Handles the counter delta batches. Every batch goes to the {@link CounterSketch} shard picked by
+ * its id, and the batches of one shard are folded into a single delta per counter and applied in
+ * one transaction, so a run costs one datastore write per touched shard.
+ *
+ * <p>A batch can be delivered again when its task outlives the lease or isn't deleted after the
+ * commit. The redelivered batch lands on the same shard, which already remembers its id, so it is
+ * skipped inside the transaction instead of being counted twice.
+ *
+ * <p>Tasks which can't be decoded are left unsettled, so they end up in the dead letters once they
+ * ran out of retries. Tasks of a shard whose transaction fails are left unsettled as well.
+ */
+@Component
+public class CounterQueueHandler implements PullQueueHandler {
+  private static final Logger logger = LoggerFactory.getLogger(CounterQueueHandler.class);
+
+  private final CounterProperties properties;
+  private final CounterSnapshot snapshot;
+
+  @Autowired
+  public CounterQueueHandler(CounterProperties properties, CounterSnapshot snapshot) {
+    this.properties = properties;
+    this.snapshot = snapshot;
+  }
+
+  @Override
+  public String getTag() {
+    return CounterDeltaCodec.TAG;
+  }
+
+  @Override
+  public List<TaskHandle> handle(List<TaskHandle> tasks) {
+    Map<Integer, List<Batch>> batchesByShard = new HashMap<>();
+    for (TaskHandle task : tasks) {
+      try {
+        Batch batch = Batch.decode(task);
+        batchesByShard
+            .computeIfAbsent(shardOf(batch.id), shard -> new ArrayList<>())
+            .add(batch);
+      } catch (IllegalArgumentException e) {
+        logger.warn("Counter task {} has an unreadable payload", task.getName(), e);
+      }
+    }
+
+    List<TaskHandle> settled = new ArrayList<>(tasks.size());
+    batchesByShard.forEach(
+        (shard, batches) -> {
+          try {
+            int applied =
+                ObjectifyService.run(() -> ofy().transact(() -> applyToShard(shard, batches)));
+            batches.forEach(batch -> settled.add(batch.task));
+            logger.debug(
+                "Applied {} of {} counter batches to shard {}", applied, batches.size(), shard);
+          } catch (RuntimeException e) {
+            logger.warn("Couldn't apply {} counter batches to shard {}", batches.size(), shard, e);
+          }
+        });
+
+    snapshot.invalidate();
+    return settled;
+  }
+
+  // Batches encoded before the ids existed all carry 0 and always go to the first shard.
+  private int shardOf(long batchId) {
+    return (int) Math.floorMod(batchId, (long) properties.getShardCount());
+  }
+
+  /**
+   * Applies the batches the shard hasn't seen yet and marks them applied in the same write, so the
+   * flushing instance stops counting their deltas as pending exactly when a snapshot includes them.
+   *
+   * @return the number of batches applied
+   */
+  private static int applyToShard(int shard, List<Batch> batches) {
+    Key<CounterSketch> key = CounterSketch.createKey(shard);
+    CounterSketch sketch = ofy().load().key(key).now();
+    if (sketch == null) {
+      sketch = CounterSketch.create(shard);
+    }
+
+    Set<Long> seen = new HashSet<>();
+    for (long batchId : sketch.getAppliedBatches()) {
+      if (batchId != 0L) {
+        seen.add(batchId);
+      }
+    }
+
+    Map<Long, Long> deltas = new HashMap<>();
+    List<Long> batchIds = new ArrayList<>(batches.size());
+    for (Batch batch : batches) {
+      // Ids of 0 can't be told apart, those batches are applied every time they're delivered.
+      if (batch.id == 0L || seen.add(batch.id)) {
+        batch.deltas.forEach((hash, delta) -> deltas.merge(hash, delta, Long::sum));
+        batchIds.add(batch.id);
+      }
+    }
+    if (batchIds.isEmpty()) {
+      return 0;
+    }
+
+    deltas.values().removeIf(delta -> delta == 0L);
+    ofy().save().entity(sketch.apply(deltas).markApplied(batchIds)).now();
+    return batchIds.size();
+  }
+
+  private static final class Batch {
+    private final TaskHandle task;
+    private final long id;
+    private final Map<Long, Long> deltas;
+
+    private Batch(TaskHandle task, long id, Map<Long, Long> deltas) {
+      this.task = task;
+      this.id = id;
+      this.deltas = deltas;
+    }
+
+    private static Batch decode(TaskHandle task) {
+      Map<Long, Long> deltas = new HashMap<>();
+      CounterDeltaCodec.decodeInto(task.getPayload(), deltas);
+      return new Batch(task, CounterDeltaCodec.batchId(task.getPayload()), deltas);
+    }
+  }
+}
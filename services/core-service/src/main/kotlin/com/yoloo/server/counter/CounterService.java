@@ -9,6 +9,13 @@ import java.util.Map;
  */
 public interface CounterService {
 
+  /**
+   * Returns the counts of the given counters. Counters without a recorded update count as unknown
+   * and are left out, so callers can fall back to a count they stored themselves.
+   *
+   * @param keys the names of the counters
+   * @return the non-zero counts keyed by counter name
+   */
   Map<String, Integer> getCounts(Collection<String> keys);
 
   /**
@@ -1,74 +1,71 @@
 package com.yoloo.server.counter;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.google.appengine.api.memcache.MemcacheService;
-import com.google.appengine.api.taskqueue.Queue;
-import com.google.appengine.api.taskqueue.TaskOptions;
-import com.googlecode.objectify.Key;
-import com.yoloo.server.queue.QueueNames;
-import com.yoloo.server.queue.QueuePayload;
-import com.yoloo.server.util.Pair;
-import com.yoloo.server.util.sketch.CountMinSketch;
+import com.google.common.primitives.Ints;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Service;
 
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
-
-import static com.googlecode.objectify.ObjectifyService.ofy;
-import static com.rainerhahnekamp.sneakythrow.Sneaky.sneak;
-import static java.util.stream.Collectors.toMap;
 
 @Service
 public class CounterServiceImpl implements CounterService {
 
-  private final Queue counterQueue;
-  private final MemcacheService memcacheService;
-  private final ObjectMapper objectMapper;
+  private final CounterAccumulator accumulator;
+  private final CounterSnapshot snapshot;
+  private final CounterProperties properties;
+  private final CounterFlusher flusher;
 
   @Autowired
   public CounterServiceImpl(
-      @Qualifier(QueueNames.BATCH_SAVE_PULL_QUEUE) Queue batchSaveQueue,
-      MemcacheService memcacheService,
-      ObjectMapper objectMapper) {
-    this.counterQueue = batchSaveQueue;
-    this.memcacheService = memcacheService;
-    this.objectMapper = objectMapper;
+      CounterAccumulator accumulator,
+      CounterSnapshot snapshot,
+      CounterProperties properties,
+      CounterFlusher flusher) {
+    this.accumulator = accumulator;
+    this.snapshot = snapshot;
+    this.properties = properties;
+    this.flusher = flusher;
   }
 
   @Override
   public Map<String, Integer> getCounts(Collection<String> keys) {
-    CounterSketch sketch = ofy().load().key(CounterSketch.createKey()).now();
+    // reads are far more frequent than updates, so they also ship the deltas of idle writers
+    flusher.flushIfDue();
+
+    String[] names = keys.stream().distinct().toArray(String[]::new);
+    long[] hashes = new long[names.length];
+    for (int i = 0; i < names.length; i++) {
+      hashes[i] = CounterSketch.hash(names[i]);
+    }
 
-    return keys.stream()
-        .map(sketch::getEstimatedCountPair)
-        .collect(toMap(Pair::getFirst, Pair::getSecond));
+    CounterSnapshot.View view = snapshot.view();
+    int[] counts = new int[names.length];
+    view.getEstimatedCounts(hashes, counts);
+
+    // Deltas which the snapshot doesn't include yet are added so that a user sees their own update
+    // right away, and keeps seeing it while the flushed delta waits in the pull queue.
+    long now = System.currentTimeMillis();
+    accumulator.release(view::isApplied, now - properties.getPendingHoldMillis());
+    Map<String, Integer> result = new HashMap<>(names.length);
+    for (int i = 0; i < names.length; i++) {
+      long count = counts[i] + accumulator.pending(names[i], hashes[i], view::isApplied);
+      if (count != 0L) {
+        result.put(names[i], Ints.saturatedCast(count));
+      }
+    }
+    return result;
   }
 
   @Override
   public void increment(Collection<String> metricNames) {
-    updateCounter(metricNames, CounterSketch::getIncrementSketch);
+    metricNames.forEach(name -> accumulator.add(name, 1L));
+    flusher.flushIfDue();
   }
 
   @Override
   public void decrement(Collection<String> metricNames) {
-    updateCounter(metricNames, CounterSketch::getDecrementSketch);
-  }
-
-  private void updateCounter(
-      Collection<String> metricNames, Function<CounterSketch, CountMinSketch> map) {
-    Key<CounterSketch> key = CounterSketch.createKey();
-    CounterSketch counterSketch = ofy().load().key(key).now();
-    CountMinSketch sketch = map.apply(counterSketch);
-    metricNames.forEach(sketch::add);
-    memcacheService.put(key.getRaw(), counterSketch);
-    addToQueue(counterSketch);
-  }
-
-  private void addToQueue(CounterSketch counterSketch) {
-    String json = sneak(() -> objectMapper.writeValueAsString(QueuePayload.save(counterSketch)));
-    counterQueue.addAsync(TaskOptions.Builder.withTag("counter").payload(json));
+    metricNames.forEach(name -> accumulator.add(name, -1L));
+    flusher.flushIfDue();
   }
 }
@@ -1,26 +1,47 @@
 package com.yoloo.server.counter;
 
+import com.google.common.primitives.Ints;
 import com.googlecode.objectify.Key;
 import com.googlecode.objectify.annotation.Cache;
 import com.googlecode.objectify.annotation.Entity;
 import com.googlecode.objectify.annotation.Id;
 import com.yoloo.server.entity.Keyable;
-import com.yoloo.server.util.Pair;
 import com.yoloo.server.util.sketch.CountMinSketch;
+import com.yoloo.server.util.sketch.Murmur3;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One shard of the counter store. Flushed deltas are written to a single shard per transaction and
+ * the shards are merged on read, so concurrent flushes from different instances rarely contend.
+ */
 @Cache
 @Entity
 class CounterSketch implements Keyable<CounterSketch> {
   private static final String ENTITY_ID = "counter:sketch";
 
+  /** Number of applied batch ids a shard remembers. */
+  static final int APPLIED_BATCH_CAPACITY = 1_024;
+
   @Id private String id;
   private CountMinSketch incrementSketch;
   private CountMinSketch decrementSketch;
 
+  // Ids of the latest batches applied to this shard, a ring written at appliedCursor.
+  private long[] appliedBatches;
+  private int appliedCursor;
+
   private CounterSketch() {
-    this.id = ENTITY_ID;
-    this.incrementSketch = new CountMinSketch();
-    this.decrementSketch = new CountMinSketch();
+    this(ENTITY_ID);
+  }
+
+  private CounterSketch(String id) {
+    this.id = id;
+    this.incrementSketch = new CountMinSketch(true);
+    this.decrementSketch = new CountMinSketch(true);
   }
 
   private CounterSketch(CountMinSketch incrementSketch, CountMinSketch decrementSketch) {
@@ -33,8 +54,25 @@ class CounterSketch implements Keyable<CounterSketch> {
     return new CounterSketch();
   }
 
-  static Key<CounterSketch> createKey() {
-    return Key.create(CounterSketch.class, ENTITY_ID);
+  static CounterSketch create(int shard) {
+    return new CounterSketch(createId(shard));
+  }
+
+  // Shard 0 keeps the id of the former single sketch so the existing counts stay visible.
+  private static String createId(int shard) {
+    return shard == 0 ? ENTITY_ID : ENTITY_ID + ":" + shard;
+  }
+
+  static Key<CounterSketch> createKey(int shard) {
+    return Key.create(CounterSketch.class, createId(shard));
+  }
+
+  static List<Key<CounterSketch>> createKeys(int shardCount) {
+    List<Key<CounterSketch>> keys = new ArrayList<>(shardCount);
+    for (int i = 0; i < shardCount; i++) {
+      keys.add(createKey(i));
+    }
+    return keys;
   }
 
   String getId() {
@@ -49,17 +87,80 @@ class CounterSketch implements Keyable<CounterSketch> {
     return decrementSketch;
   }
 
+  /**
+   * Remembers the given batches as applied to this shard, overwriting the oldest ids once the ring
+   * is full.
+   *
+   * @param batchIds ids read by {@link CounterDeltaCodec#batchId(byte[])}, 0 is ignored
+   * @return this shard
+   */
+  CounterSketch markApplied(Collection<Long> batchIds) {
+    if (appliedBatches == null || appliedBatches.length != APPLIED_BATCH_CAPACITY) {
+      appliedBatches = new long[APPLIED_BATCH_CAPACITY];
+      appliedCursor = 0;
+    }
+    for (long batchId : batchIds) {
+      if (batchId != 0L) {
+        appliedBatches[appliedCursor] = batchId;
+        appliedCursor = (appliedCursor + 1) % APPLIED_BATCH_CAPACITY;
+      }
+    }
+    return this;
+  }
+
+  /** Returns the ids of the latest batches applied to this shard, unordered, 0 for empty slots. */
+  long[] getAppliedBatches() {
+    return appliedBatches == null ? new long[0] : appliedBatches;
+  }
+
   CounterSketch merge(CounterSketch other) {
     incrementSketch.merge(other.incrementSketch);
     decrementSketch.merge(other.decrementSketch);
     return new CounterSketch(incrementSketch, decrementSketch);
   }
 
-  private int getEstimatedCount(String key) {
-    return incrementSketch.getEstimatedCount(key) - decrementSketch.getEstimatedCount(key);
+  /**
+   * Hashes a counter name the same way {@link CountMinSketch#add(String)} does, so deltas keyed by
+   * hash land in the same cells as the names counted before.
+   *
+   * @param name the name of the counter
+   * @return 64-bit hash of the name
+   */
+  static long hash(String name) {
+    return Murmur3.hash64(name);
+  }
+
+  /**
+   * Applies coalesced deltas to this shard. Positive deltas are counted by the increment sketch,
+   * negative ones by the decrement sketch.
+   *
+   * @param deltas signed deltas keyed by {@link #hash(String)}
+   * @return this shard
+   */
+  CounterSketch apply(Map<Long, Long> deltas) {
+    deltas.forEach(
+        (hash, delta) -> {
+          if (delta > 0) {
+            incrementSketch.addHash(hash, Ints.saturatedCast(delta));
+          } else if (delta < 0) {
+            decrementSketch.addHash(hash, Ints.saturatedCast(-delta));
+          }
+        });
+    return this;
   }
 
-  Pair<String, Integer> getEstimatedCountPair(String key) {
-    return Pair.of(key, getEstimatedCount(key));
+  /**
+   * Estimates many counters at once.
+   *
+   * @param hashes {@link #hash(String)} of the counter names
+   * @param out receives the estimate of hashes[i] at index i
+   */
+  void getEstimatedCounts(long[] hashes, int[] out) {
+    int[] decrements = new int[hashes.length];
+    incrementSketch.getEstimatedCountsByHash(hashes, out);
+    decrementSketch.getEstimatedCountsByHash(hashes, decrements);
+    for (int i = 0; i < hashes.length; i++) {
+      out[i] -= decrements[i];
+    }
   }
 }
@@ -0,0 +1,126 @@
+package com.yoloo.server.counter;
+
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.LongStream;
+
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+/**
+ * Merged, read-only view of every {@link CounterSketch} shard. The view is rebuilt lazily once it
+ * is older than {@link CounterProperties#getSnapshotTtlMillis()}; only one thread reloads the
+ * shards while the others keep reading the previous view.
+ */
+@Component
+public class CounterSnapshot {
+  private static final Logger logger = LoggerFactory.getLogger(CounterSnapshot.class);
+
+  private final CounterProperties properties;
+  private final AtomicReference<View> view = new AtomicReference<>();
+  private final ReentrantLock refreshLock = new ReentrantLock();
+
+  @Autowired
+  public CounterSnapshot(CounterProperties properties) {
+    this.properties = properties;
+  }
+
+  /**
+   * Returns the current view. Reads which combine its counts with the deltas held by {@link
+   * CounterAccumulator} must use a single view for both.
+   */
+  View view() {
+    return current();
+  }
+
+  /** Forces the next read to reload the shards. */
+  void invalidate() {
+    view.set(null);
+  }
+
+  private View current() {
+    View current = view.get();
+    if (current != null && !current.isExpired(properties.getSnapshotTtlMillis())) {
+      return current;
+    }
+
+    // Serve the stale view while another thread is already reloading.
+    if (current != null && !refreshLock.tryLock()) {
+      return current;
+    }
+    if (current == null) {
+      refreshLock.lock();
+    }
+
+    try {
+      View latest = view.get();
+      if (latest != null && latest != current) {
+        return latest;
+      }
+
+      View loaded = load();
+      view.set(loaded);
+      return loaded;
+    } catch (RuntimeException e) {
+      if (current == null) {
+        throw e;
+      }
+      logger.warn("Counter shards could not be reloaded, serving the previous snapshot", e);
+      return current;
+    } finally {
+      refreshLock.unlock();
+    }
+  }
+
+  private View load() {
+    Map<Key<CounterSketch>, CounterSketch> shards =
+        ObjectifyService.run(
+            () -> ofy().load().keys(CounterSketch.createKeys(properties.getShardCount())));
+
+    long[] appliedBatches =
+        shards
+            .values()
+            .stream()
+            .flatMapToLong(shard -> LongStream.of(shard.getAppliedBatches()))
+            .filter(batchId -> batchId != 0L)
+            .sorted()
+            .toArray();
+
+    CounterSketch merged = CounterSketch.create();
+    shards.values().forEach(merged::merge);
+    return new View(merged, appliedBatches, System.currentTimeMillis());
+  }
+
+  static final class View {
+    private final CounterSketch sketch;
+    private final long[] appliedBatches;
+    private final long loadedAt;
+
+    private View(CounterSketch sketch, long[] appliedBatches, long loadedAt) {
+      this.sketch = sketch;
+      this.appliedBatches = appliedBatches;
+      this.loadedAt = loadedAt;
+    }
+
+    void getEstimatedCounts(long[] hashes, int[] out) {
+      sketch.getEstimatedCounts(hashes, out);
+    }
+
+    /** Whether the counts of this view include the given delta batch. */
+    boolean isApplied(long batchId) {
+      return Arrays.binarySearch(appliedBatches, batchId) >= 0;
+    }
+
+    private boolean isExpired(long ttlMillis) {
+      return System.currentTimeMillis() - loadedAt > ttlMillis;
+    }
+  }
+}
@@ -1,59 +1,156 @@
 package com.yoloo.server.filter
 
 import com.googlecode.objectify.Key
+import com.googlecode.objectify.annotation.AlsoLoad
 import com.googlecode.objectify.annotation.Entity
 import com.googlecode.objectify.annotation.Id
+import com.googlecode.objectify.annotation.Ignore
 import com.yoloo.server.common.util.NoArg
 import com.yoloo.server.entity.Keyable
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilterCodec
+import org.slf4j.Logger
+import org.slf4j.LoggerFactory
 
+/**
+ * One partition of the entity filters, see [FilterKind].
+ *
+ * A cuckoo filter can't be rehashed into a larger table since the keys are not known anymore, so
+ * once the newest generation passes [GROWTH_LOAD_FACTOR] a generation of twice its capacity is
+ * appended. Inserts go to the newest generation, lookups and deletes check all of them.
+ *
+ * All generations share one entity, so a new generation only gets the capacity which still fits
+ * into [CuckooFilterCodec.MAX_ENCODED_SIZE]. A partition which runs out of room keeps filling its
+ * newest generation and logs that its kind needs more partitions.
+ */
 @NoArg
 @Entity
 data class EntityIdFilter(
     @Id var id: String = ENTITY_ID,
 
-    private var cuckooFilter: NanoCuckooFilter = NanoCuckooFilter.Builder(1_000_000L).build()
+    @Volatile private var generations: List<CuckooFilter> = emptyList(),
+
+    private var version: Long = 0L
 ) : Keyable<EntityIdFilter>, Filter {
 
     override fun toFilterKey(): Key<*> {
-        return createKey()
+        return Key.create(EntityIdFilter::class.java, id)
+    }
+
+    override fun insertHash(hash64: Long): Boolean {
+        val newest = generations.lastOrNull()
+        if (newest != null && newest.loadFactor < GROWTH_LOAD_FACTOR && newest.insertHash(hash64)) {
+            return true
+        }
+        return grow(newest).insertHash(hash64)
+    }
+
+    override fun containsHash(hash64: Long): Boolean {
+        return generations.any { it.containsHash(hash64) }
+    }
+
+    override fun deleteHash(hash64: Long): Boolean {
+        return generations.asReversed().any { it.deleteHash(hash64) }
     }
 
-    fun add(key: Long) {
-        cuckooFilter.insert(key.toString())
+    override fun getVersion(): Long {
+        return version
     }
 
-    fun add(key: String) {
-        cuckooFilter.insert(key)
+    override fun setVersion(version: Long) {
+        this.version = version
     }
 
-    fun delete(key: String) {
-        cuckooFilter.delete(key)
+    fun getCapacity(): Long {
+        return generations.map { it.capacity }.sum()
     }
 
-    fun contains(key: Long): Boolean {
-        return contains(key.toString())
+    // Readers never lock, so the list is replaced instead of modified.
+    @Synchronized
+    private fun grow(full: CuckooFilter?): CuckooFilter {
+        val newest = generations.lastOrNull()
+        if (newest != null && newest !== full) {
+            return newest
+        }
+
+        val used = generations.map { CuckooFilterCodec.encodedSize(it.capacity) }.sum()
+        val room = CuckooFilterCodec.maxCapacity(CuckooFilterCodec.MAX_ENCODED_SIZE - used)
+        val capacity = minOf(full?.capacity?.times(2) ?: DEFAULT_CAPACITY, room)
+        if (newest != null && capacity < MIN_GENERATION_CAPACITY) {
+            if (!outOfRoom) {
+                outOfRoom = true
+                LOGGER.warn("Filter {} is out of room, its kind needs more partitions", id)
+            }
+            return newest
+        }
+
+        val next = CuckooFilter(capacity)
+        generations = generations + next
+        return next
     }
 
-    fun contains(key: String): Boolean {
-        return cuckooFilter.contains(key)
+    @Ignore
+    @Volatile
+    private var outOfRoom = false
+
+    // Filters stored before the partitioning had a single cuckoo filter.
+    private fun importCuckooFilter(@AlsoLoad("cuckooFilter") cuckooFilter: CuckooFilter?) {
+        if (cuckooFilter != null && generations.isEmpty()) {
+            generations = listOf(cuckooFilter)
+        }
     }
 
     companion object {
         const val ENTITY_ID = "filter:entity"
 
-        fun create(): EntityIdFilter {
-            return EntityIdFilter()
+        const val GROWTH_LOAD_FACTOR = 0.9
+
+        private const val DEFAULT_CAPACITY = 8_192L
+
+        // smaller generations would add more lookups than they save
+        private const val MIN_GENERATION_CAPACITY = 1_024L
+
+        private val LOGGER: Logger = LoggerFactory.getLogger(EntityIdFilter::class.java)
+
+        @JvmStatic
+        fun create(kind: FilterKind, partition: Int): EntityIdFilter {
+            return EntityIdFilter(
+                id = createId(kind, partition),
+                generations = listOf(CuckooFilter(kind.initialCapacity))
+            )
+        }
+
+        @JvmStatic
+        fun create(kind: FilterKind, partition: Int, filter: CuckooFilter): EntityIdFilter {
+            return EntityIdFilter(id = createId(kind, partition), generations = listOf(filter))
+        }
+
+        @JvmStatic
+        fun create(id: String): EntityIdFilter {
+            val parts = id.split(':')
+            if (parts.size != 4 || "${parts[0]}:${parts[1]}" != ENTITY_ID) {
+                return EntityIdFilter(id = id)
+            }
+            return create(FilterKind.valueOf(parts[2].toUpperCase()), parts[3].toInt())
+        }
+
+        @JvmStatic
+        fun createId(kind: FilterKind, partition: Int): String {
+            return "$ENTITY_ID:${kind.name.toLowerCase()}:$partition"
         }
 
         @JvmStatic
-        fun createId(): String {
-            return ENTITY_ID
+        fun createKey(kind: FilterKind, partition: Int): Key<EntityIdFilter> {
+            return Key.create(EntityIdFilter::class.java, createId(kind, partition))
         }
 
+        /**
+         * Key of the filter which held every kind before the partitioning. It is only read as a
+         * fallback until the partitions are rebuilt.
+         */
         @JvmStatic
-        fun createKey(): Key<EntityIdFilter> {
-            return Key.create(EntityIdFilter::class.java, createId())
+        fun createLegacyKey(): Key<EntityIdFilter> {
+            return Key.create(EntityIdFilter::class.java, ENTITY_ID)
         }
     }
 }
@@ -1,8 +1,44 @@
 package com.yoloo.server.filter;
 
 import com.googlecode.objectify.Key;
+import com.yoloo.server.util.sketch.Murmur3;
 
 public interface Filter {
 
+  /**
+   * Hashes a key for {@link #insertHash(long)}, {@link #containsHash(long)} and {@link
+   * #deleteHash(long)}.
+   *
+   * @param key the key
+   * @return 64-bit hash of the key
+   */
+  static long hash(CharSequence key) {
+    return Murmur3.hash64(key);
+  }
+
+  static long hash(long key) {
+    return Murmur3.hash64(key);
+  }
+
+  static long hash(long first, long second) {
+    return Murmur3.hash64Pair(first, second);
+  }
+
   Key<?> toFilterKey();
+
+  boolean insertHash(long hash64);
+
+  boolean containsHash(long hash64);
+
+  boolean deleteHash(long hash64);
+
+  /**
+   * Returns the last mutation version which is reflected in this snapshot, see {@link
+   * FilterService}.
+   *
+   * @return version of the snapshot
+   */
+  long getVersion();
+
+  void setVersion(long version);
 }
@@ -0,0 +1,39 @@
+package com.yoloo.server.filter;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A single filter mutation, an op code and the 64-bit hash of the key. Deltas are published to
+ * memcache by {@link FilterServiceImpl} and journaled to the datastore by {@link
+ * FilterWriteBehind}.
+ */
+final class FilterDelta {
+  static final byte OP_INSERT = 1;
+  static final byte OP_DELETE = 2;
+
+  static final int SIZE = Byte.BYTES + Long.BYTES;
+
+  private FilterDelta() {}
+
+  static byte[] encode(byte op, long hash) {
+    return ByteBuffer.allocate(SIZE).put(op).putLong(hash).array();
+  }
+
+  /**
+   * Applies an encoded delta.
+   *
+   * @param filter the filter to mutate
+   * @param buffer positioned at the op code, advanced past the delta
+   */
+  static void apply(Filter filter, ByteBuffer buffer) {
+    apply(filter, buffer.get(), buffer.getLong());
+  }
+
+  static void apply(Filter filter, byte op, long hash) {
+    if (op == OP_INSERT) {
+      filter.insertHash(hash);
+    } else if (op == OP_DELETE) {
+      filter.deleteHash(hash);
+    }
+  }
+}
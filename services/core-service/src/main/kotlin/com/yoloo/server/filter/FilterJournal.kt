@@ -0,0 +1,67 @@
+package com.yoloo.server.filter
+
+import com.googlecode.objectify.Key
+import com.googlecode.objectify.annotation.Entity
+import com.googlecode.objectify.annotation.Id
+import com.googlecode.objectify.annotation.Parent
+import com.yoloo.server.common.util.NoArg
+import java.nio.ByteBuffer
+import java.util.concurrent.ThreadLocalRandom
+import java.util.function.ObjLongConsumer
+
+/**
+ * A batch of versioned mutations of one filter, stored under the filter so the mutations which are
+ * not part of its snapshot yet can be replayed after memcache lost them. Each record is the version
+ * followed by a [FilterDelta].
+ *
+ * The id starts with the highest version of the batch, so batches which are covered by a snapshot
+ * can be found with a keys-only query.
+ */
+@NoArg
+@Entity
+class FilterJournal(
+    @Id var id: String,
+
+    @Parent var filter: Key<*>,
+
+    var records: ByteArray
+) {
+
+    /**
+     * Invokes the action with the delta and the version of every record above the given version.
+     */
+    fun forEachAfter(version: Long, action: ObjLongConsumer<ByteBuffer>) {
+        val buffer = ByteBuffer.wrap(records)
+        while (buffer.remaining() >= RECORD_SIZE) {
+            val recordVersion = buffer.getLong()
+            val delta = buffer.slice()
+            delta.limit(FilterDelta.SIZE)
+            buffer.position(buffer.position() + FilterDelta.SIZE)
+            if (recordVersion > version) {
+                action.accept(delta, recordVersion)
+            }
+        }
+    }
+
+    companion object {
+        const val RECORD_SIZE = java.lang.Long.BYTES + FilterDelta.SIZE
+
+        // keeps a batch well below the entity size limit
+        const val MAX_RECORDS = 32_768
+
+        @JvmStatic
+        fun create(filter: Key<*>, maxVersion: Long, records: ByteArray): FilterJournal {
+            return FilterJournal(createId(maxVersion), filter, records)
+        }
+
+        // Instances journal concurrently, the random suffix keeps their ids apart.
+        private fun createId(maxVersion: Long): String {
+            return "%019d-%016x".format(maxVersion, ThreadLocalRandom.current().nextLong())
+        }
+
+        @JvmStatic
+        fun getMaxVersion(key: Key<FilterJournal>): Long {
+            return key.name.substringBefore('-').toLong()
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.yoloo.server.filter;
+
+/**
+ * Kinds of ids kept by the entity filters. Every kind is split into a power of two number of
+ * partitions, each of them is stored and cached as its own {@link EntityIdFilter}.
+ */
+public enum FilterKind {
+  USER(8, 32_768L, ""),
+  POST(16, 32_768L, ""),
+  COMMENT(16, 32_768L, ""),
+  LIKE(32, 65_536L, "like:"),
+  APPROVAL(4, 8_192L, "APPROVED:"),
+  BOOKMARK(16, 32_768L, "bookmark:"),
+  RELATIONSHIP(16, 32_768L, "");
+
+  // bits 40..47 of the hash are used by neither the bucket index nor the fingerprint of a
+  // partition, so the keys of a partition are still spread evenly over its buckets
+  private static final int PARTITION_SHIFT = 40;
+
+  private final int partitions;
+  private final long initialCapacity;
+  // prefix of the ids in the filter used before the partitioning
+  private final String legacyPrefix;
+
+  FilterKind(int partitions, long initialCapacity, String legacyPrefix) {
+    this.partitions = partitions;
+    this.initialCapacity = initialCapacity;
+    this.legacyPrefix = legacyPrefix;
+  }
+
+  public int getPartitions() {
+    return partitions;
+  }
+
+  public long getInitialCapacity() {
+    return initialCapacity;
+  }
+
+  /**
+   * Returns the partition of a key given its {@link Filter} hash.
+   *
+   * @param hash64 hash of the key
+   * @return partition in [0, partitions)
+   */
+  public int partitionOf(long hash64) {
+    return (int) (hash64 >>> PARTITION_SHIFT) & (partitions - 1);
+  }
+
+  String legacyId(long key) {
+    return legacyPrefix + key;
+  }
+
+  String legacyId(long first, long second) {
+    return legacyPrefix + first + ':' + second;
+  }
+}
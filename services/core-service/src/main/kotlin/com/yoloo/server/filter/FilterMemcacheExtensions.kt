@@ -0,0 +1,37 @@
+package com.yoloo.server.filter
+
+import com.google.appengine.api.memcache.AsyncMemcacheService
+import com.google.appengine.api.memcache.MemcacheService
+import com.yoloo.server.util.sketch.CuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilterCodec
+import java.util.concurrent.Future
+
+fun MemcacheService.getFilter(key: String): CuckooFilter {
+    return decodeCached(key, get(key))
+}
+
+fun MemcacheService.putFilter(key: String, filter: CuckooFilter) {
+    put(key, CuckooFilterCodec.encode(filter))
+}
+
+fun AsyncMemcacheService.getFilter(key: String): CuckooFilter {
+    return decodeCached(key, get(key).get())
+}
+
+fun AsyncMemcacheService.getFilters(keys: Collection<String>): Map<String, CuckooFilter> {
+    return getAll(keys).get().mapValues { decodeCached(it.key, it.value) }
+}
+
+/**
+ * Stores the filter, the future tells whether memcache accepted it.
+ */
+fun AsyncMemcacheService.putFilter(key: String, filter: CuckooFilter): Future<Boolean> {
+    return put(key, CuckooFilterCodec.encode(filter), null, MemcacheService.SetPolicy.SET_ALWAYS)
+}
+
+// Values cached before the codec are serialized filters of the previous library, they are never
+// read since the filter keys moved to a new version.
+private fun decodeCached(key: String, value: Any?): CuckooFilter {
+    val bytes = value as? ByteArray ?: throw IllegalStateException("Filter $key is not cached")
+    return CuckooFilterCodec.decode(bytes)
+}
@@ -0,0 +1,117 @@
+package com.yoloo.server.filter;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "filter")
+public class FilterProperties {
+  /** Minimum time between two checks of the shared version stamp of a resident filter. */
+  private long versionCheckIntervalMillis = 1_000L;
+
+  /**
+   * How long a missing delta is waited for before the filter is reloaded from the datastore. A
+   * delta may show up shortly after its version was taken by another instance.
+   */
+  private long gapTimeoutMillis = 5_000L;
+
+  /** Expiration of the published deltas in memcache. */
+  private int deltaExpirationSeconds = 600;
+
+  /**
+   * Interval between two journal writes, which bounds the mutations lost when an instance dies.
+   * Changed filters are checked against the flush thresholds at the same interval.
+   */
+  private long flushCheckIntervalMillis = 1_000L;
+
+  /** A changed filter is written once its oldest unwritten mutation is older than this. */
+  private long flushMaxAgeMillis = 60_000L;
+
+  /** A changed filter is written once it collected this many mutations. */
+  private int flushMaxMutations = 1_000;
+
+  /** Number of keys read from the datastore at once while a filter is rebuilt. */
+  private int rebuildPageSize = 1_000;
+
+  /** Number of threads inserting the keys while a filter is rebuilt. */
+  private int rebuildWorkers = 4;
+
+  /**
+   * Whether ids which are missing in their partition are looked up in the single filter used
+   * before the partitioning. Only enable it once that filter is stored in the codec format, a
+   * filter serialized by the previous library can't be read and turns the fallback off.
+   */
+  private boolean legacyFallbackEnabled = false;
+
+  public long getVersionCheckIntervalMillis() {
+    return versionCheckIntervalMillis;
+  }
+
+  public void setVersionCheckIntervalMillis(long versionCheckIntervalMillis) {
+    this.versionCheckIntervalMillis = versionCheckIntervalMillis;
+  }
+
+  public long getGapTimeoutMillis() {
+    return gapTimeoutMillis;
+  }
+
+  public void setGapTimeoutMillis(long gapTimeoutMillis) {
+    this.gapTimeoutMillis = gapTimeoutMillis;
+  }
+
+  public int getDeltaExpirationSeconds() {
+    return deltaExpirationSeconds;
+  }
+
+  public void setDeltaExpirationSeconds(int deltaExpirationSeconds) {
+    this.deltaExpirationSeconds = deltaExpirationSeconds;
+  }
+
+  public long getFlushCheckIntervalMillis() {
+    return flushCheckIntervalMillis;
+  }
+
+  public void setFlushCheckIntervalMillis(long flushCheckIntervalMillis) {
+    this.flushCheckIntervalMillis = flushCheckIntervalMillis;
+  }
+
+  public long getFlushMaxAgeMillis() {
+    return flushMaxAgeMillis;
+  }
+
+  public void setFlushMaxAgeMillis(long flushMaxAgeMillis) {
+    this.flushMaxAgeMillis = flushMaxAgeMillis;
+  }
+
+  public int getFlushMaxMutations() {
+    return flushMaxMutations;
+  }
+
+  public void setFlushMaxMutations(int flushMaxMutations) {
+    this.flushMaxMutations = flushMaxMutations;
+  }
+
+  public boolean isLegacyFallbackEnabled() {
+    return legacyFallbackEnabled;
+  }
+
+  public void setLegacyFallbackEnabled(boolean legacyFallbackEnabled) {
+    this.legacyFallbackEnabled = legacyFallbackEnabled;
+  }
+
+  public int getRebuildPageSize() {
+    return rebuildPageSize;
+  }
+
+  public void setRebuildPageSize(int rebuildPageSize) {
+    this.rebuildPageSize = rebuildPageSize;
+  }
+
+  public int getRebuildWorkers() {
+    return rebuildWorkers;
+  }
+
+  public void setRebuildWorkers(int rebuildWorkers) {
+    this.rebuildWorkers = rebuildWorkers;
+  }
+}
@@ -0,0 +1,188 @@
+package com.yoloo.server.filter;
+
+import com.google.cloud.datastore.Cursor;
+import com.google.cloud.datastore.QueryResults;
+import com.googlecode.objectify.ObjectifyService;
+import com.yoloo.server.util.sketch.CuckooFilter;
+import com.yoloo.server.util.sketch.CuckooFilterCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.LongToIntFunction;
+
+/**
+ * Builds cuckoo filters from a {@link FilterSource}, either a single filter or one filter per
+ * partition of a {@link FilterKind}.
+ *
+ * <p>The calling thread pages through the source with a cursor and hands every page to a worker
+ * pool. Each worker inserts into partial filters of its own, so the workers never contend, and
+ * the partial filters are merged once the source is exhausted. At most twice as many pages as
+ * there are workers are in flight, which bounds the memory regardless of the size of the kind.
+ * Every filter is capped at {@link CuckooFilterCodec#MAX_ENCODED_SIZE}.
+ */
+@Component
+public class FilterRebuildJob {
+  private static final Logger logger = LoggerFactory.getLogger(FilterRebuildJob.class);
+
+  private static final long MAX_CAPACITY =
+      CuckooFilterCodec.maxCapacity(CuckooFilterCodec.MAX_ENCODED_SIZE);
+
+  private final FilterProperties properties;
+
+  public FilterRebuildJob(FilterProperties properties) {
+    this.properties = properties;
+  }
+
+  public <T> CuckooFilter rebuild(FilterSource<T> source) {
+    return build(source, 1, hash -> 0, Math.min(source.getCapacity(), MAX_CAPACITY))[0];
+  }
+
+  /**
+   * Builds the partitions of a kind. A partition gets its share of the capacity of the source,
+   * but at least the initial capacity of the kind.
+   *
+   * @param kind the kind of the ids
+   * @param source hashes the ids like {@link FilterService} does for the kind
+   * @param <T> the type of a query result
+   * @return the filter of partition i at index i
+   */
+  public <T> CuckooFilter[] rebuildPartitions(FilterKind kind, FilterSource<T> source) {
+    int partitions = kind.getPartitions();
+    long share = (source.getCapacity() + partitions - 1) / partitions;
+    long capacity = Math.min(Math.max(kind.getInitialCapacity(), share), MAX_CAPACITY);
+    return build(source, partitions, kind::partitionOf, capacity);
+  }
+
+  private <T> CuckooFilter[] build(
+      FilterSource<T> source, int partitions, LongToIntFunction partitionOf, long capacity) {
+    int workers = properties.getRebuildWorkers();
+    int pageSize = properties.getRebuildPageSize();
+    long startedAt = System.currentTimeMillis();
+
+    BlockingQueue<CuckooFilter[]> partials = new ArrayBlockingQueue<>(workers);
+    for (int i = 0; i < workers; i++) {
+      CuckooFilter[] partial = new CuckooFilter[partitions];
+      for (int p = 0; p < partitions; p++) {
+        partial[p] = new CuckooFilter(capacity);
+      }
+      partials.add(partial);
+    }
+
+    Semaphore inFlight = new Semaphore(workers * 2);
+    AtomicLong inserted = new AtomicLong();
+    AtomicLong rejected = new AtomicLong();
+    AtomicReference<RuntimeException> failure = new AtomicReference<>();
+
+    ExecutorService executor = Executors.newFixedThreadPool(workers);
+    try {
+      Cursor cursor = null;
+      while (failure.get() == null) {
+        Page page = fetch(source, cursor, pageSize);
+        cursor = page.cursor;
+        long[] hashes = page.hashes;
+        if (hashes.length == 0) {
+          break;
+        }
+
+        inFlight.acquireUninterruptibly();
+        executor.execute(
+            () -> {
+              CuckooFilter[] partial = partials.poll();
+              try {
+                for (long hash : hashes) {
+                  if (partial[partitionOf.applyAsInt(hash)].insertHash(hash)) {
+                    inserted.incrementAndGet();
+                  } else {
+                    rejected.incrementAndGet();
+                  }
+                }
+              } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+              } finally {
+                partials.add(partial);
+                inFlight.release();
+              }
+            });
+
+        if (hashes.length < pageSize) {
+          break;
+        }
+      }
+    } finally {
+      executor.shutdown();
+      awaitTermination(executor);
+    }
+
+    if (failure.get() != null) {
+      throw failure.get();
+    }
+
+    CuckooFilter[] merged = partials.poll();
+    boolean complete = true;
+    for (CuckooFilter[] partial; (partial = partials.poll()) != null; ) {
+      for (int p = 0; p < partitions; p++) {
+        complete &= merged[p].merge(partial[p]);
+      }
+    }
+
+    if (rejected.get() > 0 || !complete) {
+      logger.warn(
+          "Filter {} is full, {} keys could not be inserted{}",
+          source.getName(),
+          rejected.get(),
+          complete ? "" : " and the partial filters could not be merged completely");
+    }
+    logger.info(
+        "Rebuilt filter {} with {} keys in {} partitions in {} ms",
+        source.getName(),
+        inserted.get(),
+        partitions,
+        System.currentTimeMillis() - startedAt);
+    return merged;
+  }
+
+  // Reads the hashes of one page together with the cursor after it.
+  private static <T> Page fetch(FilterSource<T> source, Cursor cursor, int pageSize) {
+    return ObjectifyService.run(
+        () -> {
+          QueryResults<T> results = source.page(cursor, pageSize);
+          long[] hashes = new long[pageSize];
+          int size = 0;
+          while (results.hasNext() && size < pageSize) {
+            hashes[size++] = source.hash(results.next());
+          }
+          return new Page(Arrays.copyOf(hashes, size), results.getCursorAfter());
+        });
+  }
+
+  private static void awaitTermination(ExecutorService executor) {
+    try {
+      while (!executor.awaitTermination(1, TimeUnit.MINUTES)) {
+        logger.info("Waiting for the filter rebuild workers");
+      }
+    } catch (InterruptedException e) {
+      executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private static final class Page {
+    private final long[] hashes;
+    private final Cursor cursor;
+
+    private Page(long[] hashes, Cursor cursor) {
+      this.hashes = hashes;
+      this.cursor = cursor;
+    }
+  }
+}
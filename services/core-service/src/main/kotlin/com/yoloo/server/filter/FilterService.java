@@ -1,19 +1,79 @@
 package com.yoloo.server.filter;
 
 import com.googlecode.objectify.Key;
+import com.yoloo.server.util.sketch.CuckooFilter;
 
 import javax.annotation.Nonnull;
-import java.util.Map;
 
+/**
+ * Keeps filters resident in the JVM. Every mutation bumps a version stamp shared through memcache
+ * and publishes a small delta under that version, other instances replay the deltas they missed
+ * instead of fetching the whole filter again.
+ */
 public interface FilterService {
 
-  default <T extends Filter> T get(@Nonnull Key<T> key) {
-    //noinspection unchecked
-    return getAll(key).get(key);
-  }
+  /**
+   * Returns the process-local copy of the filter. The copy is brought up to date when its version
+   * stamp is behind the shared one.
+   *
+   * @param key the key of the filter
+   * @param <T> the type of the filter
+   * @return resident filter, never null
+   */
+  @Nonnull
+  <T extends Filter> T get(@Nonnull Key<T> key);
 
-  @SuppressWarnings("unchecked")
-  <T extends Filter> Map<Key<T>, T> getAll(@Nonnull Key<T>... keys);
+  void add(@Nonnull Key<? extends Filter> key, @Nonnull CharSequence value);
 
-  void saveAsync(Filter... filters);
+  void delete(@Nonnull Key<? extends Filter> key, @Nonnull CharSequence value);
+
+  /**
+   * Tests the partition of the given kind which the value hashes to.
+   *
+   * @param kind kind of the id
+   * @param value the id
+   * @return false if the id was definitely not added
+   */
+  boolean contains(@Nonnull FilterKind kind, @Nonnull CharSequence value);
+
+  void add(@Nonnull FilterKind kind, @Nonnull CharSequence value);
+
+  void delete(@Nonnull FilterKind kind, @Nonnull CharSequence value);
+
+  /**
+   * Tests an id given as a long, it is hashed directly instead of its decimal string.
+   *
+   * @param kind kind of the id
+   * @param id the id
+   * @return false if the id was definitely not added
+   */
+  boolean contains(@Nonnull FilterKind kind, long id);
+
+  void add(@Nonnull FilterKind kind, long id);
+
+  void delete(@Nonnull FilterKind kind, long id);
+
+  /**
+   * Tests a composite id like a like or a relationship given as its two parts.
+   *
+   * @param kind kind of the id
+   * @param first first part of the id, e.g. the user
+   * @param second second part of the id, e.g. the liked post
+   * @return false if the id was definitely not added
+   */
+  boolean contains(@Nonnull FilterKind kind, long first, long second);
+
+  void add(@Nonnull FilterKind kind, long first, long second);
+
+  void delete(@Nonnull FilterKind kind, long first, long second);
+
+  /**
+   * Stores a rebuilt partition and starts a new version sequence for it, so every resident copy
+   * reloads the rebuilt snapshot. Mutations made meanwhile are merged into it by the write-behind.
+   *
+   * @param kind kind of the ids
+   * @param partition the partition
+   * @param filter the rebuilt filter, see {@link FilterRebuildJob#rebuildPartitions}
+   */
+  void replace(@Nonnull FilterKind kind, int partition, @Nonnull CuckooFilter filter);
 }
@@ -1,79 +1,391 @@
 package com.yoloo.server.filter;
 
-import com.google.appengine.api.memcache.AsyncMemcacheService;
-import com.google.common.util.concurrent.Futures;
+import com.google.appengine.api.memcache.Expiration;
+import com.google.appengine.api.memcache.MemcacheService;
+import com.google.common.collect.ImmutableMap;
 import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import com.yoloo.server.util.sketch.CuckooFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.scheduling.annotation.EnableScheduling;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Nonnull;
-import java.util.Collection;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import java.util.concurrent.ExecutionException;
-import java.util.stream.Collectors;
-import java.util.stream.Stream;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 
 import static com.googlecode.objectify.ObjectifyService.ofy;
 
+/**
+ * Keeps one copy of every filter per instance.
+ *
+ * <p>Entity ids are split by {@link FilterKind} and hash into small {@link EntityIdFilter}
+ * partitions, so a check touches a single partition and every partition grows on its own.
+ *
+ * <p>The version stamp of a filter lives in memcache under {@code filter:version:<id>} and is
+ * bumped by every mutation. The mutation itself is published as a {@link FilterDelta} under
+ * {@code filter:delta:<id>:<version>}. A resident copy compares its version with the stamp at most
+ * once per {@link FilterProperties#getVersionCheckIntervalMillis()} and replays the deltas it
+ * missed in version order. When a delta is missing for longer than {@link
+ * FilterProperties#getGapTimeoutMillis()}, or memcache lost the stamp and a new {@link
+ * FilterVersion} epoch started, the copy is reloaded from the datastore together with the
+ * journaled mutations. Changed filters are written back by {@link FilterWriteBehind}.
+ */
 @EnableScheduling
 @Service
 public class FilterServiceImpl implements FilterService {
 
   private static final Logger logger = LoggerFactory.getLogger(FilterServiceImpl.class);
 
-  private final AsyncMemcacheService memcacheService;
+  private static final String VERSION_KEY_PREFIX = "filter:version:";
+  private static final String DELTA_KEY_PREFIX = "filter:delta:";
 
-  public FilterServiceImpl(AsyncMemcacheService memcacheService) {
+  private static final Map<String, Function<String, Filter>> FACTORIES =
+      ImmutableMap.of(
+          Key.getKind(EntityIdFilter.class), EntityIdFilter::create,
+          Key.getKind(PermissionFilter.class), id -> PermissionFilter.create());
+
+  private final MemcacheService memcacheService;
+  private final FilterWriteBehind writeBehind;
+  private final FilterProperties properties;
+  private final Map<Key<?>, Resident> residents = new ConcurrentHashMap<>();
+
+  // turned off for this instance once the legacy filter turns out to be unreadable
+  private volatile boolean legacyReadable = true;
+
+  public FilterServiceImpl(
+      MemcacheService memcacheService,
+      FilterWriteBehind writeBehind,
+      FilterProperties properties) {
     this.memcacheService = memcacheService;
+    this.writeBehind = writeBehind;
+    this.properties = properties;
   }
 
-  private static <T> Key<T> createKey(Class<T> type) {
-    return Key.create(type, )
+  @Nonnull
+  @Override
+  public <T extends Filter> T get(@Nonnull Key<T> key) {
+    Resident resident = resident(key);
+    refresh(resident);
+    //noinspection unchecked
+    return (T) resident.filter;
   }
 
-  private EntityIdFilter loadFromDb(Class<?> type) {
-    return ofy().load().key(EntityIdFilter.createKey()).now();
+  @Override
+  public void add(@Nonnull Key<? extends Filter> key, @Nonnull CharSequence value) {
+    mutate(key, FilterDelta.OP_INSERT, Filter.hash(value));
   }
 
   @Override
-  public void save(EntityIdFilter cache) {
-    try {
-      memcacheService.put(EntityIdFilter.createId(), cache).get();
-    } catch (InterruptedException | ExecutionException e) {
-      logger.error("An error occurred while memcache sync put operation", e);
-      // if an error occurs while saving to memcache, save entity to datastore directly
-      ofy().save().entity(cache);
-    }
+  public void delete(@Nonnull Key<? extends Filter> key, @Nonnull CharSequence value) {
+    mutate(key, FilterDelta.OP_DELETE, Filter.hash(value));
+  }
+
+  @Override
+  public boolean contains(@Nonnull FilterKind kind, @Nonnull CharSequence value) {
+    long hash = Filter.hash(value);
+    return contains(kind, hash, () -> hash);
+  }
+
+  @Override
+  public void add(@Nonnull FilterKind kind, @Nonnull CharSequence value) {
+    long hash = Filter.hash(value);
+    mutate(partitionKey(kind, hash), FilterDelta.OP_INSERT, hash);
+  }
+
+  @Override
+  public void delete(@Nonnull FilterKind kind, @Nonnull CharSequence value) {
+    long hash = Filter.hash(value);
+    delete(kind, hash, () -> hash);
+  }
+
+  @Override
+  public boolean contains(@Nonnull FilterKind kind, long id) {
+    return contains(kind, Filter.hash(id), () -> Filter.hash(kind.legacyId(id)));
+  }
+
+  @Override
+  public void add(@Nonnull FilterKind kind, long id) {
+    long hash = Filter.hash(id);
+    mutate(partitionKey(kind, hash), FilterDelta.OP_INSERT, hash);
   }
 
-  // schedule at every 10 mins
-  @Scheduled(cron = "*/10 * * * *")
-  protected void writeFiltersToDb() {
-    List<com.google.cloud.datastore.Key> keys = Stream.of(EntityIdFilter.createKey(), PermissionFilter.createKey())
-        .map(Key::getRaw)
-        .collect(Collectors.toList());
-    Collection<Object> values = Futures.getUnchecked(memcacheService.getAll(keys)).values();
-    ofy().save().entities(values);
+  @Override
+  public void delete(@Nonnull FilterKind kind, long id) {
+    delete(kind, Filter.hash(id), () -> Filter.hash(kind.legacyId(id)));
+  }
+
+  @Override
+  public boolean contains(@Nonnull FilterKind kind, long first, long second) {
+    return contains(
+        kind, Filter.hash(first, second), () -> Filter.hash(kind.legacyId(first, second)));
   }
 
-  @SafeVarargs
   @Override
-  public final <T extends Filter> Map<Key<T>, T> getAll(@Nonnull Key<T>... keys) {
-    return ofy().load().keys(keys);
+  public void add(@Nonnull FilterKind kind, long first, long second) {
+    long hash = Filter.hash(first, second);
+    mutate(partitionKey(kind, hash), FilterDelta.OP_INSERT, hash);
   }
 
   @Override
-  public void saveAsync(Filter... filters) {
-    Map<com.google.cloud.datastore.Key, Filter> map = new HashMap<>();
-    for (Filter filter : filters) {
-      com.google.cloud.datastore.Key raw = filter.toFilterKey().getRaw();
-      map.putIfAbsent(raw, filter);
+  public void delete(@Nonnull FilterKind kind, long first, long second) {
+    delete(kind, Filter.hash(first, second), () -> Filter.hash(kind.legacyId(first, second)));
+  }
+
+  @Override
+  public void replace(@Nonnull FilterKind kind, int partition, @Nonnull CuckooFilter filter) {
+    Key<EntityIdFilter> key = EntityIdFilter.createKey(kind, partition);
+    Object stamp = memcacheService.get(versionKey(key));
+    long version =
+        FilterVersion.newSequence(
+            stamp == null ? 0L : ((Number) stamp).longValue(), System.currentTimeMillis());
+
+    EntityIdFilter rebuilt = EntityIdFilter.create(kind, partition, filter);
+    rebuilt.setVersion(version);
+    ObjectifyService.run(() -> ofy().save().entity(rebuilt).now());
+    memcacheService.put(versionKey(key), version);
+  }
+
+  // The filter used before the partitioning hashed every id as a string, so its hash is only
+  // computed when the partition misses.
+  private boolean contains(FilterKind kind, long hash, LongSupplier legacyHash) {
+    if (get(partitionKey(kind, hash)).containsHash(hash)) {
+      return true;
+    }
+    Filter legacy = legacyFilter();
+    return legacy != null && legacy.containsHash(legacyHash.getAsLong());
+  }
+
+  private void delete(FilterKind kind, long hash, LongSupplier legacyHash) {
+    mutate(partitionKey(kind, hash), FilterDelta.OP_DELETE, hash);
+
+    // otherwise the id would still be found through the fallback
+    Filter legacy = legacyFilter();
+    if (legacy != null) {
+      long legacyHashValue = legacyHash.getAsLong();
+      if (legacy.containsHash(legacyHashValue)) {
+        mutate(EntityIdFilter.createLegacyKey(), FilterDelta.OP_DELETE, legacyHashValue);
+      }
+    }
+  }
+
+  private Filter legacyFilter() {
+    if (!properties.isLegacyFallbackEnabled() || !legacyReadable) {
+      return null;
+    }
+    try {
+      return get(EntityIdFilter.createLegacyKey());
+    } catch (RuntimeException e) {
+      legacyReadable = false;
+      logger.warn("Legacy filter can't be read, the fallback is turned off", e);
+      return null;
+    }
+  }
+
+  private void mutate(Key<? extends Filter> key, byte op, long hash) {
+    Resident resident = resident(key);
+    refresh(resident);
+    Filter filter = resident.filter;
+    FilterDelta.apply(filter, op, hash);
+
+    // An evicted stamp starts a sequence in a new epoch, so its versions are above ours instead of
+    // restarting at 1, and never collide with the versions journaled before.
+    Long version =
+        memcacheService.increment(
+            versionKey(key),
+            1L,
+            FilterVersion.newSequence(resident.version, System.currentTimeMillis()));
+    if (version == null) {
+      // memcache is not available, the change is only visible here until it is written
+      writeBehind.record(filter, 0L, op, hash);
+      return;
+    }
+
+    memcacheService.put(
+        deltaKey(key, version),
+        FilterDelta.encode(op, hash),
+        Expiration.byDeltaSeconds(properties.getDeltaExpirationSeconds()));
+    resident.recordOwn(version);
+    writeBehind.record(filter, version, op, hash);
+  }
+
+  private Resident resident(Key<?> key) {
+    return residents.computeIfAbsent(
+        key,
+        k -> {
+          Filter filter = load(k);
+          return new Resident(filter, writeBehind.recover(filter));
+        });
+  }
+
+  private void refresh(Resident resident) {
+    long now = System.currentTimeMillis();
+    if (now - resident.checkedAt < properties.getVersionCheckIntervalMillis()
+        || !resident.lock.tryLock()) {
+      return;
+    }
+
+    try {
+      resident.checkedAt = now;
+      Key<?> key = resident.filter.toFilterKey();
+
+      Object stamp = memcacheService.get(versionKey(key));
+      if (stamp == null) {
+        // the stamp was evicted, seed a new sequence so that the next mutation continues above us
+        memcacheService.put(
+            versionKey(key),
+            FilterVersion.newSequence(resident.version, now),
+            null,
+            MemcacheService.SetPolicy.ADD_ONLY_IF_NOT_PRESENT);
+        return;
+      }
+
+      long remote = ((Number) stamp).longValue();
+      if (FilterVersion.epoch(remote) != FilterVersion.epoch(resident.version)
+          || remote < resident.version) {
+        // A new sequence started, the deltas of the previous one may never arrive. Start over from
+        // the stored snapshot and the journal, then follow the new sequence.
+        reload(resident);
+        long start = FilterVersion.start(remote);
+        if (resident.version < start) {
+          resident.version = start;
+          resident.filter.setVersion(start);
+          resident.appliedVersions.removeIf(v -> v <= start);
+        }
+      }
+      if (remote > resident.version) {
+        catchUp(resident, remote, now);
+      }
+    } catch (RuntimeException e) {
+      logger.warn("Filter {} could not be refreshed", resident.filter.toFilterKey(), e);
+    } finally {
+      resident.lock.unlock();
+    }
+  }
+
+  private void catchUp(Resident resident, long remote, long now) {
+    Key<?> key = resident.filter.toFilterKey();
+
+    List<String> deltaKeys = new ArrayList<>();
+    for (long v = resident.version + 1; v <= remote; v++) {
+      if (!resident.appliedVersions.contains(v)) {
+        deltaKeys.add(deltaKey(key, v));
+      }
+    }
+    Map<String, Object> deltas = memcacheService.getAll(deltaKeys);
+
+    long version = resident.version;
+    while (version < remote) {
+      long next = version + 1;
+      if (!resident.appliedVersions.remove(next)) {
+        byte[] delta = (byte[]) deltas.get(deltaKey(key, next));
+        if (delta == null) {
+          break;
+        }
+        FilterDelta.apply(resident.filter, ByteBuffer.wrap(delta));
+      }
+      version = next;
+    }
+    resident.version = version;
+    resident.filter.setVersion(version);
+
+    if (version == remote) {
+      resident.gapSince = 0L;
+    } else if (resident.gapSince == 0L) {
+      resident.gapSince = now;
+    } else if (now - resident.gapSince > properties.getGapTimeoutMillis()) {
+      logger.info("Delta {} of filter {} is lost, reloading the filter", version + 1, key);
+      reload(resident);
+    }
+  }
+
+  private void reload(Resident resident) {
+    // our own buffered mutations are journaled first, so the reloaded copy keeps them
+    writeBehind.writeJournal();
+    Filter filter = load(resident.filter.toFilterKey());
+    resident.replace(filter, writeBehind.recover(filter));
+  }
+
+  private Filter load(Key<?> key) {
+    Filter filter = (Filter) ObjectifyService.run(() -> ofy().load().key(key).now());
+    if (filter != null) {
+      return filter;
+    }
+
+    Function<String, Filter> factory = FACTORIES.get(key.getKind());
+    if (factory == null) {
+      throw new IllegalArgumentException("Unknown filter: " + key);
+    }
+    return factory.apply(key.getName());
+  }
+
+  private static Key<EntityIdFilter> partitionKey(FilterKind kind, long hash) {
+    return EntityIdFilter.createKey(kind, kind.partitionOf(hash));
+  }
+
+  private static String versionKey(Key<?> key) {
+    return VERSION_KEY_PREFIX + key.getName();
+  }
+
+  private static String deltaKey(Key<?> key, long version) {
+    return DELTA_KEY_PREFIX + key.getName() + ":" + version;
+  }
+
+  private static final class Resident {
+    private final ReentrantLock lock = new ReentrantLock();
+    // versions above the current one which are applied already, either produced by this instance
+    // or replayed from the journal, they are skipped during catch up
+    private final Set<Long> appliedVersions = new ConcurrentSkipListSet<>();
+
+    private volatile Filter filter;
+    private volatile long version;
+    private volatile long checkedAt;
+    private long gapSince;
+
+    private Resident(Filter filter, NavigableSet<Long> replayed) {
+      replace(filter, replayed);
+    }
+
+    private void recordOwn(long ownVersion) {
+      if (ownVersion == version + 1 && lock.tryLock()) {
+        try {
+          if (ownVersion == version + 1) {
+            version = ownVersion;
+            filter.setVersion(ownVersion);
+            return;
+          }
+        } finally {
+          lock.unlock();
+        }
+      }
+      appliedVersions.add(ownVersion);
+    }
+
+    private void replace(Filter loaded, NavigableSet<Long> replayed) {
+      long current = loaded.getVersion();
+      appliedVersions.clear();
+      for (long v : replayed) {
+        if (v == current + 1) {
+          current = v;
+        } else {
+          appliedVersions.add(v);
+        }
+      }
+      loaded.setVersion(current);
+
+      filter = loaded;
+      version = current;
+      gapSince = 0L;
     }
-    memcacheService.putAll(map);
   }
 }
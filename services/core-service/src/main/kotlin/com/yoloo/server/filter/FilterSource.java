@@ -0,0 +1,115 @@
+package com.yoloo.server.filter;
+
+import com.google.cloud.datastore.Cursor;
+import com.google.cloud.datastore.QueryResults;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.cmd.Query;
+
+import javax.annotation.Nullable;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+/**
+ * Describes the entities a filter is built from for {@link FilterRebuildJob}. The entities are
+ * read in pages with a cursor, so a source never holds more than one page in memory.
+ *
+ * @param <T> the type of a query result
+ */
+public abstract class FilterSource<T> {
+
+  private final String name;
+  private final long capacity;
+
+  protected FilterSource(String name, long capacity) {
+    this.name = name;
+    this.capacity = capacity;
+  }
+
+  /**
+   * Streams the keys of the given kind, the key name is inserted into the filter.
+   *
+   * @param name memcache key of the filter
+   * @param capacity capacity of the filter
+   * @param type the entity type
+   * @param <E> the entity type
+   * @return the source
+   */
+  public static <E> FilterSource<Key<E>> keys(String name, long capacity, Class<E> type) {
+    return keys(name, capacity, type, key -> Filter.hash(key.getName()));
+  }
+
+  /**
+   * Streams the keys of the given kind, the given function hashes a key like {@link
+   * FilterService} hashes the id of the entity.
+   *
+   * @param name name of the filter
+   * @param capacity capacity of the filter
+   * @param type the entity type
+   * @param hash hashes a key, see {@link Filter#hash(long)}
+   * @param <E> the entity type
+   * @return the source
+   */
+  public static <E> FilterSource<Key<E>> keys(
+      String name, long capacity, Class<E> type, ToLongFunction<Key<E>> hash) {
+    return new FilterSource<Key<E>>(name, capacity) {
+      @Override
+      QueryResults<Key<E>> page(@Nullable Cursor cursor, int limit) {
+        return startAt(ofy().load().type(type).limit(limit), cursor).keys().iterator();
+      }
+
+      @Override
+      long hash(Key<E> key) {
+        return hash.applyAsLong(key);
+      }
+    };
+  }
+
+  /**
+   * Streams a single indexed property of the given kind with a projection query.
+   *
+   * @param name memcache key of the filter
+   * @param capacity capacity of the filter
+   * @param type the entity type
+   * @param property the projected property
+   * @param mapper extracts the value to insert from a projected entity
+   * @param <E> the entity type
+   * @return the source
+   */
+  public static <E> FilterSource<E> projection(
+      String name,
+      long capacity,
+      Class<E> type,
+      String property,
+      Function<E, ? extends CharSequence> mapper) {
+    return new FilterSource<E>(name, capacity) {
+      @Override
+      QueryResults<E> page(@Nullable Cursor cursor, int limit) {
+        return startAt(ofy().load().type(type).project(property).limit(limit), cursor).iterator();
+      }
+
+      @Override
+      long hash(E entity) {
+        return Filter.hash(mapper.apply(entity));
+      }
+    };
+  }
+
+  private static <E> Query<E> startAt(Query<E> query, @Nullable Cursor cursor) {
+    return cursor == null ? query : query.startAt(cursor);
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  abstract QueryResults<T> page(@Nullable Cursor cursor, int limit);
+
+  /** Hashes a result like {@link Filter#hash(CharSequence)} and its overloads. */
+  abstract long hash(T result);
+}
@@ -0,0 +1,44 @@
+package com.yoloo.server.filter;
+
+/**
+ * Layout of the filter versions. The high bits hold the epoch of the version sequence, the low
+ * {@value #SEQUENCE_BITS} bits the position in it.
+ *
+ * <p>A sequence starts over whenever memcache loses the version stamp. The new sequence gets a
+ * larger epoch, so versions of two sequences never collide in the journal or in the delta keys,
+ * and a version of the new sequence is always above every version of the old one.
+ */
+final class FilterVersion {
+  static final int SEQUENCE_BITS = 32;
+
+  // epochs count seconds from 2020-01-01
+  private static final long EPOCH_ORIGIN_SECONDS = 1_577_836_800L;
+
+  private FilterVersion() {}
+
+  static long epoch(long version) {
+    return version >>> SEQUENCE_BITS;
+  }
+
+  /**
+   * Returns the version a new sequence starts after, its first version is one above.
+   *
+   * @param current the version of the resident copy
+   * @param nowMillis current time in millis
+   * @return start of the new sequence, in an epoch above the one of the current version
+   */
+  static long newSequence(long current, long nowMillis) {
+    long epoch = Math.max(nowMillis / 1_000L - EPOCH_ORIGIN_SECONDS, epoch(current) + 1L);
+    return epoch << SEQUENCE_BITS;
+  }
+
+  /**
+   * Returns the version the sequence of the given version started after.
+   *
+   * @param version a version of the sequence
+   * @return start of the sequence
+   */
+  static long start(long version) {
+    return epoch(version) << SEQUENCE_BITS;
+  }
+}
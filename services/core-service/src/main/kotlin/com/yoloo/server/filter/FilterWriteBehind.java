@@ -0,0 +1,286 @@
+package com.yoloo.server.filter;
+
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+/**
+ * Writes resident filters back to the datastore.
+ *
+ * <p>Every versioned mutation is buffered and appended to a {@link FilterJournal} under its filter
+ * on the next tick, so at most one {@link FilterProperties#getFlushCheckIntervalMillis()} of
+ * mutations is lost if the instance dies. A changed filter is written as a whole once it collected
+ * {@link FilterProperties#getFlushMaxMutations()} mutations or its oldest unwritten mutation is
+ * older than {@link FilterProperties#getFlushMaxAgeMillis()}; the journal batches covered by the
+ * written version are deleted afterwards. A snapshot never replaces a newer one written by another
+ * instance. The mutations which the newer snapshot may lack, the ones of an older {@link
+ * FilterVersion} epoch, the ones above its version and the unversioned ones, are applied to it
+ * instead.
+ *
+ * <p>The age of the oldest unwritten mutation is exposed as the {@code filter.flush.lag} gauge.
+ */
+@Component
+public class FilterWriteBehind {
+  private static final Logger logger = LoggerFactory.getLogger(FilterWriteBehind.class);
+
+  private final FilterProperties properties;
+  private final Queue<Record> journal = new ConcurrentLinkedQueue<>();
+  private final Map<Key<?>, Dirty> dirty = new ConcurrentHashMap<>();
+
+  public FilterWriteBehind(FilterProperties properties, MeterRegistry meterRegistry) {
+    this.properties = properties;
+
+    Gauge.builder("filter.flush.lag", this, FilterWriteBehind::getFlushLagMillis)
+        .description("Age of the oldest filter mutation which is not written to the datastore")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  /**
+   * Records a mutation which was applied to the given resident filter.
+   *
+   * @param filter the resident filter
+   * @param version version of the mutation, 0 if it could not be versioned
+   * @param op {@link FilterDelta} op code
+   * @param hash hash of the key
+   */
+  void record(Filter filter, long version, byte op, long hash) {
+    Key<?> key = filter.toFilterKey();
+    if (version > 0L) {
+      journal.add(new Record(key, version, op, hash));
+    }
+    dirty.compute(
+        key,
+        (k, current) -> {
+          Dirty next = current == null ? new Dirty(System.currentTimeMillis()) : current;
+          next.filter = filter;
+          next.records.add(new Record(key, version, op, hash));
+          // unversioned mutations can't be journaled, so the snapshot is the only copy
+          next.urgent |= version == 0L;
+          return next;
+        });
+  }
+
+  /**
+   * Applies the journaled mutations which are newer than the snapshot.
+   *
+   * @param filter a snapshot loaded from the datastore
+   * @return versions of the applied mutations in ascending order
+   */
+  NavigableSet<Long> recover(Filter filter) {
+    List<FilterJournal> batches =
+        ObjectifyService.run(
+            () ->
+                ofy()
+                    .load()
+                    .type(FilterJournal.class)
+                    .ancestor(filter.toFilterKey())
+                    .list());
+
+    // batches of different instances interleave, so the records are ordered first
+    TreeMap<Long, ByteBuffer> deltas = new TreeMap<>();
+    batches.forEach(batch -> batch.forEachAfter(filter.getVersion(), (d, v) -> deltas.put(v, d)));
+    deltas.values().forEach(delta -> FilterDelta.apply(filter, delta));
+
+    if (!deltas.isEmpty()) {
+      logger.info(
+          "Replayed {} journaled mutations of filter {}", deltas.size(), filter.toFilterKey());
+    }
+    return new TreeSet<>(deltas.keySet());
+  }
+
+  public long getFlushLagMillis() {
+    long oldest = Long.MAX_VALUE;
+    for (Dirty d : dirty.values()) {
+      oldest = Math.min(oldest, d.since);
+    }
+    return oldest == Long.MAX_VALUE ? 0L : System.currentTimeMillis() - oldest;
+  }
+
+  @Scheduled(fixedDelayString = "${filter.flush-check-interval-millis:1000}")
+  public void tick() {
+    writeJournal();
+
+    long now = System.currentTimeMillis();
+    dirty.forEach(
+        (key, d) -> {
+          if (d.urgent
+              || d.records.size() >= properties.getFlushMaxMutations()
+              || now - d.since >= properties.getFlushMaxAgeMillis()) {
+            flush(key, d);
+          }
+        });
+  }
+
+  @PreDestroy
+  public void flushAll() {
+    writeJournal();
+    dirty.forEach(this::flush);
+  }
+
+  /** Journals the buffered mutations of every filter. */
+  void writeJournal() {
+    List<Record> drained = new ArrayList<>();
+    for (Record record; (record = journal.poll()) != null; ) {
+      drained.add(record);
+    }
+    if (drained.isEmpty()) {
+      return;
+    }
+
+    Map<Key<?>, List<Record>> byFilter = new HashMap<>();
+    drained.forEach(r -> byFilter.computeIfAbsent(r.key, k -> new ArrayList<>()).add(r));
+
+    List<FilterJournal> batches = new ArrayList<>();
+    byFilter.forEach((key, records) -> batches.addAll(toBatches(key, records)));
+
+    try {
+      ObjectifyService.run(() -> ofy().save().entities(batches).now());
+    } catch (RuntimeException e) {
+      logger.warn("Filter journal could not be written, retrying on the next tick", e);
+      journal.addAll(drained);
+    }
+  }
+
+  private static List<FilterJournal> toBatches(Key<?> key, List<Record> records) {
+    List<FilterJournal> batches = new ArrayList<>();
+    for (int from = 0; from < records.size(); from += FilterJournal.MAX_RECORDS) {
+      int to = Math.min(records.size(), from + FilterJournal.MAX_RECORDS);
+
+      ByteBuffer buffer = ByteBuffer.allocate((to - from) * FilterJournal.RECORD_SIZE);
+      long maxVersion = 0L;
+      for (Record record : records.subList(from, to)) {
+        buffer.putLong(record.version).put(record.op).putLong(record.hash);
+        maxVersion = Math.max(maxVersion, record.version);
+      }
+      batches.add(FilterJournal.create(key, maxVersion, buffer.array()));
+    }
+    return batches;
+  }
+
+  private void flush(Key<?> key, Dirty d) {
+    // mutations arriving from now on start a new entry
+    if (!dirty.remove(key, d)) {
+      return;
+    }
+
+    // The version is read before the filter is serialized, so the snapshot may already contain a
+    // few newer mutations. They are replayed once more on recovery, which costs an extra slot.
+    Filter filter = d.filter;
+    long version = filter.getVersion();
+    try {
+      boolean written =
+          ObjectifyService.run(
+              () ->
+                  ofy()
+                      .transact(
+                          () -> {
+                            Filter stored = (Filter) ofy().load().key(key).now();
+                            if (stored != null && stored.getVersion() > version) {
+                              ofy().save().entity(mergeInto(stored, d.records)).now();
+                              return false;
+                            }
+                            ofy().save().entity(filter).now();
+                            return true;
+                          }));
+      if (written) {
+        deleteJournal(key, version);
+      }
+    } catch (RuntimeException e) {
+      logger.error("Filter {} could not be written to the datastore", key, e);
+      dirty.merge(key, d, Dirty::merge);
+    }
+  }
+
+  // Applies the mutations which a newer stored snapshot doesn't reflect. Its version covers every
+  // earlier version of its own epoch, but none of an older epoch, whose journal may be deleted
+  // before the snapshot saw it.
+  private static Filter mergeInto(Filter stored, List<Record> records) {
+    long storedVersion = stored.getVersion();
+    long storedEpoch = FilterVersion.epoch(storedVersion);
+    for (Record record : records) {
+      boolean covered =
+          record.version != 0L
+              && FilterVersion.epoch(record.version) == storedEpoch
+              && record.version <= storedVersion;
+      if (!covered) {
+        FilterDelta.apply(stored, record.op, record.hash);
+      }
+    }
+    return stored;
+  }
+
+  // A batch may hold versions on both sides of the snapshot, only the ones it covers entirely are
+  // deleted.
+  private void deleteJournal(Key<?> key, long version) {
+    List<Key<FilterJournal>> covered = new ArrayList<>();
+    ObjectifyService.run(
+            () -> ofy().load().type(FilterJournal.class).ancestor(key).keys().list())
+        .forEach(
+            journalKey -> {
+              if (FilterJournal.getMaxVersion(journalKey) <= version) {
+                covered.add(journalKey);
+              }
+            });
+
+    if (!covered.isEmpty()) {
+      ObjectifyService.run(() -> ofy().delete().keys(covered).now());
+    }
+  }
+
+  private static final class Record {
+    private final Key<?> key;
+    private final long version;
+    private final byte op;
+    private final long hash;
+
+    private Record(Key<?> key, long version, byte op, long hash) {
+      this.key = key;
+      this.version = version;
+      this.op = op;
+      this.hash = hash;
+    }
+  }
+
+  private static final class Dirty {
+    private final long since;
+    // guarded by the map entry, read once the entry is removed
+    private final List<Record> records = new ArrayList<>();
+    private volatile Filter filter;
+    private volatile boolean urgent;
+
+    private Dirty(long since) {
+      this.since = since;
+    }
+
+    // Combines a failed flush with the mutations recorded while it was running.
+    private static Dirty merge(Dirty newer, Dirty failed) {
+      Dirty merged = new Dirty(Math.min(newer.since, failed.since));
+      merged.filter = newer.filter;
+      merged.records.addAll(failed.records);
+      merged.records.addAll(newer.records);
+      merged.urgent = newer.urgent || failed.urgent;
+      return merged;
+    }
+  }
+}
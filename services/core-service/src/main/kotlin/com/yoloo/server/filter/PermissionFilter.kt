@@ -5,22 +5,48 @@ import com.googlecode.objectify.annotation.Entity
 import com.googlecode.objectify.annotation.Id
 import com.yoloo.server.common.util.NoArg
 import com.yoloo.server.entity.Keyable
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
 @NoArg
 @Entity
 data class PermissionFilter(
     @Id var id: String = ENTITY_ID,
 
-    private var cuckooFilter: NanoCuckooFilter = NanoCuckooFilter.Builder(500_000L).build()
+    private var cuckooFilter: CuckooFilter = CuckooFilter(CAPACITY),
+
+    private var version: Long = 0L
 ) : Keyable<PermissionFilter>, Filter {
 
     override fun toFilterKey(): Key<*> {
         return createKey()
     }
 
+    override fun insertHash(hash64: Long): Boolean {
+        return cuckooFilter.insertHash(hash64)
+    }
+
+    override fun containsHash(hash64: Long): Boolean {
+        return cuckooFilter.containsHash(hash64)
+    }
+
+    override fun deleteHash(hash64: Long): Boolean {
+        return cuckooFilter.deleteHash(hash64)
+    }
+
+    override fun getVersion(): Long {
+        return version
+    }
+
+    override fun setVersion(version: Long) {
+        this.version = version
+    }
+
     fun add(key: Long) {
-        cuckooFilter.insert(key.toString())
+        cuckooFilter.insertHash(Filter.hash(key))
+    }
+
+    fun add(first: Long, second: Long) {
+        cuckooFilter.insertHash(Filter.hash(first, second))
     }
 
     fun add(key: String) {
@@ -32,7 +58,11 @@ data class PermissionFilter(
     }
 
     fun contains(key: Long): Boolean {
-        return contains(key.toString())
+        return cuckooFilter.containsHash(Filter.hash(key))
+    }
+
+    fun contains(first: Long, second: Long): Boolean {
+        return cuckooFilter.containsHash(Filter.hash(first, second))
     }
 
     fun contains(key: String): Boolean {
@@ -40,8 +70,16 @@ data class PermissionFilter(
     }
 
     companion object {
-        const val ENTITY_ID = "filter:permission"
+        /**
+         * The filter stored under the former id is a serialized filter of the previous library, which
+         * can't be read anymore. The permissions start over under this id.
+         */
+        const val ENTITY_ID = "filter:permission:v2"
 
+        // 2^16 buckets, encodes to 512KB and stays below CuckooFilterCodec.MAX_ENCODED_SIZE
+        const val CAPACITY = 240_000L
+
+        @JvmStatic
         fun create(): PermissionFilter {
             return PermissionFilter()
         }
@@ -0,0 +1,21 @@
+package com.yoloo.server.filter.api
+
+import com.yoloo.server.filter.usecase.RefreshFilterCacheUseCase
+import org.springframework.http.HttpStatus
+import org.springframework.security.access.prepost.PreAuthorize
+import org.springframework.web.bind.annotation.PostMapping
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.ResponseStatus
+import org.springframework.web.bind.annotation.RestController
+
+@RequestMapping("/api/admin/filters")
+@RestController
+class FilterAdminController(private val refreshFilterCacheUseCase: RefreshFilterCacheUseCase) {
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @PostMapping("/rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    fun rebuild() {
+        refreshFilterCacheUseCase.execute()
+    }
+}
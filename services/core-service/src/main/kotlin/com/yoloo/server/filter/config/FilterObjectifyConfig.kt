@@ -0,0 +1,21 @@
+package com.yoloo.server.filter.config
+
+import com.googlecode.objectify.impl.translate.SimpleTranslatorFactory
+import com.yoloo.server.filter.EntityIdFilter
+import com.yoloo.server.filter.FilterJournal
+import com.yoloo.server.filter.PermissionFilter
+import com.yoloo.server.objectify.ObjectifyConfigurer
+import com.yoloo.server.util.sketch.CuckooFilterTranslatorFactory
+import org.springframework.context.annotation.Configuration
+
+@Configuration
+class FilterObjectifyConfig : ObjectifyConfigurer {
+
+    override fun registerTranslators(): List<SimpleTranslatorFactory<*, *>> {
+        return listOf(CuckooFilterTranslatorFactory())
+    }
+
+    override fun registerEntities(): List<Class<*>> {
+        return listOf(EntityIdFilter::class.java, PermissionFilter::class.java, FilterJournal::class.java)
+    }
+}
@@ -0,0 +1,111 @@
+package com.yoloo.server.filter.usecase
+
+import com.google.appengine.api.memcache.AsyncMemcacheService
+import com.googlecode.objectify.Key
+import com.yoloo.server.filter.Filter
+import com.yoloo.server.filter.FilterKind
+import com.yoloo.server.filter.FilterRebuildJob
+import com.yoloo.server.filter.FilterService
+import com.yoloo.server.filter.FilterSource
+import com.yoloo.server.filter.putFilter
+import com.yoloo.server.group.entity.Subscription
+import com.yoloo.server.like.entity.Like
+import com.yoloo.server.post.entity.Bookmark
+import com.yoloo.server.post.entity.Comment
+import com.yoloo.server.post.entity.Post
+import com.yoloo.server.relationship.entity.Relationship
+import com.yoloo.server.user.entity.User
+import com.yoloo.server.util.sketch.CuckooFilterCodec
+import org.apache.logging.log4j.LogManager
+import org.apache.logging.log4j.Logger
+import org.springframework.stereotype.Service
+
+@Service
+class RefreshFilterCacheUseCase(
+    private val memcacheService: AsyncMemcacheService,
+    private val filterRebuildJob: FilterRebuildJob,
+    private val filterService: FilterService
+) {
+
+    /**
+     * Rebuilds the partitions of the given kinds through [FilterService] and the given memcache filters.
+     *
+     * @throws IllegalStateException if memcache rejected a filter
+     */
+    fun execute(
+        kinds: Collection<FilterKind> = PARTITION_SOURCES.keys,
+        names: Collection<String> = SOURCES.keys
+    ) {
+        kinds.forEach { kind ->
+            LOGGER.info("{} filter partitions rebuilding", kind)
+
+            filterRebuildJob.rebuildPartitions(kind, PARTITION_SOURCES.getValue(kind))
+                .forEachIndexed { partition, filter -> filterService.replace(kind, partition, filter) }
+        }
+
+        val rejected = names.map { SOURCES.getValue(it) }.filterNot { source ->
+            LOGGER.info("{} cache warming up", source.name)
+
+            memcacheService.putFilter(source.name, filterRebuildJob.rebuild(source)).get()
+        }.map { it.name }
+        check(rejected.isEmpty()) { "Filters $rejected could not be stored in memcache" }
+    }
+
+    companion object {
+        private val LOGGER: Logger = LogManager.getLogger()
+
+        // the largest filter which still fits into a memcache value
+        private val FILTER_CAPACITY = CuckooFilterCodec.maxCapacity(CuckooFilterCodec.MAX_ENCODED_SIZE.toLong())
+
+        // Key based filters hold the key names, see the ids created by the entities.
+        private val SOURCES: Map<String, FilterSource<*>> = listOf(
+            FilterSource.keys(Subscription.KEY_FILTER_SUBSCRIPTION, FILTER_CAPACITY, Subscription::class.java),
+            FilterSource.projection(
+                User.KEY_FILTER_USER_IDENTIFIER,
+                FILTER_CAPACITY,
+                User::class.java,
+                User.INDEX_EMAIL
+            ) { it.email.email }
+        ).associateBy { it.name }
+
+        // Partitioned kinds hash the ids the same way FilterService does, pairs are parsed from the key
+        // names created by the entities. Kinds which are not filled by any entity yet are left out.
+        private val PARTITION_SOURCES: Map<FilterKind, FilterSource<*>> = mapOf(
+            FilterKind.USER to idSource(FilterKind.USER, User::class.java),
+            FilterKind.POST to idSource(FilterKind.POST, Post::class.java),
+            FilterKind.COMMENT to idSource(FilterKind.COMMENT, Comment::class.java),
+            FilterKind.LIKE to FilterSource.keys(
+                FilterKind.LIKE.name,
+                partitionedCapacity(FilterKind.LIKE),
+                Like::class.java
+            ) { key: Key<Like> ->
+                val parts = key.name.split(':')
+                Filter.hash(parts[1].toLong(), parts[2].toLong())
+            },
+            FilterKind.BOOKMARK to FilterSource.keys(
+                FilterKind.BOOKMARK.name,
+                partitionedCapacity(FilterKind.BOOKMARK),
+                Bookmark::class.java
+            ) { key: Key<Bookmark> ->
+                val parts = key.name.split(':')
+                Filter.hash(parts[1].toLong(), parts[2].toLong())
+            },
+            FilterKind.RELATIONSHIP to FilterSource.keys(
+                FilterKind.RELATIONSHIP.name,
+                partitionedCapacity(FilterKind.RELATIONSHIP),
+                Relationship::class.java
+            ) { key: Key<Relationship> ->
+                val parts = key.name.split(':')
+                Filter.hash(parts[0].toLong(), parts[1].toLong())
+            }
+        )
+
+        private fun <E> idSource(kind: FilterKind, type: Class<E>): FilterSource<Key<E>> {
+            return FilterSource.keys(kind.name, partitionedCapacity(kind), type) { Filter.hash(it.id) }
+        }
+
+        private fun partitionedCapacity(kind: FilterKind): Long {
+            return kind.initialCapacity * kind.partitions
+        }
+    }
+}
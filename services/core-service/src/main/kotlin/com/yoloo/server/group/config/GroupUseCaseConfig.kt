@@ -8,6 +8,7 @@ import com.yoloo.server.group.usecase.GetGroupUseCase
 import com.yoloo.server.group.usecase.ListSubscriptionsUseCase
 import com.yoloo.server.group.usecase.SubscribeUseCase
 import com.yoloo.server.group.usecase.UnsubscribeUseCase
+import com.yoloo.server.queue.FeedSyncPublisher
 import org.springframework.context.annotation.Bean
 import org.springframework.context.annotation.Configuration
 import org.springframework.context.annotation.Lazy
@@ -23,14 +24,20 @@ class GroupUseCaseConfig {
 
     @Lazy
     @Bean
-    fun subscribeUseCase(memcacheService: AsyncMemcacheService): SubscribeUseCase {
-        return SubscribeUseCase(memcacheService)
+    fun subscribeUseCase(
+        memcacheService: AsyncMemcacheService,
+        feedSyncPublisher: FeedSyncPublisher
+    ): SubscribeUseCase {
+        return SubscribeUseCase(memcacheService, feedSyncPublisher)
     }
 
     @Lazy
     @Bean
-    fun unsubscribeUseCase(memcacheService: AsyncMemcacheService): UnsubscribeUseCase {
-        return UnsubscribeUseCase(memcacheService)
+    fun unsubscribeUseCase(
+        memcacheService: AsyncMemcacheService,
+        feedSyncPublisher: FeedSyncPublisher
+    ): UnsubscribeUseCase {
+        return UnsubscribeUseCase(memcacheService, feedSyncPublisher)
     }
 
     @Lazy
@@ -8,7 +8,7 @@ import com.yoloo.server.entity.BaseEntity
 import com.yoloo.server.common.util.NoArg
 import com.yoloo.server.common.vo.Url
 import com.yoloo.server.group.vo.DisplayName
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
 @NoArg
 @Entity
@@ -28,7 +28,7 @@ data class Subscription(
 ) : BaseEntity<Subscription>() {
 
     companion object {
-        const val KEY_FILTER_SUBSCRIPTION = "FILTER_SUBSCRIPTION"
+        const val KEY_FILTER_SUBSCRIPTION = "FILTER_SUBSCRIPTION_V2"
 
         const val INDEX_USER_ID = "userId"
         const val INDEX_GROUP_ID = "groupId"
@@ -54,7 +54,7 @@ data class Subscription(
             return Key.create(Subscription::class.java, createId(userId, groupId))
         }
 
-        fun isSubscribed(filter: NanoCuckooFilter, userId: Long, groupId: Long): Boolean {
+        fun isSubscribed(filter: CuckooFilter, userId: Long, groupId: Long): Boolean {
             return filter.contains(Subscription.createId(userId, groupId))
         }
 
@@ -1,13 +1,14 @@
 package com.yoloo.server.group.usecase
 
 import com.google.appengine.api.memcache.MemcacheService
+import com.yoloo.server.filter.getFilter
 import com.yoloo.server.group.entity.Group
 import com.yoloo.server.group.entity.Subscription
 import com.yoloo.server.group.mapper.GroupResponseMapper
 import com.yoloo.server.group.vo.GroupResponse
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
 class GetGroupUseCase(
     private val memcacheService: MemcacheService,
@@ -25,7 +26,7 @@ class GetGroupUseCase(
         return groupResponseMapper.apply(group, subscribed)
     }
 
-    private fun getSubscriptionFilter(): NanoCuckooFilter {
-        return memcacheService.get(Subscription.KEY_FILTER_SUBSCRIPTION) as NanoCuckooFilter
+    private fun getSubscriptionFilter(): CuckooFilter {
+        return memcacheService.getFilter(Subscription.KEY_FILTER_SUBSCRIPTION)
     }
 }
@@ -3,14 +3,20 @@ package com.yoloo.server.group.usecase
 import com.google.appengine.api.memcache.AsyncMemcacheService
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
+import com.yoloo.server.filter.getFilter
+import com.yoloo.server.filter.putFilter
 import com.yoloo.server.group.entity.Group
 import com.yoloo.server.group.entity.Subscription
 import com.yoloo.server.group.vo.GroupFlag
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.user.entity.User
 import com.yoloo.server.user.vo.UserGroup
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
-class SubscribeUseCase(private val memcacheService: AsyncMemcacheService) {
+class SubscribeUseCase(
+    private val memcacheService: AsyncMemcacheService,
+    private val feedSyncPublisher: FeedSyncPublisher
+) {
 
     fun execute(requesterId: Long, requesterDisplayName: String, requesterAvatarUrl: String, groupId: Long) {
         val userKey = User.createKey(requesterId)
@@ -33,7 +39,7 @@ class SubscribeUseCase(private val memcacheService: AsyncMemcacheService) {
         val subscription = Subscription.create(requesterId, groupId, requesterDisplayName, requesterAvatarUrl)
 
         subscriptionFilter.insert(subscription.id)
-        memcacheService.put(Subscription.KEY_FILTER_SUBSCRIPTION, subscriptionFilter)
+        memcacheService.putFilter(Subscription.KEY_FILTER_SUBSCRIPTION, subscriptionFilter)
 
         group.countData.subscriberCount = group.countData.subscriberCount.inc()
 
@@ -41,10 +47,12 @@ class SubscribeUseCase(private val memcacheService: AsyncMemcacheService) {
         user.subscribedGroups = user.subscribedGroups.plus(userGroup)
 
         ofy().save().entities(group, subscription, user)
+
+        feedSyncPublisher.subscribed(requesterId, groupId)
     }
 
-    private fun getSubscriptionFilter(): NanoCuckooFilter {
-        return memcacheService.get(Subscription.KEY_FILTER_SUBSCRIPTION).get() as NanoCuckooFilter
+    private fun getSubscriptionFilter(): CuckooFilter {
+        return memcacheService.getFilter(Subscription.KEY_FILTER_SUBSCRIPTION)
     }
 
     private fun createUserGroup(group: Group): UserGroup {
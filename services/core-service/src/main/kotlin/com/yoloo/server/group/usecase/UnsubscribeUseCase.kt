@@ -3,12 +3,18 @@ package com.yoloo.server.group.usecase
 import com.google.appengine.api.memcache.AsyncMemcacheService
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
+import com.yoloo.server.filter.getFilter
+import com.yoloo.server.filter.putFilter
 import com.yoloo.server.group.entity.Group
 import com.yoloo.server.group.entity.Subscription
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.user.entity.User
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
-class UnsubscribeUseCase(private val memcacheService: AsyncMemcacheService) {
+class UnsubscribeUseCase(
+    private val memcacheService: AsyncMemcacheService,
+    private val feedSyncPublisher: FeedSyncPublisher
+) {
 
     fun execute(requesterId: Long, groupId: Long) {
         val userKey = User.createKey(requesterId)
@@ -28,16 +34,18 @@ class UnsubscribeUseCase(private val memcacheService: AsyncMemcacheService) {
 
         val subscriptionFilter = getSubscriptionFilter()
         subscriptionFilter.delete(subscription!!.id)
-        memcacheService.put(Subscription.KEY_FILTER_SUBSCRIPTION, subscriptionFilter)
+        memcacheService.putFilter(Subscription.KEY_FILTER_SUBSCRIPTION, subscriptionFilter)
 
         group!!.countData.subscriberCount = group.countData.subscriberCount.dec()
 
         user.subscribedGroups = user.subscribedGroups.dropWhile { it.id == groupId }
 
         ofy().save().entities(group, user)
+
+        feedSyncPublisher.unsubscribed(requesterId, groupId)
     }
 
-    private fun getSubscriptionFilter(): NanoCuckooFilter {
-        return memcacheService.get(Subscription.KEY_FILTER_SUBSCRIPTION) as NanoCuckooFilter
+    private fun getSubscriptionFilter(): CuckooFilter {
+        return memcacheService.getFilter(Subscription.KEY_FILTER_SUBSCRIPTION)
     }
 }
@@ -0,0 +1,17 @@
+package com.yoloo.server.like.config
+
+import com.fasterxml.jackson.databind.ObjectMapper
+import com.yoloo.server.like.entity.Like
+import com.yoloo.server.queue.JsonPayloadCodec
+import com.yoloo.server.queue.PayloadCodec
+import org.springframework.context.annotation.Bean
+import org.springframework.context.annotation.Configuration
+
+@Configuration
+class LikeQueueConfig {
+
+    @Bean
+    fun likePayloadCodec(objectMapper: ObjectMapper): PayloadCodec<Like> {
+        return JsonPayloadCodec(Like::class.java, objectMapper)
+    }
+}
@@ -6,7 +6,7 @@ import com.googlecode.objectify.annotation.Id
 import com.googlecode.objectify.annotation.Index
 import com.yoloo.server.common.util.NoArg
 import com.yoloo.server.entity.Keyable
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 import java.time.Instant
 import java.util.regex.Pattern
 
@@ -33,7 +33,7 @@ data class Like(
         const val INDEX_USER_ID = "userId"
         const val INDEX_CREATED_AT = "createdAt"
 
-        const val KEY_FILTER_VOTE = "FILTER_VOTE"
+        const val KEY_FILTER_VOTE = "FILTER_VOTE_V2"
 
         fun create(userId: Long, likeableId: Long): Like {
             return Like(createId(userId, likeableId))
@@ -56,7 +56,7 @@ data class Like(
         }
 
         fun isVoted(
-            filter: NanoCuckooFilter,
+            filter: CuckooFilter,
             requesterId: Long,
             postId: Long
         ): Boolean {
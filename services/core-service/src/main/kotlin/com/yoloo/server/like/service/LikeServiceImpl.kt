@@ -1,21 +1,19 @@
 package com.yoloo.server.like.service
 
-import com.fasterxml.jackson.databind.ObjectMapper
-import com.google.appengine.api.taskqueue.Queue
-import com.google.appengine.api.taskqueue.TaskOptions
-import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.Exceptions.checkException
+import com.yoloo.server.counter.CounterNames
 import com.yoloo.server.counter.CounterService
 import com.yoloo.server.entity.Likeable
-import com.yoloo.server.filter.Filter
+import com.yoloo.server.filter.FilterKind
 import com.yoloo.server.filter.FilterService
 import com.yoloo.server.like.entity.Like
 import com.yoloo.server.like.exception.LikeErrors
+import com.yoloo.server.post.entity.Comment
 import com.yoloo.server.post.util.PostErrors
-import com.yoloo.server.queue.QueueNames
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.queue.QueuePayload
+import com.yoloo.server.queue.QueuePublisher
 import com.yoloo.server.user.exception.UserErrors
-import org.springframework.beans.factory.annotation.Qualifier
 import org.springframework.stereotype.Service
 import org.zalando.problem.Status
 
@@ -23,50 +21,52 @@ import org.zalando.problem.Status
 class LikeServiceImpl(
     private val filterService: FilterService,
     private val counterService: CounterService,
-    @Qualifier(QueueNames.BATCH_SAVE_PULL_QUEUE) private val batchSavePullQueue: Queue,
-    private val objectMapper: ObjectMapper
+    private val queuePublisher: QueuePublisher,
+    private val feedSyncPublisher: FeedSyncPublisher
 ) : LikeService {
 
     override fun like(userId: Long, likeableId: Long, type: Class<out Likeable>) {
-        val entityCache = filterService.getAll()
-
-        checkException(entityCache.contains(userId), Status.NOT_FOUND, UserErrors.NOT_FOUND)
-        checkException(entityCache.contains(likeableId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
+        checkException(filterService.contains(FilterKind.USER, userId), Status.NOT_FOUND, UserErrors.NOT_FOUND)
+        checkException(filterService.contains(likeableKind(type), likeableId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
 
         val like = Like.create(userId, likeableId)
 
-        checkException(!entityCache.contains(like.id), Status.CONFLICT, LikeErrors.CONFLICT)
+        checkException(!filterService.contains(FilterKind.LIKE, userId, likeableId), Status.CONFLICT, LikeErrors.CONFLICT)
 
-        counterService.increment("LIKE:$likeableId")
+        counterService.increment(CounterNames.likes(likeableId))
 
-        entityCache.add(like.id)
-        filterService.saveAsync(entityCache)
+        filterService.add(FilterKind.LIKE, userId, likeableId)
 
-        ofy().load().type(Filter::class.java).filter().star
+        queuePublisher.publish(QueuePayload.insert(like))
 
-        addToQueue(QueuePayload.save(like))
+        syncPostCounts(likeableId, type)
     }
 
     override fun dislike(userId: Long, likeableId: Long, type: Class<out Likeable>) {
-        val entityCache = filterService.getAll()
-
-        checkException(entityCache.contains(userId), Status.NOT_FOUND, UserErrors.NOT_FOUND)
-        checkException(entityCache.contains(likeableId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
+        checkException(filterService.contains(FilterKind.USER, userId), Status.NOT_FOUND, UserErrors.NOT_FOUND)
+        checkException(filterService.contains(likeableKind(type), likeableId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
 
         val likeKey = Like.createKey(userId, likeableId)
 
-        checkException(entityCache.contains(likeKey.name), Status.CONFLICT, LikeErrors.CONFLICT)
+        checkException(filterService.contains(FilterKind.LIKE, userId, likeableId), Status.CONFLICT, LikeErrors.CONFLICT)
+
+        counterService.decrement(CounterNames.likes(likeableId))
 
-        counterService.decrement("LIKE:$likeableId")
+        filterService.delete(FilterKind.LIKE, userId, likeableId)
 
-        entityCache.delete(likeKey.name)
-        filterService.saveAsync(entityCache)
+        queuePublisher.publish(QueuePayload.delete(likeKey.toUrlSafe()))
+
+        syncPostCounts(likeableId, type)
+    }
 
-        addToQueue(QueuePayload.delete(likeKey.toUrlSafe()))
+    // Only posts are listed by the feed service.
+    private fun syncPostCounts(likeableId: Long, type: Class<out Likeable>) {
+        if (likeableKind(type) == FilterKind.POST) {
+            feedSyncPublisher.postCountsChanged(likeableId)
+        }
     }
 
-    private fun addToQueue(payload: QueuePayload) {
-        val json = objectMapper.writeValueAsString(payload)
-        batchSavePullQueue.addAsync(TaskOptions.Builder.withTag("default").payload(json))
+    private fun likeableKind(type: Class<out Likeable>): FilterKind {
+        return if (Comment::class.java.isAssignableFrom(type)) FilterKind.COMMENT else FilterKind.POST
     }
 }
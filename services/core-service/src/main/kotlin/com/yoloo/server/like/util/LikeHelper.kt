@@ -1,6 +1,6 @@
 package com.yoloo.server.like.util
 
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 import java.util.regex.Pattern
 
 object LikeHelper {
@@ -19,7 +19,7 @@ object LikeHelper {
         return id.split(PATTERN_DELIMITER)[2].toLong()
     }
 
-    fun isVoted(filter: NanoCuckooFilter, userId: Long, votableId: Long): Boolean {
+    fun isVoted(filter: CuckooFilter, userId: Long, votableId: Long): Boolean {
         return filter.contains(createId(userId, votableId))
     }
 }
\ No newline at end of file
@@ -6,7 +6,7 @@ import com.googlecode.objectify.annotation.Id
 import com.googlecode.objectify.annotation.Index
 import com.yoloo.server.common.util.NoArg
 import com.yoloo.server.entity.BaseEntity
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 import java.util.regex.Pattern
 
 @NoArg
@@ -25,7 +25,7 @@ data class Bookmark(
     companion object {
         private val PATTERN_DELIMITER = Pattern.compile(":")
 
-        const val KEY_FILTER_BOOKMARK = "FILTER_BOOKMARK"
+        const val KEY_FILTER_BOOKMARK = "FILTER_BOOKMARK_V2"
 
         const val INDEX_USER_ID = "userId"
         const val INDEX_BOOKMARKABLE_ID = "bookmarkableId"
@@ -42,7 +42,7 @@ data class Bookmark(
             return Key.create(Bookmark::class.java, createId(userId, bookmarkableId))
         }
 
-        fun isBookmarked(filter: NanoCuckooFilter, requesterId: Long, bookmarkableId: Long): Boolean {
+        fun isBookmarked(filter: CuckooFilter, requesterId: Long, bookmarkableId: Long): Boolean {
             return filter.contains(createId(requesterId, bookmarkableId))
         }
 
@@ -1,6 +1,7 @@
 package com.yoloo.server.post.entity
 
 import com.googlecode.objectify.Key
+import com.googlecode.objectify.annotation.Cache
 import com.googlecode.objectify.annotation.Entity
 import com.googlecode.objectify.annotation.Id
 import com.googlecode.objectify.annotation.Ignore
@@ -14,6 +15,7 @@ import com.yoloo.server.post.vo.CommentContent
 import java.time.Instant
 
 @NoArg
+@Cache(expirationSeconds = Comment.CACHE_TTL)
 @Entity
 data class Comment(
     @Id
@@ -56,7 +58,9 @@ data class Comment(
     companion object {
         const val INDEX_POST_ID = "postId"
         const val INDEX_AUTHOR_ID = "author.id"
-        const val INDEX_RANK = "author.rank"
+        const val INDEX_RANK = "rank"
+
+        const val CACHE_TTL = 7200
 
         fun createKey(commentId: Long): Key<Comment> {
             return Key.create(Comment::class.java, commentId)
@@ -26,7 +26,7 @@ class PostResponseMapper(
             tags = t.tags.toList(),
             approvedCommentId = t.approvedCommentId?.let { hashIds.encode(it.value) },
             bounty = t.bounty?.value ?: 0,
-            count = PostCountResponse(t.countData.voteCount, t.countData.commentCount),
+            count = PostCountResponse(u.likes ?: t.countData.voteCount, u.comments ?: t.countData.commentCount),
             liked = u.liked,
             bookmarked = u.bookmarked,
             createdAt = t.auditData.createdAt,
@@ -34,5 +34,15 @@ class PostResponseMapper(
         )
     }
 
-    data class Params(val self: Boolean, val liked: Boolean, val bookmarked: Boolean) : ResponseParams
+    /**
+     * [likes] and [comments] are the counts of the [com.yoloo.server.counter.CounterService], the counts stored in
+     * the post are used when they are missing.
+     */
+    data class Params(
+        val self: Boolean,
+        val liked: Boolean,
+        val bookmarked: Boolean,
+        val likes: Int? = null,
+        val comments: Int? = null
+    ) : ResponseParams
 }
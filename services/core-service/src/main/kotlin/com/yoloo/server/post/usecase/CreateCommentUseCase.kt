@@ -3,6 +3,7 @@ package com.yoloo.server.post.usecase
 import com.arcticicestudio.icecore.hashids.Hashids
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.vo.Author
+import com.yoloo.server.filter.FilterKind
 import com.yoloo.server.filter.FilterService
 import com.yoloo.server.post.entity.Comment
 import com.yoloo.server.post.entity.Post
@@ -10,8 +11,10 @@ import com.yoloo.server.post.mapper.CommentResponseMapper
 import com.yoloo.server.post.vo.CommentContent
 import com.yoloo.server.post.vo.CommentResponse
 import com.yoloo.server.post.vo.CreateCommentRequest
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.usecase.AbstractUseCase
 import com.yoloo.server.user.entity.User
+import com.yoloo.server.counter.CounterNames
 import com.yoloo.server.counter.CounterService
 import com.yoloo.spring.autoconfiguration.appengine.services.notification.NotificationService
 import com.yoloo.spring.autoconfiguration.appengine.services.notification.Payload
@@ -25,7 +28,8 @@ class CreateCommentUseCase(
     private val counterService: CounterService,
     private val notificationService: NotificationService,
     private val idGenerator: LongIdGenerator,
-    private val commentResponseMapper: CommentResponseMapper
+    private val commentResponseMapper: CommentResponseMapper,
+    private val feedSyncPublisher: FeedSyncPublisher
 ) : AbstractUseCase<CreateCommentUseCase.Input, CommentResponse>() {
 
     override fun onExecute(input: Input): CommentResponse {
@@ -33,9 +37,7 @@ class CreateCommentUseCase(
         val postId = hashedPostId[0]
         val postAuthorId = hashedPostId[1]
 
-        val entityCache = filterService.getAll()
-
-        //checkException(entityCache.contains(postId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
+        //checkException(filterService.contains(FilterKind.POST, postId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
 
         val postKey = Post.createKey(postId)
         val postAuthorKey = User.createKey(postAuthorId)
@@ -51,10 +53,11 @@ class CreateCommentUseCase(
 
         ofy().defer().save().entity(comment)
 
-        entityCache.add(comment.id)
-        filterService.saveAsync(entityCache)
+        filterService.add(FilterKind.COMMENT, comment.id)
+
+        counterService.increment(CounterNames.postComments(post.id), CounterNames.userComments(user.id))
 
-        counterService.increment("POST_COMMENT:${post.id}", "USER_COMMENT:${user.id}")
+        feedSyncPublisher.postCountsChanged(post.id)
 
         notificationService.addAsync(
             Payload.newBuilder("NEW_COMMENT")
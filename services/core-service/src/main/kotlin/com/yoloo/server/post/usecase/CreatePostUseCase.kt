@@ -8,13 +8,15 @@ import com.yoloo.server.group.entity.Group
 import com.yoloo.server.post.entity.Post
 import com.yoloo.server.post.mapper.PostResponseMapper
 import com.yoloo.server.post.vo.*
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.user.entity.User
 import org.springframework.stereotype.Service
 
 @Service
 class CreatePostUseCase(
     private val idGenerator: LongIdGenerator,
-    private val postResponseMapper: PostResponseMapper
+    private val postResponseMapper: PostResponseMapper,
+    private val feedSyncPublisher: FeedSyncPublisher
 ) {
 
     fun execute(requesterId: Long, request: CreatePostRequest): PostResponse {
@@ -29,10 +31,11 @@ class CreatePostUseCase(
 
         ofy().save().entities(post, group)
 
+        feedSyncPublisher.postCreated(post)
         addToSearchQueue(post)
         addToNotificationQueue(post)
 
-        return postResponseMapper.apply(post, true, false, false)
+        return postResponseMapper.apply(post, PostResponseMapper.Params(self = true, liked = false, bookmarked = false))
     }
 
     private fun addToNotificationQueue(post: Post) {
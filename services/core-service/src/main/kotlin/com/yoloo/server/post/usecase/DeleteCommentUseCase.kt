@@ -5,11 +5,14 @@ import com.google.common.collect.ImmutableList
 import com.googlecode.objectify.Key
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.Exceptions.checkException
+import com.yoloo.server.filter.FilterKind
 import com.yoloo.server.filter.FilterService
 import com.yoloo.server.like.entity.Like
 import com.yoloo.server.post.entity.Comment
 import com.yoloo.server.post.util.CommentErrors
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.usecase.AbstractUseCase
+import com.yoloo.server.counter.CounterNames
 import com.yoloo.server.counter.CounterService
 import org.springframework.stereotype.Service
 import org.zalando.problem.Status
@@ -18,7 +21,8 @@ import org.zalando.problem.Status
 class DeleteCommentUseCase(
     private val filterService: FilterService,
     private val counterService: CounterService,
-    private val hashids: Hashids
+    private val hashids: Hashids,
+    private val feedSyncPublisher: FeedSyncPublisher
 ) : AbstractUseCase<DeleteCommentUseCase.Input, Unit>() {
 
     override fun onExecute(input: Input) {
@@ -28,11 +32,13 @@ class DeleteCommentUseCase(
         val commentAuthorId = commentHashId[1]
         val commentPostId = commentHashId[2]
 
-        val entityCache = filterService.getAll()
-
-        checkException(entityCache.contains(commentId), Status.NOT_FOUND, CommentErrors.NOT_FOUND)
+        checkException(filterService.contains(FilterKind.COMMENT, commentId), Status.NOT_FOUND, CommentErrors.NOT_FOUND)
         checkException(commentAuthorId == input.requesterId, Status.FORBIDDEN, CommentErrors.FORBIDDEN)
-        checkException(!entityCache.contains("approved:$commentId"), Status.FORBIDDEN, CommentErrors.FORBIDDEN_APPROVED)
+        checkException(
+            !filterService.contains(FilterKind.APPROVAL, commentId),
+            Status.FORBIDDEN,
+            CommentErrors.FORBIDDEN_APPROVED
+        )
 
         val commentKey = Comment.createKey(commentId)
 
@@ -45,7 +51,12 @@ class DeleteCommentUseCase(
 
         ofy().defer().delete().keys(pendingDeleteKeys)
 
-        counterService.decrement("POST_COMMENT:$commentPostId", "USER_COMMENT:$commentAuthorId")
+        counterService.decrement(
+            CounterNames.postComments(commentPostId),
+            CounterNames.userComments(commentAuthorId)
+        )
+
+        feedSyncPublisher.postCountsChanged(commentPostId)
     }
 
     // TODO Batch deletion of like keys at the end of the day
@@ -3,9 +3,8 @@ package com.yoloo.server.post.usecase
 import com.arcticicestudio.icecore.hashids.Hashids
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.Exceptions.checkException
+import com.yoloo.server.filter.FilterKind
 import com.yoloo.server.filter.FilterService
-import com.yoloo.server.like.entity.Like
-import com.yoloo.server.post.entity.Bookmark
 import com.yoloo.server.post.entity.Post
 import com.yoloo.server.post.mapper.PostResponseMapper
 import com.yoloo.server.post.util.PostErrors
@@ -25,16 +24,18 @@ class GetPostByIdUseCase(
     override fun onExecute(input: Input): PostResponse {
         val postId = hashIds.decode(input.postId)[0]
 
-        val entityCache = filterService.getAll()
-
-        checkException(entityCache.contains(postId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
-        checkException(entityCache.contains(input.requesterId), Status.NOT_FOUND, UserErrors.NOT_FOUND)
+        checkException(filterService.contains(FilterKind.POST, postId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
+        checkException(
+            filterService.contains(FilterKind.USER, input.requesterId),
+            Status.NOT_FOUND,
+            UserErrors.NOT_FOUND
+        )
 
         val post = ofy().load().key(Post.createKey(postId)).now()
 
         val self = post.author.isSelf(input.requesterId)
-        val bookmarked = entityCache.contains(Bookmark.createId(input.requesterId, postId))
-        val liked = entityCache.contains(Like.createId(input.requesterId, postId))
+        val bookmarked = filterService.contains(FilterKind.BOOKMARK, input.requesterId, postId)
+        val liked = filterService.contains(FilterKind.LIKE, input.requesterId, postId)
 
         return postResponseMapper.apply(post, PostResponseMapper.Params(self, liked, bookmarked))
     }
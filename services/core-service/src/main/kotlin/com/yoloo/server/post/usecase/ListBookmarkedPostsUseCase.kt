@@ -1,23 +1,25 @@
 package com.yoloo.server.post.usecase
 
-import com.google.appengine.api.memcache.MemcacheService
 import com.google.cloud.datastore.Cursor
 import com.google.cloud.datastore.QueryResults
 import com.googlecode.objectify.Key
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.vo.CollectionResponse
+import com.yoloo.server.counter.CounterNames
+import com.yoloo.server.counter.CounterService
+import com.yoloo.server.filter.FilterKind
+import com.yoloo.server.filter.FilterService
 import com.yoloo.server.post.entity.Bookmark
 import com.yoloo.server.post.entity.Post
 import com.yoloo.server.post.mapper.PostResponseMapper
 import com.yoloo.server.post.vo.PostResponse
-import com.yoloo.server.like.entity.Like
-import net.cinnom.nanocuckoo.NanoCuckooFilter
 import org.springframework.stereotype.Service
 
 @Service
 class ListBookmarkedPostsUseCase(
     private val postResponseMapper: PostResponseMapper,
-    private val memcacheService: MemcacheService
+    private val filterService: FilterService,
+    private val counterService: CounterService
 ) {
 
     fun execute(requesterId: Long, cursor: String?): CollectionResponse<PostResponse> {
@@ -27,9 +29,7 @@ class ListBookmarkedPostsUseCase(
             return CollectionResponse.builder<PostResponse>().data(emptyList()).build()
         }
 
-        val voteFilter = memcacheService.get(Like.KEY_FILTER_VOTE) as NanoCuckooFilter
-
-        return buildCollectionResponse(queryResults, requesterId, voteFilter, cursor)
+        return buildCollectionResponse(queryResults, requesterId, cursor)
     }
 
     private fun buildQueryResultIterator(
@@ -50,16 +50,20 @@ class ListBookmarkedPostsUseCase(
     private fun buildCollectionResponse(
         queryResults: QueryResults<Key<Bookmark>>,
         requesterId: Long,
-        voteFilter: NanoCuckooFilter,
         cursor: String?
     ): CollectionResponse<PostResponse> {
-        return queryResults
+        val posts = queryResults
             .asSequence()
             .map { Bookmark.getPostKey(it) }
             .toList()
             .let { ofy().load().keys(it).values }
-            .map { mapToPostResponse(it, requesterId, voteFilter) }
-            .toList()
+
+        val counts = counterService.getCounts(
+            posts.flatMap { listOf(CounterNames.likes(it.id), CounterNames.postComments(it.id)) }
+        )
+
+        return posts
+            .map { mapToPostResponse(it, requesterId, counts) }
             .let {
                 CollectionResponse.builder<PostResponse>()
                     .data(it)
@@ -72,13 +76,17 @@ class ListBookmarkedPostsUseCase(
     private fun mapToPostResponse(
         post: Post,
         requesterId: Long,
-        voteFilter: NanoCuckooFilter
+        counts: Map<String, Int>
     ): PostResponse {
         return postResponseMapper.apply(
             post,
-            isSelf(requesterId, post),
-            Like.isVoted(voteFilter, requesterId, post.id),
-            true
+            PostResponseMapper.Params(
+                self = isSelf(requesterId, post),
+                liked = filterService.contains(FilterKind.LIKE, requesterId, post.id),
+                bookmarked = true,
+                likes = counts[CounterNames.likes(post.id)],
+                comments = counts[CounterNames.postComments(post.id)]
+            )
         )
     }
 
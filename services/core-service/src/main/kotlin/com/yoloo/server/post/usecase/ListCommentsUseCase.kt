@@ -2,19 +2,20 @@ package com.yoloo.server.post.usecase
 
 import com.arcticicestudio.icecore.hashids.Hashids
 import com.google.cloud.datastore.QueryResults
+import com.googlecode.objectify.Key
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.Exceptions.checkException
 import com.yoloo.server.common.applyCursor
 import com.yoloo.server.common.vo.CollectionResponse
-import com.yoloo.server.filter.EntityIdFilter
+import com.yoloo.server.filter.FilterKind
 import com.yoloo.server.filter.FilterService
-import com.yoloo.server.like.entity.Like
 import com.yoloo.server.post.entity.Comment
 import com.yoloo.server.post.mapper.CommentResponseMapper
 import com.yoloo.server.post.util.PostErrors
 import com.yoloo.server.post.vo.CommentResponse
 import com.yoloo.server.usecase.AbstractUseCase
 import com.yoloo.server.user.exception.UserErrors
+import com.yoloo.server.counter.CounterNames
 import com.yoloo.server.counter.CounterService
 import org.springframework.stereotype.Service
 import org.zalando.problem.Status
@@ -30,10 +31,12 @@ class ListCommentsUseCase(
     override fun onExecute(input: Input): CollectionResponse<CommentResponse> {
         val postId = hashids.decode(input.postId)[0]
 
-        val entityCache = filterService.getAll()
-
-        checkException(entityCache.contains(input.requesterId), Status.NOT_FOUND, UserErrors.NOT_FOUND)
-        checkException(entityCache.contains(postId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
+        checkException(
+            filterService.contains(FilterKind.USER, input.requesterId),
+            Status.NOT_FOUND,
+            UserErrors.NOT_FOUND
+        )
+        checkException(filterService.contains(FilterKind.POST, postId), Status.NOT_FOUND, PostErrors.NOT_FOUND)
 
         val queryResults = queryResults(postId, input.cursor)
 
@@ -41,17 +44,20 @@ class ListCommentsUseCase(
             return CollectionResponse.builder<CommentResponse>().build()
         }
 
-        return queryResults
-            .asSequence()
+        // Keys only, the entities come from the session cache and memcache in one batch get
+        val keys = queryResults.asSequence().toList()
+        val comments = ofy().load().keys(keys).values.toList()
+        val likeCounts = counterService.getCounts(comments.map { CounterNames.likes(it.id) })
+
+        return comments
             .map {
                 it.apply {
-                    liked = isLiked(entityCache, input.requesterId, id)
-                    approved = isApproved(entityCache, id)
-                    likes = 0
+                    liked = isLiked(input.requesterId, id)
+                    approved = isApproved(id)
+                    likes = likeCounts[CounterNames.likes(id)] ?: 0
                 }
             }
             .map(commentResponseMapper::apply)
-            .toList()
             .let {
                 CollectionResponse.builder<CommentResponse>()
                     .data(it)
@@ -61,7 +67,7 @@ class ListCommentsUseCase(
             }
     }
 
-    private fun queryResults(postId: Long, cursor: String?): QueryResults<Comment> {
+    private fun queryResults(postId: Long, cursor: String?): QueryResults<Key<Comment>> {
         return ofy()
             .load()
             .type(Comment::class.java)
@@ -69,15 +75,16 @@ class ListCommentsUseCase(
             .order("-${Comment.INDEX_RANK}")
             .applyCursor(cursor)
             .limit(50)
+            .keys()
             .iterator()
     }
 
-    private fun isLiked(entityIdFilter: EntityIdFilter, requesterId: Long, commentId: Long): Boolean {
-        return entityIdFilter.contains(Like.createId(requesterId, commentId))
+    private fun isLiked(requesterId: Long, commentId: Long): Boolean {
+        return filterService.contains(FilterKind.LIKE, requesterId, commentId)
     }
 
-    private fun isApproved(entityIdFilter: EntityIdFilter, commentId: Long): Boolean {
-        return entityIdFilter.contains("APPROVED:$commentId")
+    private fun isApproved(commentId: Long): Boolean {
+        return filterService.contains(FilterKind.APPROVAL, commentId)
     }
 
     data class Input(val requesterId: Long, val postId: String, val cursor: String?)
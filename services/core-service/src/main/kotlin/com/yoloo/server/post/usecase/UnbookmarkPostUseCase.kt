@@ -1,18 +1,17 @@
 package com.yoloo.server.post.usecase
 
-import com.google.appengine.api.memcache.AsyncMemcacheService
-import com.googlecode.objectify.Key
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
+import com.yoloo.server.filter.FilterKind
+import com.yoloo.server.filter.FilterService
 import com.yoloo.server.post.entity.Bookmark
 import com.yoloo.server.post.entity.Post
 import com.yoloo.server.post.util.BookmarkErrors
 import com.yoloo.server.post.util.PostErrors
-import net.cinnom.nanocuckoo.NanoCuckooFilter
 import org.springframework.stereotype.Service
 
 @Service
-class UnbookmarkPostUseCase(private val memcacheService: AsyncMemcacheService) {
+class UnbookmarkPostUseCase(private val filterService: FilterService) {
 
     fun execute(requesterId: Long, postId: Long) {
         val postKey = Post.createKey(postId)
@@ -25,16 +24,9 @@ class UnbookmarkPostUseCase(private val memcacheService: AsyncMemcacheService) {
         ServiceExceptions.checkNotFound(post != null, PostErrors.NOT_FOUND)
         ServiceExceptions.checkNotFound(bookmark != null, BookmarkErrors.ERROR_BOOKMARK_NOT_FOUND)
 
-        updateMemcache(bookmarkKey)
+        filterService.delete(FilterKind.BOOKMARK, requesterId, postId)
 
         ofy().save().entity(post)
         ofy().delete().entity(bookmark)
     }
-
-    fun updateMemcache(bookmarkKey: Key<Bookmark>) {
-        val bookmarkFilter =
-            memcacheService.get(Bookmark.KEY_FILTER_BOOKMARK).get() as NanoCuckooFilter
-        bookmarkFilter.delete(bookmarkKey.name)
-        memcacheService.put(Bookmark.KEY_FILTER_BOOKMARK, bookmarkFilter)
-    }
 }
@@ -0,0 +1,168 @@
+package com.yoloo.server.queue;
+
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.common.collect.Lists;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.ObjectifyService;
+import com.yoloo.server.queue.QueuePayloadCoalescer.Write;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static com.googlecode.objectify.ObjectifyService.ofy;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Writes the queued saves and deletes to the datastore.
+ *
+ * <p>The payloads are split into chunks of {@link QueueProperties#getBatchChunkSize()} so no commit
+ * goes over the entity limit of the datastore, and the chunks are written concurrently. Only the
+ * tasks of the chunks which were written are deleted, the others are leased again once their lease
+ * expires.
+ *
+ * <p>Payloads touching the same entity are coalesced first, see {@link QueuePayloadCoalescer}.
+ */
+@Component
+public class BatchSaveDeleteQueueHandler implements PullQueueHandler {
+  private static final Logger logger = LoggerFactory.getLogger(BatchSaveDeleteQueueHandler.class);
+
+  private static final int WRITERS = 4;
+
+  private final QueuePayloadCodec queuePayloadCodec;
+  private final QueueProperties properties;
+  private final ExecutorService writers = Executors.newFixedThreadPool(WRITERS);
+
+  @Autowired
+  public BatchSaveDeleteQueueHandler(
+      QueuePayloadCodec queuePayloadCodec, QueueProperties properties) {
+    this.queuePayloadCodec = queuePayloadCodec;
+    this.properties = properties;
+  }
+
+  @Override
+  public String getTag() {
+    return QueueNames.DEFAULT_TAG;
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    writers.shutdown();
+  }
+
+  // Returns the tasks which are settled, either written or cancelled out.
+  @Override
+  public List<TaskHandle> handle(List<TaskHandle> tasks) {
+    Map<TaskHandle, QueuePayload> payloads = new LinkedHashMap<>();
+    for (TaskHandle task : tasks) {
+      QueuePayload payload = readPayload(task);
+      if (payload != null) {
+        payloads.put(task, payload);
+      }
+    }
+
+    QueuePayloadCoalescer.Result<TaskHandle> coalesced =
+        QueuePayloadCoalescer.coalesce(new ArrayList<>(payloads.keySet()), payloads::get);
+
+    Map<QueuePayload.Type, List<Write<TaskHandle>>> byType =
+        new EnumMap<>(QueuePayload.Type.class);
+    for (Write<TaskHandle> write : coalesced.getWrites()) {
+      QueuePayload.Type type = write.getPayload().getType();
+      // inserts which were not cancelled are plain saves from here on
+      if (type == QueuePayload.Type.INSERT) {
+        type = QueuePayload.Type.SAVE;
+      }
+      byType.computeIfAbsent(type, t -> new ArrayList<>()).add(write);
+    }
+
+    List<CompletableFuture<List<TaskHandle>>> chunks = new ArrayList<>();
+    byType.forEach(
+        (type, writes) ->
+            Lists.partition(writes, properties.getBatchChunkSize())
+                .forEach(chunk -> chunks.add(writeChunk(type, chunk))));
+
+    List<TaskHandle> settled = new ArrayList<>(coalesced.getCancelled());
+    chunks.forEach(chunk -> settled.addAll(chunk.join()));
+    logger.debug(
+        "Wrote {} payloads for {} leased tasks, {} tasks cancelled out",
+        coalesced.getWrites().size(),
+        tasks.size(),
+        coalesced.getCancelled().size());
+    return settled;
+  }
+
+  private CompletableFuture<List<TaskHandle>> writeChunk(
+      QueuePayload.Type type, List<Write<TaskHandle>> chunk) {
+    return CompletableFuture.supplyAsync(
+        () -> {
+          try {
+            return writeAll(type, chunk);
+          } catch (RuntimeException e) {
+            logger.warn(
+                "A chunk of {} {} payloads failed, writing them one by one",
+                chunk.size(),
+                type,
+                e);
+            return writeEach(type, chunk);
+          }
+        },
+        writers);
+  }
+
+  private static List<TaskHandle> writeAll(QueuePayload.Type type, List<Write<TaskHandle>> chunk) {
+    List<Object> payloads = chunk.stream().map(w -> w.getPayload().getPayload()).collect(toList());
+    ObjectifyService.run(() -> writePayloads(type, payloads));
+
+    List<TaskHandle> tasks = new ArrayList<>();
+    chunk.forEach(write -> tasks.addAll(write.getItems()));
+    return tasks;
+  }
+
+  // Isolates the payloads which can't be written, so they don't hold back the rest of the chunk.
+  private static List<TaskHandle> writeEach(QueuePayload.Type type, List<Write<TaskHandle>> chunk) {
+    List<TaskHandle> tasks = new ArrayList<>();
+    for (Write<TaskHandle> write : chunk) {
+      try {
+        tasks.addAll(writeAll(type, Collections.singletonList(write)));
+      } catch (RuntimeException e) {
+        logger.warn("Payload of {} could not be written", write.getPayload().getKey(), e);
+      }
+    }
+    return tasks;
+  }
+
+  private static Object writePayloads(QueuePayload.Type type, List<Object> payloads) {
+    switch (type) {
+      case SAVE:
+        return ofy().save().entities(payloads).now();
+      case DELETE:
+        List<Key<Object>> keys =
+            payloads.stream().map(p -> Key.<Object>create((String) p)).collect(toList());
+        return ofy().delete().keys(keys).now();
+      default:
+        throw new IllegalArgumentException("Unsupported payload type " + type);
+    }
+  }
+
+  @Nullable
+  private QueuePayload readPayload(TaskHandle task) {
+    try {
+      return queuePayloadCodec.decode(task.getPayload());
+    } catch (IllegalArgumentException e) {
+      logger.warn("Task {} has an unreadable payload", task.getName(), e);
+      return null;
+    }
+  }
+}
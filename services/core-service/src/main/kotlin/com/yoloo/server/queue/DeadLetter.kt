@@ -0,0 +1,36 @@
+package com.yoloo.server.queue
+
+import com.googlecode.objectify.annotation.Entity
+import com.googlecode.objectify.annotation.Id
+import com.googlecode.objectify.annotation.Index
+import com.yoloo.server.common.util.NoArg
+import java.time.Instant
+
+/**
+ * A pull queue task which failed [QueueProperties.Consumer.getMaxRetries] times. It is taken off the
+ * queue so it can't hold back the other tasks of its tag, and kept here for inspection.
+ */
+@NoArg
+@Entity
+class DeadLetter(
+    @Id var id: String,
+
+    @Index var tag: String,
+
+    var payload: ByteArray,
+
+    var retryCount: Int,
+
+    @Index var createdAt: Instant = Instant.now()
+) {
+
+    companion object {
+        const val INDEX_TAG = "tag"
+        const val INDEX_CREATED_AT = "createdAt"
+
+        @JvmStatic
+        fun create(taskName: String, tag: String, payload: ByteArray, retryCount: Int): DeadLetter {
+            return DeadLetter(taskName, tag, payload, retryCount)
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.yoloo.server.queue;
+
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.yoloo.server.counter.CounterNames;
+import com.yoloo.server.counter.CounterService;
+import com.yoloo.server.post.entity.Post;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.Future;
+
+/**
+ * Keeps the projection of the feed service up to date. Every change is a push task handled by the
+ * {@code /_ah/tasks/timeline} endpoints of the feed service, added from the request thread like the
+ * payloads of {@link QueuePublisher}.
+ *
+ * <p>A created post is sent with the fields the feed lists, the feed stores it and fans it out to
+ * the home timelines. Follows and subscriptions are sent as they change, they decide whose
+ * timelines a post is written to. Like and comment counts of a post are sent as read from the
+ * {@link CounterService} after every change, so a redelivered task can't count twice.
+ */
+@Component
+public class FeedSyncPublisher {
+  private static final String BASE_URL = "/_ah/tasks/timeline";
+
+  private final Queue queue;
+  private final CounterService counterService;
+
+  @Autowired
+  public FeedSyncPublisher(
+      @Qualifier(QueueNames.FEED_SYNC_QUEUE) Queue queue, CounterService counterService) {
+    this.queue = queue;
+    this.counterService = counterService;
+  }
+
+  public Future<TaskHandle> postCreated(Post post) {
+    int bounty = post.getBounty() == null ? 0 : post.getBounty().getValue();
+    TaskOptions task =
+        TaskOptions.Builder.withUrl(BASE_URL + "/posts")
+            .method(TaskOptions.Method.POST)
+            .param("postId", String.valueOf(post.getId()))
+            .param("authorId", String.valueOf(post.getAuthor().getId()))
+            .param("authorDisplayName", post.getAuthor().getDisplayName())
+            .param("authorProfileImageUrl", post.getAuthor().getProfileImageUrl().getValue())
+            .param("groupId", String.valueOf(post.getGroup().getId()))
+            .param("groupDisplayName", post.getGroup().getDisplayName())
+            .param("title", post.getTitle().getValue())
+            .param("content", post.getContent().getValue())
+            .param("bounty", String.valueOf(bounty))
+            .param("createdAt", String.valueOf(post.getAuditData().getCreatedAt().toEpochMilli()));
+    post.getTags().forEach(tag -> task.param("tag", tag));
+    return queue.addAsync(task);
+  }
+
+  /**
+   * Sends the current like and comment counts of a post. Counters without a recorded update are
+   * left out, the feed keeps the count it has.
+   *
+   * @param postId id of the post
+   * @return the pending add
+   */
+  public Future<TaskHandle> postCountsChanged(long postId) {
+    String likes = CounterNames.likes(postId);
+    String comments = CounterNames.postComments(postId);
+    Map<String, Integer> counts = counterService.getCounts(Arrays.asList(likes, comments));
+
+    TaskOptions task =
+        TaskOptions.Builder.withUrl(BASE_URL + "/counts")
+            .method(TaskOptions.Method.POST)
+            .param("postId", String.valueOf(postId));
+    if (counts.containsKey(likes)) {
+      task.param("likeCount", String.valueOf(counts.get(likes)));
+    }
+    if (counts.containsKey(comments)) {
+      task.param("commentCount", String.valueOf(counts.get(comments)));
+    }
+    return queue.addAsync(task);
+  }
+
+  public Future<TaskHandle> followed(long followerId, long followingId) {
+    return queue.addAsync(relationTask("/follow", followerId, followingId));
+  }
+
+  public Future<TaskHandle> unfollowed(long followerId, long followingId) {
+    return queue.addAsync(relationTask("/unfollow", followerId, followingId));
+  }
+
+  public Future<TaskHandle> subscribed(long userId, long groupId) {
+    return queue.addAsync(subscriptionTask("/subscribe", userId, groupId));
+  }
+
+  public Future<TaskHandle> unsubscribed(long userId, long groupId) {
+    return queue.addAsync(subscriptionTask("/unsubscribe", userId, groupId));
+  }
+
+  private static TaskOptions relationTask(String path, long followerId, long followingId) {
+    return TaskOptions.Builder.withUrl(BASE_URL + path)
+        .method(TaskOptions.Method.POST)
+        .param("followerId", String.valueOf(followerId))
+        .param("followingId", String.valueOf(followingId));
+  }
+
+  private static TaskOptions subscriptionTask(String path, long userId, long groupId) {
+    return TaskOptions.Builder.withUrl(BASE_URL + path)
+        .method(TaskOptions.Method.POST)
+        .param("userId", String.valueOf(userId))
+        .param("groupId", String.valueOf(groupId));
+  }
+}
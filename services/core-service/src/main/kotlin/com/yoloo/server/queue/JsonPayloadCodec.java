@@ -0,0 +1,50 @@
+package com.yoloo.server.queue;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Encodes entities as JSON. The reader and writer are bound to the entity class once, so decoding
+ * reads straight into the entity without resolving its type per payload.
+ *
+ * @param <T> the entity type
+ */
+public final class JsonPayloadCodec<T> implements PayloadCodec<T> {
+
+  private final Class<T> type;
+  private final ObjectReader reader;
+  private final ObjectWriter writer;
+
+  public JsonPayloadCodec(Class<T> type, ObjectMapper objectMapper) {
+    this.type = type;
+    this.reader = objectMapper.readerFor(type);
+    this.writer = objectMapper.writerFor(type);
+  }
+
+  @Override
+  public Class<T> getType() {
+    return type;
+  }
+
+  @Override
+  public byte[] encode(T entity) {
+    try {
+      return writer.writeValueAsBytes(entity);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public T decode(byte[] bytes) {
+    try {
+      return reader.readValue(bytes);
+    } catch (IOException e) {
+      throw new IllegalArgumentException("Unreadable " + type.getSimpleName() + " payload", e);
+    }
+  }
+}
@@ -0,0 +1,23 @@
+package com.yoloo.server.queue;
+
+/**
+ * Serializes the entities of one kind for the pull queue. Every entity class saved through the
+ * queue needs a codec bean, see {@link QueuePayloadCodec}.
+ *
+ * @param <T> the entity type
+ */
+public interface PayloadCodec<T> {
+
+  Class<T> getType();
+
+  byte[] encode(T entity);
+
+  /**
+   * Reads an entity written by {@link #encode(Object)}.
+   *
+   * @param bytes the encoded entity
+   * @return the entity
+   * @throws IllegalArgumentException if the bytes can't be read
+   */
+  T decode(byte[] bytes);
+}
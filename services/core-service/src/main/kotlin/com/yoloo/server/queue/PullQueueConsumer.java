@@ -0,0 +1,230 @@
+package com.yoloo.server.queue;
+
+import com.google.appengine.api.memcache.Expiration;
+import com.google.appengine.api.memcache.MemcacheService;
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.googlecode.objectify.ObjectifyService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+/**
+ * Leases the tasks of a {@link PullQueueHandler} tag and hands them to the handler.
+ *
+ * <p>Consuming runs on the thread of a cron request, see {@code PullQueueTaskController}, since
+ * App Engine API calls fail on threads it didn't create and automatic scaling instances are not
+ * kept alive to poll. A run leases batch after batch while the leases come back full, until {@link
+ * QueueProperties.Consumer#getBudgetMillis()} is used up, and leaves the rest to the next run.
+ * Batches are not extended, their lease has to outlast the processing of a batch.
+ *
+ * <p>The batches of a tag are processed one after the other. Runs of the same tag exclude each
+ * other through a memcache lock, so a manual or retried run can't overlap the cron run and commit
+ * an older write of a key after a newer one leased in another batch. A run finding the lock taken
+ * returns without leasing.
+ *
+ * <p>Tasks a handler did not process are leased again once their lease expires. A task which was
+ * leased {@link QueueProperties.Consumer#getMaxRetries()} times without being processed is moved
+ * to the {@link DeadLetter}s, so a malformed payload can't stall its tag.
+ *
+ * <p>Processed, failed and dead lettered tasks are counted as {@code queue.tasks}, batches are
+ * timed as {@code queue.batch}, both tagged with the task tag. The age of the oldest task of the
+ * queue seen by the latest run is exposed as the {@code queue.lag} gauge.
+ */
+@Component
+public class PullQueueConsumer {
+  private static final Logger logger = LoggerFactory.getLogger(PullQueueConsumer.class);
+
+  private static final String LOCK_KEY_PREFIX = "queue:consumer:";
+
+  private final Queue queue;
+  private final MemcacheService memcacheService;
+  private final Map<String, TagConsumer> consumers = new HashMap<>();
+  private final AtomicLong lagMillis = new AtomicLong();
+
+  @Autowired
+  public PullQueueConsumer(
+      @Qualifier(QueueNames.BATCH_SAVE_PULL_QUEUE) Queue queue,
+      MemcacheService memcacheService,
+      List<PullQueueHandler> handlers,
+      QueueProperties properties,
+      MeterRegistry meterRegistry) {
+    this.queue = queue;
+    this.memcacheService = memcacheService;
+    handlers.forEach(
+        handler ->
+            consumers.put(
+                handler.getTag(),
+                new TagConsumer(handler, properties.getConsumer(handler.getTag()), meterRegistry)));
+
+    Gauge.builder("queue.lag", lagMillis, AtomicLong::get)
+        .description("Age of the oldest task in the pull queue")
+        .baseUnit("milliseconds")
+        .register(meterRegistry);
+  }
+
+  /** Whether a handler consumes the given tag. */
+  public boolean handles(String tag) {
+    return consumers.containsKey(tag);
+  }
+
+  /**
+   * Consumes the tasks of a tag on the calling thread, which has to be a request thread.
+   *
+   * @param tag the task tag
+   * @return the number of leased tasks, 0 if another run of the tag holds the lock
+   * @throws IllegalArgumentException if no handler consumes the tag
+   */
+  public int consume(String tag) {
+    TagConsumer consumer = consumers.get(tag);
+    if (consumer == null) {
+      throw new IllegalArgumentException("No pull queue handler for tag " + tag);
+    }
+
+    String lockKey = LOCK_KEY_PREFIX + tag;
+    if (!memcacheService.put(
+        lockKey,
+        Boolean.TRUE,
+        Expiration.byDeltaMillis((int) consumer.getMaxRunMillis()),
+        MemcacheService.SetPolicy.ADD_ONLY_IF_NOT_PRESENT)) {
+      logger.info("Tasks of tag {} are already being consumed", tag);
+      return 0;
+    }
+
+    try {
+      int leased = consumer.run();
+      lagMillis.set(fetchLagMillis());
+      return leased;
+    } finally {
+      memcacheService.delete(lockKey);
+    }
+  }
+
+  private long fetchLagMillis() {
+    try {
+      long oldestEtaUsec = queue.fetchStatistics().getOldestEtaUsec();
+      if (oldestEtaUsec <= 0L) {
+        return 0L;
+      }
+      long oldestEtaMillis = TimeUnit.MICROSECONDS.toMillis(oldestEtaUsec);
+      return Math.max(0L, System.currentTimeMillis() - oldestEtaMillis);
+    } catch (RuntimeException e) {
+      logger.warn("Queue statistics could not be fetched", e);
+      return lagMillis.get();
+    }
+  }
+
+  private final class TagConsumer {
+    private final PullQueueHandler handler;
+    private final QueueProperties.Consumer settings;
+    private final Counter processed;
+    private final Counter failed;
+    private final Counter deadLetters;
+    private final Timer batchTimer;
+
+    private TagConsumer(
+        PullQueueHandler handler, QueueProperties.Consumer settings, MeterRegistry meterRegistry) {
+      this.handler = handler;
+      this.settings = settings;
+      this.processed = taskCounter(meterRegistry, handler.getTag(), "processed");
+      this.failed = taskCounter(meterRegistry, handler.getTag(), "failed");
+      this.deadLetters = taskCounter(meterRegistry, handler.getTag(), "dead-letter");
+      this.batchTimer = meterRegistry.timer("queue.batch", "tag", handler.getTag());
+    }
+
+    // The last batch may start right before the budget is used up and take up to its lease.
+    private long getMaxRunMillis() {
+      return settings.getBudgetMillis() + TimeUnit.SECONDS.toMillis(settings.getLeaseSeconds());
+    }
+
+    private int run() {
+      long deadline = System.currentTimeMillis() + settings.getBudgetMillis();
+      int leased = 0;
+      List<TaskHandle> tasks;
+      do {
+        tasks =
+            queue.leaseTasksByTag(
+                settings.getLeaseSeconds(),
+                TimeUnit.SECONDS,
+                settings.getMaxBatch(),
+                handler.getTag());
+        if (!tasks.isEmpty()) {
+          process(tasks);
+          leased += tasks.size();
+        }
+      } while (tasks.size() >= settings.getMaxBatch() && System.currentTimeMillis() < deadline);
+      return leased;
+    }
+
+    private void process(List<TaskHandle> tasks) {
+      Timer.Sample sample = Timer.start();
+      List<TaskHandle> settled = Collections.emptyList();
+      try {
+        settled = handler.handle(tasks);
+      } catch (RuntimeException e) {
+        logger.error("A batch of {} tasks of tag {} failed", tasks.size(), handler.getTag(), e);
+      } finally {
+        sample.stop(batchTimer);
+      }
+
+      try {
+        List<TaskHandle> deletable = new ArrayList<>(settled);
+        deletable.addAll(buryFailed(tasks, settled));
+        if (!deletable.isEmpty()) {
+          queue.deleteTask(deletable);
+        }
+        processed.increment(settled.size());
+        failed.increment(tasks.size() - settled.size());
+      } catch (RuntimeException e) {
+        logger.error("Tasks of tag {} could not be settled", handler.getTag(), e);
+      }
+    }
+
+    // Moves the failed tasks which ran out of retries to the dead letters and returns them.
+    private List<TaskHandle> buryFailed(List<TaskHandle> tasks, List<TaskHandle> settled) {
+      Set<String> settledNames = new HashSet<>();
+      settled.forEach(task -> settledNames.add(task.getName()));
+
+      List<TaskHandle> buried = new ArrayList<>();
+      List<DeadLetter> letters = new ArrayList<>();
+      for (TaskHandle task : tasks) {
+        int retryCount = task.getRetryCount() == null ? 0 : task.getRetryCount();
+        if (!settledNames.contains(task.getName()) && retryCount >= settings.getMaxRetries()) {
+          buried.add(task);
+          letters.add(
+              DeadLetter.create(task.getName(), handler.getTag(), task.getPayload(), retryCount));
+        }
+      }
+
+      if (!letters.isEmpty()) {
+        ObjectifyService.run(() -> ofy().save().entities(letters).now());
+        deadLetters.increment(letters.size());
+        logger.warn(
+            "Moved {} tasks of tag {} to the dead letters", letters.size(), handler.getTag());
+      }
+      return buried;
+    }
+
+    private Counter taskCounter(MeterRegistry meterRegistry, String tag, String outcome) {
+      return meterRegistry.counter("queue.tasks", "tag", tag, "outcome", outcome);
+    }
+  }
+}
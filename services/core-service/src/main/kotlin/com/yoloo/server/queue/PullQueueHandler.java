@@ -0,0 +1,24 @@
+package com.yoloo.server.queue;
+
+import com.google.appengine.api.taskqueue.TaskHandle;
+
+import java.util.List;
+
+/**
+ * Processes the tasks of one tag of {@link QueueNames#BATCH_SAVE_PULL_QUEUE}. Handlers are picked
+ * up by {@link PullQueueConsumer}, which leases the tasks and deletes the settled ones.
+ */
+public interface PullQueueHandler {
+
+  /** Tag of the handled tasks, also the key of its settings in {@link QueueProperties}. */
+  String getTag();
+
+  /**
+   * Processes a leased batch. Tasks which are not returned are leased again once their lease
+   * expires, so a handler throwing an exception gets the whole batch again.
+   *
+   * @param tasks the leased tasks
+   * @return the tasks to delete
+   */
+  List<TaskHandle> handle(List<TaskHandle> tasks);
+}
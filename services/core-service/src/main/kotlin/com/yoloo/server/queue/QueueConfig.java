@@ -14,4 +14,10 @@ public class QueueConfig {
   public Queue batchSavePullQueue() {
     return QueueFactory.getQueue(QueueNames.BATCH_SAVE_PULL_QUEUE);
   }
+
+  @Lazy
+  @Bean(QueueNames.FEED_SYNC_QUEUE)
+  public Queue feedSyncQueue() {
+    return QueueFactory.getQueue(QueueNames.FEED_SYNC_QUEUE);
+  }
 }
@@ -4,5 +4,11 @@ public final class QueueNames {
 
   public static final String BATCH_SAVE_PULL_QUEUE = "batch-save-pull-queue";
 
+  /** Push queue of the projection updates handled by the feed service. */
+  public static final String FEED_SYNC_QUEUE = "feed-sync-queue";
+
+  /** Tag of the save and delete payloads in {@link #BATCH_SAVE_PULL_QUEUE}. */
+  public static final String DEFAULT_TAG = "default";
+
   private QueueNames() {}
 }
@@ -0,0 +1,16 @@
+package com.yoloo.server.queue;
+
+import com.yoloo.server.objectify.ObjectifyConfigurer;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Collection;
+import java.util.Collections;
+
+@Configuration
+public class QueueObjectifyConfig implements ObjectifyConfigurer {
+
+  @Override
+  public Collection<Class<?>> registerEntities() {
+    return Collections.singletonList(DeadLetter.class);
+  }
+}
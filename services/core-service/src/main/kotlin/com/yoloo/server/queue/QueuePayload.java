@@ -1,35 +1,98 @@
 package com.yoloo.server.queue;
 
-import com.fasterxml.jackson.annotation.JsonCreator;
+import com.googlecode.objectify.Key;
 
 public final class QueuePayload {
   private final Type type;
   private final Object payload;
+  private final String kind;
+  private final String key;
+  private final long createdAt;
 
-  @JsonCreator
-  QueuePayload(Type type, Object payload) {
+  QueuePayload(Type type, Object payload, String kind, String key, long createdAt) {
     this.type = type;
     this.payload = payload;
+    this.kind = kind;
+    this.key = key;
+    this.createdAt = createdAt;
   }
 
+  /**
+   * Saves an entity which may already exist.
+   *
+   * @param payload the entity
+   * @return the payload
+   */
   public static QueuePayload save(Object payload) {
-    return new QueuePayload(Type.SAVE, payload);
+    return ofEntity(Type.SAVE, payload);
+  }
+
+  /**
+   * Saves an entity which is created by this payload, so a later delete of the same key cancels
+   * both of them.
+   *
+   * @param payload the entity
+   * @return the payload
+   */
+  public static QueuePayload insert(Object payload) {
+    return ofEntity(Type.INSERT, payload);
   }
 
   public static QueuePayload delete(String urlSafeString) {
-    return new QueuePayload(Type.DELETE, urlSafeString);
+    return new QueuePayload(
+        Type.DELETE,
+        urlSafeString,
+        Key.create(urlSafeString).getKind(),
+        urlSafeString,
+        System.currentTimeMillis());
+  }
+
+  private static QueuePayload ofEntity(Type type, Object payload) {
+    Key<Object> key = Key.create(payload);
+    return new QueuePayload(
+        type, payload, key.getKind(), key.toUrlSafe(), System.currentTimeMillis());
   }
 
   public Type getType() {
     return type;
   }
 
+  /** The entity to save, or the url safe key to delete. */
   public Object getPayload() {
     return payload;
   }
 
+  public String getKind() {
+    return kind;
+  }
+
+  /** Url safe key of the entity. */
+  public String getKey() {
+    return key;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
   public enum Type {
-    SAVE,
-    DELETE
+    SAVE(1),
+    DELETE(2),
+    INSERT(3);
+
+    final byte code;
+
+    Type(int code) {
+      this.code = (byte) code;
+    }
+
+    static Type of(byte code) {
+      for (Type type : values()) {
+        if (type.code == code) {
+          return type;
+        }
+      }
+      throw new IllegalArgumentException("Unknown payload type " + code);
+    }
   }
 }
@@ -0,0 +1,108 @@
+package com.yoloo.server.queue;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Reduces the payloads touching the same entity to the newest one.
+ *
+ * <p>A key whose newest payload is a delete and whose oldest payload is an insert did not exist
+ * before the payloads were queued, so the whole group cancels out and nothing is written. Payloads
+ * without a key are passed through unchanged.
+ */
+final class QueuePayloadCoalescer {
+
+  private QueuePayloadCoalescer() {}
+
+  /**
+   * Coalesces the payloads of the given items.
+   *
+   * @param items the items, usually leased tasks
+   * @param payloadOf reads the payload of an item
+   * @param <T> the item type
+   * @return the payloads to write and the items which don't need a write
+   */
+  static <T> Result<T> coalesce(List<T> items, Function<T, QueuePayload> payloadOf) {
+    Map<String, List<Entry<T>>> byKey = new LinkedHashMap<>();
+    Result<T> result = new Result<>();
+    for (T item : items) {
+      QueuePayload payload = payloadOf.apply(item);
+      if (payload.getKey() == null) {
+        result.writes.add(new Write<>(payload, Collections.singletonList(item)));
+      } else {
+        byKey
+            .computeIfAbsent(payload.getKey(), k -> new ArrayList<>())
+            .add(new Entry<>(item, payload));
+      }
+    }
+
+    byKey.values().forEach(entries -> reduce(entries, result));
+    return result;
+  }
+
+  private static <T> void reduce(List<Entry<T>> entries, Result<T> result) {
+    // the sort is stable, so payloads of the same millisecond keep their queue order
+    entries.sort(Comparator.comparingLong(e -> e.payload.getCreatedAt()));
+
+    List<T> items = new ArrayList<>(entries.size());
+    entries.forEach(e -> items.add(e.item));
+
+    QueuePayload oldest = entries.get(0).payload;
+    QueuePayload newest = entries.get(entries.size() - 1).payload;
+    if (newest.getType() == QueuePayload.Type.DELETE
+        && oldest.getType() == QueuePayload.Type.INSERT) {
+      result.cancelled.addAll(items);
+    } else {
+      result.writes.add(new Write<>(newest, items));
+    }
+  }
+
+  static final class Result<T> {
+    private final List<Write<T>> writes = new ArrayList<>();
+    private final List<T> cancelled = new ArrayList<>();
+
+    /** The payloads to write, at most one per key. */
+    List<Write<T>> getWrites() {
+      return writes;
+    }
+
+    /** Items whose payloads cancelled each other out. */
+    List<T> getCancelled() {
+      return cancelled;
+    }
+  }
+
+  static final class Write<T> {
+    private final QueuePayload payload;
+    private final List<T> items;
+
+    private Write(QueuePayload payload, List<T> items) {
+      this.payload = payload;
+      this.items = items;
+    }
+
+    QueuePayload getPayload() {
+      return payload;
+    }
+
+    /** Items which are settled once the payload is written. */
+    List<T> getItems() {
+      return items;
+    }
+  }
+
+  private static final class Entry<T> {
+    private final T item;
+    private final QueuePayload payload;
+
+    private Entry(T item, QueuePayload payload) {
+      this.item = item;
+      this.payload = payload;
+    }
+  }
+}
@@ -0,0 +1,101 @@
+package com.yoloo.server.queue;
+
+import com.googlecode.objectify.Key;
+import org.springframework.stereotype.Component;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary envelope of the {@link QueuePayload}s exchanged through the pull queue. An envelope is a
+ * 10 byte header (version, type and creation timestamp in millis) followed by the entity kind and
+ * the url safe key, both prefixed with their length, and the entity encoded by the {@link
+ * PayloadCodec} of its kind. Deletes carry no entity.
+ */
+@Component
+public class QueuePayloadCodec {
+
+  private static final byte VERSION = 1;
+  private static final int HEADER_SIZE = Byte.BYTES + Byte.BYTES + Long.BYTES;
+
+  private final Map<String, PayloadCodec<?>> codecs = new HashMap<>();
+
+  public QueuePayloadCodec(List<PayloadCodec<?>> codecs) {
+    codecs.forEach(codec -> this.codecs.put(Key.getKind(codec.getType()), codec));
+  }
+
+  public byte[] encode(QueuePayload payload) {
+    byte[] kind = payload.getKind().getBytes(StandardCharsets.UTF_8);
+    byte[] key = payload.getKey().getBytes(StandardCharsets.UTF_8);
+    byte[] body =
+        payload.getType() == QueuePayload.Type.DELETE
+            ? new byte[0]
+            : encodeEntity(codecOf(payload.getKind()), payload.getPayload());
+
+    int size = HEADER_SIZE + Short.BYTES + kind.length + Short.BYTES + key.length + body.length;
+    return ByteBuffer.allocate(size)
+        .put(VERSION)
+        .put(payload.getType().code)
+        .putLong(payload.getCreatedAt())
+        .putShort((short) kind.length)
+        .put(kind)
+        .putShort((short) key.length)
+        .put(key)
+        .put(body)
+        .array();
+  }
+
+  /**
+   * Reads an envelope written by {@link #encode(QueuePayload)}.
+   *
+   * @param bytes the envelope
+   * @return the payload
+   * @throws IllegalArgumentException if the bytes are not an envelope or its kind has no codec
+   */
+  public QueuePayload decode(byte[] bytes) {
+    if (bytes.length == 0 || bytes[0] != VERSION) {
+      throw new IllegalArgumentException("Unsupported queue payload");
+    }
+
+    try {
+      ByteBuffer bb = ByteBuffer.wrap(bytes);
+      bb.get();
+      QueuePayload.Type type = QueuePayload.Type.of(bb.get());
+      long createdAt = bb.getLong();
+      String kind = readString(bb);
+      String key = readString(bb);
+
+      if (type == QueuePayload.Type.DELETE) {
+        return new QueuePayload(type, key, kind, key, createdAt);
+      }
+      byte[] body = Arrays.copyOfRange(bytes, bb.position(), bytes.length);
+      return new QueuePayload(type, codecOf(kind).decode(body), kind, key, createdAt);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalArgumentException("Truncated queue payload", e);
+    }
+  }
+
+  private PayloadCodec<?> codecOf(String kind) {
+    PayloadCodec<?> codec = codecs.get(kind);
+    if (codec == null) {
+      throw new IllegalArgumentException("No payload codec for kind " + kind);
+    }
+    return codec;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> byte[] encodeEntity(PayloadCodec<T> codec, Object entity) {
+    return codec.encode((T) entity);
+  }
+
+  private static String readString(ByteBuffer bb) {
+    byte[] bytes = new byte[bb.getShort() & 0xFFFF];
+    bb.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
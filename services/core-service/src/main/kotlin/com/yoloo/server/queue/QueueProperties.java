@@ -0,0 +1,90 @@
+package com.yoloo.server.queue;
+
+import com.google.appengine.api.taskqueue.QueueConstants;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "queue")
+public class QueueProperties {
+  /** Number of entities written in one datastore commit, the datastore accepts at most 500. */
+  private int batchChunkSize = 500;
+
+  /** Consumer settings keyed by task tag, see {@link PullQueueConsumer}. */
+  private Map<String, Consumer> consumers = new HashMap<>();
+
+  public int getBatchChunkSize() {
+    return batchChunkSize;
+  }
+
+  public void setBatchChunkSize(int batchChunkSize) {
+    this.batchChunkSize = batchChunkSize;
+  }
+
+  public Map<String, Consumer> getConsumers() {
+    return consumers;
+  }
+
+  public void setConsumers(Map<String, Consumer> consumers) {
+    this.consumers = consumers;
+  }
+
+  /**
+   * Returns the consumer settings of the given tag.
+   *
+   * @param tag the task tag
+   * @return the configured settings, or the defaults if the tag is not configured
+   */
+  public Consumer getConsumer(String tag) {
+    return consumers.getOrDefault(tag, new Consumer());
+  }
+
+  public static class Consumer {
+    /** How long leased tasks stay invisible to other consumers, must outlast a batch. */
+    private long leaseSeconds = 600L;
+
+    /** Number of tasks leased at once, the queue accepts at most 1000. */
+    private int maxBatch = QueueConstants.maxLeaseCount();
+
+    /** After this long a run stops leasing more batches, keep it below the cron interval. */
+    private long budgetMillis = 30_000L;
+
+    /** A task which is leased this many times without being processed becomes a dead letter. */
+    private int maxRetries = 5;
+
+    public long getLeaseSeconds() {
+      return leaseSeconds;
+    }
+
+    public void setLeaseSeconds(long leaseSeconds) {
+      this.leaseSeconds = leaseSeconds;
+    }
+
+    public int getMaxBatch() {
+      return maxBatch;
+    }
+
+    public void setMaxBatch(int maxBatch) {
+      this.maxBatch = maxBatch;
+    }
+
+    public long getBudgetMillis() {
+      return budgetMillis;
+    }
+
+    public void setBudgetMillis(long budgetMillis) {
+      this.budgetMillis = budgetMillis;
+    }
+
+    public int getMaxRetries() {
+      return maxRetries;
+    }
+
+    public void setMaxRetries(int maxRetries) {
+      this.maxRetries = maxRetries;
+    }
+  }
+}
@@ -0,0 +1,72 @@
+package com.yoloo.server.queue;
+
+import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.QueueConstants;
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.google.common.collect.Lists;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Future;
+
+/**
+ * Adds the payloads of a request to the pull queue from the request thread. The payloads given to
+ * one call are added in batches of the queue limit, so a request publishing many payloads costs one
+ * queue call per batch instead of one per payload.
+ *
+ * <p>The calls are asynchronous and App Engine waits for them before the request completes, so a
+ * payload reaches the queue before its request is acknowledged and nothing is left behind in the
+ * instance when it is shut down.
+ */
+@Component
+public class QueuePublisher {
+
+  private final Queue queue;
+  private final QueuePayloadCodec queuePayloadCodec;
+
+  @Autowired
+  public QueuePublisher(
+      @Qualifier(QueueNames.BATCH_SAVE_PULL_QUEUE) Queue queue,
+      QueuePayloadCodec queuePayloadCodec) {
+    this.queue = queue;
+    this.queuePayloadCodec = queuePayloadCodec;
+  }
+
+  /**
+   * Publishes a payload for {@link BatchSaveDeleteQueueHandler}.
+   *
+   * @param payload the payload
+   * @return the pending add
+   */
+  public Future<TaskHandle> publish(QueuePayload payload) {
+    return queue.addAsync(toTask(payload));
+  }
+
+  /**
+   * Publishes the payloads of a request for {@link BatchSaveDeleteQueueHandler}.
+   *
+   * @param payloads the payloads
+   * @return the pending adds, one per batch
+   */
+  public List<Future<List<TaskHandle>>> publish(Collection<QueuePayload> payloads) {
+    List<TaskOptions> tasks = new ArrayList<>(payloads.size());
+    payloads.forEach(payload -> tasks.add(toTask(payload)));
+
+    List<Future<List<TaskHandle>>> added = new ArrayList<>();
+    for (List<TaskOptions> batch : Lists.partition(tasks, QueueConstants.maxTasksPerAdd())) {
+      added.add(queue.addAsync(batch));
+    }
+    return added;
+  }
+
+  private TaskOptions toTask(QueuePayload payload) {
+    return TaskOptions.Builder.withMethod(TaskOptions.Method.PULL)
+        .tag(QueueNames.DEFAULT_TAG)
+        .payload(queuePayloadCodec.encode(payload));
+  }
+}
@@ -0,0 +1,28 @@
+package com.yoloo.server.queue.api
+
+import com.yoloo.server.common.vo.CollectionResponse
+import com.yoloo.server.queue.usecase.ListDeadLettersUseCase
+import com.yoloo.server.queue.vo.DeadLetterResponse
+import org.springframework.http.MediaType
+import org.springframework.security.access.prepost.PreAuthorize
+import org.springframework.web.bind.annotation.GetMapping
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.RequestParam
+import org.springframework.web.bind.annotation.RestController
+
+@RequestMapping(
+    "/api/admin/dead-letters",
+    produces = [MediaType.APPLICATION_JSON_UTF8_VALUE]
+)
+@RestController
+class DeadLetterController(private val listDeadLettersUseCase: ListDeadLettersUseCase) {
+
+    @PreAuthorize("hasAuthority('ADMIN')")
+    @GetMapping
+    fun listDeadLetters(
+        @RequestParam(value = "tag", required = false) tag: String?,
+        @RequestParam(value = "cursor", required = false) cursor: String?
+    ): CollectionResponse<DeadLetterResponse> {
+        return listDeadLettersUseCase.execute(tag, cursor)
+    }
+}
@@ -0,0 +1,23 @@
+package com.yoloo.server.queue.api
+
+import com.yoloo.server.common.exception.exception.ServiceExceptions.checkNotFound
+import com.yoloo.server.queue.PullQueueConsumer
+import org.springframework.http.HttpStatus
+import org.springframework.web.bind.annotation.GetMapping
+import org.springframework.web.bind.annotation.PathVariable
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.ResponseStatus
+import org.springframework.web.bind.annotation.RestController
+
+@RestController
+@RequestMapping("/_ah/tasks/pull")
+class PullQueueTaskController(private val pullQueueConsumer: PullQueueConsumer) {
+
+    @GetMapping("/{tag}")
+    @ResponseStatus(HttpStatus.OK)
+    fun consume(@PathVariable("tag") tag: String) {
+        checkNotFound(pullQueueConsumer.handles(tag), "queue.tag.not_found")
+
+        pullQueueConsumer.consume(tag)
+    }
+}
@@ -0,0 +1,48 @@
+package com.yoloo.server.queue.usecase
+
+import com.google.cloud.datastore.Cursor
+import com.googlecode.objectify.ObjectifyService.ofy
+import com.yoloo.server.common.vo.CollectionResponse
+import com.yoloo.server.queue.DeadLetter
+import com.yoloo.server.queue.vo.DeadLetterResponse
+import org.springframework.stereotype.Service
+import java.util.Base64
+
+@Service
+class ListDeadLettersUseCase {
+
+    fun execute(tag: String?, cursor: String?): CollectionResponse<DeadLetterResponse> {
+        var query = ofy().load().type(DeadLetter::class.java)
+
+        tag?.let { query = query.filter(DeadLetter.INDEX_TAG, it) }
+        cursor?.let { query = query.startAt(Cursor.fromUrlSafe(it)) }
+
+        val queryResults = query.limit(PAGE_SIZE).iterator()
+
+        return queryResults
+            .asSequence()
+            .map { mapToResponse(it) }
+            .toList()
+            .let {
+                CollectionResponse.builder<DeadLetterResponse>()
+                    .data(it)
+                    .prevPageToken(cursor)
+                    .nextPageToken(queryResults.cursorAfter.toUrlSafe())
+                    .build()
+            }
+    }
+
+    private fun mapToResponse(deadLetter: DeadLetter): DeadLetterResponse {
+        return DeadLetterResponse(
+            id = deadLetter.id,
+            tag = deadLetter.tag,
+            retryCount = deadLetter.retryCount,
+            createdAt = deadLetter.createdAt,
+            payload = Base64.getEncoder().encodeToString(deadLetter.payload)
+        )
+    }
+
+    companion object {
+        private const val PAGE_SIZE = 50
+    }
+}
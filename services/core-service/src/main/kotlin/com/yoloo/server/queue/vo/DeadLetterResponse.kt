@@ -0,0 +1,11 @@
+package com.yoloo.server.queue.vo
+
+import java.time.Instant
+
+data class DeadLetterResponse(
+    val id: String,
+    val tag: String,
+    val retryCount: Int,
+    val createdAt: Instant,
+    val payload: String
+)
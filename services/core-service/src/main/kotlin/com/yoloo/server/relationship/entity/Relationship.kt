@@ -10,7 +10,7 @@ import com.yoloo.server.entity.BaseEntity
 import com.yoloo.server.entity.Relationable
 import com.yoloo.server.user.entity.User
 import com.yoloo.server.user.vo.DisplayName
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
 @NoArg
 @Entity
@@ -30,7 +30,7 @@ data class Relationship(
 ) : BaseEntity<Relationship>() {
 
     companion object {
-        const val KEY_FILTER_RELATIONSHIP = "FILTER_RELATIONSHIP"
+        const val KEY_FILTER_RELATIONSHIP = "FILTER_RELATIONSHIP_V2"
 
         const val INDEX_FROM_ID = "fromId"
         const val INDEX_TO_ID = "toId"
@@ -51,7 +51,7 @@ data class Relationship(
             return Key.create(Relationship::class.java, createId(fromId, toId))
         }
 
-        fun isFollowing(filter: NanoCuckooFilter, fromId: Long, toId: Long): Boolean {
+        fun isFollowing(filter: CuckooFilter, fromId: Long, toId: Long): Boolean {
             return filter.contains(createId(fromId, toId))
         }
 
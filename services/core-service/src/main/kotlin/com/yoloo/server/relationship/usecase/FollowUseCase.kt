@@ -1,16 +1,20 @@
 package com.yoloo.server.relationship.usecase
 
-import com.google.appengine.api.memcache.AsyncMemcacheService
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
 import com.yoloo.server.common.exception.exception.ServiceExceptions.checkConflict
+import com.yoloo.server.filter.FilterKind
+import com.yoloo.server.filter.FilterService
+import com.yoloo.server.queue.FeedSyncPublisher
 import com.yoloo.server.relationship.entity.Relationship
 import com.yoloo.server.user.entity.User
-import net.cinnom.nanocuckoo.NanoCuckooFilter
 import org.springframework.stereotype.Service
 
 @Service
-class FollowUseCase(private val memcacheService: AsyncMemcacheService) {
+class FollowUseCase(
+    private val filterService: FilterService,
+    private val feedSyncPublisher: FeedSyncPublisher
+) {
 
     fun execute(fromId: Long, toId: Long) {
         val map = ofy().load().type(User::class.java).ids(fromId, toId)
@@ -19,18 +23,17 @@ class FollowUseCase(private val memcacheService: AsyncMemcacheService) {
 
         ServiceExceptions.checkNotFound(toUser != null, "user.not_found")
 
-        val relationshipFilter = memcacheService.get(Relationship.KEY_FILTER_RELATIONSHIP).get() as NanoCuckooFilter
-
-        checkConflict(!isFollowing(relationshipFilter, fromId, toId), "relationship.conflict")
+        checkConflict(!filterService.contains(FilterKind.RELATIONSHIP, fromId, toId), "relationship.conflict")
 
         fromUser!!.follow(toUser!!)
 
         val relationship = Relationship.create(fromUser, toUser)
-        relationshipFilter.insert(relationship.id)
 
         ofy().save().entities(fromUser, toUser, relationship)
 
-        memcacheService.put(Relationship.KEY_FILTER_RELATIONSHIP, relationshipFilter)
+        filterService.add(FilterKind.RELATIONSHIP, fromId, toId)
+
+        feedSyncPublisher.followed(fromId, toId)
 
         addToNotificationQueue(toUser.fcmToken, fromUser)
     }
@@ -44,8 +47,4 @@ class FollowUseCase(private val memcacheService: AsyncMemcacheService) {
 
         notificationQueueService.addQueueAsync(event)*/
     }
-
-    private fun isFollowing(filter: NanoCuckooFilter, fromId: Long, toId: Long): Boolean {
-        return filter.contains(Relationship.createId(fromId, toId))
-    }
 }
@@ -1,8 +1,10 @@
 package com.yoloo.server.user.config
 
+import com.arcticicestudio.icecore.hashids.Hashids
 import com.google.appengine.api.memcache.AsyncMemcacheService
 import com.google.appengine.api.memcache.MemcacheService
 import com.google.firebase.auth.FirebaseAuth
+import com.yoloo.server.filter.FilterService
 import com.yoloo.server.user.mapper.UserResponseMapper
 import com.yoloo.server.user.usecase.*
 import com.yoloo.spring.autoconfiguration.id.generator.IdFactory.LongIdGenerator
@@ -40,8 +42,12 @@ class UserUseCaseConfig {
 
     @Lazy
     @Bean
-    fun getUserUseCase(memcacheService: MemcacheService, userResponseMapper: UserResponseMapper): GetUserUseCase {
-        return GetUserUseCase(memcacheService, userResponseMapper)
+    fun getUserUseCase(
+        hashids: Hashids,
+        filterService: FilterService,
+        userResponseMapper: UserResponseMapper
+    ): GetUserUseCase {
+        return GetUserUseCase(hashids, filterService, userResponseMapper)
     }
 
     @Lazy
@@ -74,7 +74,7 @@ data class User(
     companion object {
         const val CACHE_TTL = 7200
 
-        const val KEY_FILTER_USER_IDENTIFIER = "FILTER_IDENTIFIER"
+        const val KEY_FILTER_USER_IDENTIFIER = "FILTER_IDENTIFIER_V2"
 
         const val INDEX_EMAIL = "email.email"
 
@@ -7,6 +7,8 @@ import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
 import com.yoloo.server.common.vo.Ip
 import com.yoloo.server.common.vo.Url
+import com.yoloo.server.filter.getFilters
+import com.yoloo.server.filter.putFilter
 import com.yoloo.server.group.entity.Group
 import com.yoloo.server.group.entity.Subscription
 import com.yoloo.server.relationship.entity.Relationship
@@ -16,8 +18,8 @@ import com.yoloo.server.user.provider.EmailUserRecordProvider
 import com.yoloo.server.user.provider.FacebookUserRecordProvider
 import com.yoloo.server.user.provider.GoogleUserRecordProvider
 import com.yoloo.server.user.vo.*
+import com.yoloo.server.util.sketch.CuckooFilter
 import com.yoloo.spring.autoconfiguration.id.generator.IdFactory.LongIdGenerator
-import net.cinnom.nanocuckoo.NanoCuckooFilter
 import org.springframework.http.HttpHeaders
 import org.springframework.http.HttpStatus
 import org.springframework.http.ResponseEntity
@@ -34,17 +36,15 @@ class CreateUserUseCase(
 ) {
 
     fun execute(request: UserCreateRequest): ResponseEntity<UserResponse> {
-        val cacheMap = memcacheService.getAll(
+        val cacheMap = memcacheService.getFilters(
             listOf(
                 User.KEY_FILTER_USER_IDENTIFIER,
-                Subscription.KEY_FILTER_SUBSCRIPTION,
-                Relationship.KEY_FILTER_RELATIONSHIP
+                Subscription.KEY_FILTER_SUBSCRIPTION
             )
-        ).get()
+        )
 
-        val userIdentityFilter = cacheMap[User.KEY_FILTER_USER_IDENTIFIER] as NanoCuckooFilter
-        val subcriptionFilter = cacheMap[Subscription.KEY_FILTER_SUBSCRIPTION] as NanoCuckooFilter
-        val relationshipFilter = cacheMap[Relationship.KEY_FILTER_RELATIONSHIP] as NanoCuckooFilter
+        val userIdentityFilter = cacheMap.getValue(User.KEY_FILTER_USER_IDENTIFIER)
+        val subcriptionFilter = cacheMap.getValue(Subscription.KEY_FILTER_SUBSCRIPTION)
 
         ServiceExceptions.checkConflict(!userIdentityFilter.contains(User.KEY_FILTER_USER_IDENTIFIER), "user.conflict")
 
@@ -165,7 +165,7 @@ class CreateUserUseCase(
 
     private fun saveTx(
         user: User,
-        filter: NanoCuckooFilter
+        filter: CuckooFilter
     ) {
         ofy().transact {
             saveEmailFilter(filter, user.email.email)
@@ -176,9 +176,9 @@ class CreateUserUseCase(
         }
     }
 
-    private fun saveEmailFilter(filter: NanoCuckooFilter, email: String) {
+    private fun saveEmailFilter(filter: CuckooFilter, email: String) {
         filter.insert(email)
-        memcacheService.put(User.KEY_FILTER_USER_IDENTIFIER, filter)
+        memcacheService.putFilter(User.KEY_FILTER_USER_IDENTIFIER, filter)
     }
 
     private fun getFollowedUsers(userIds: List<Long>): Collection<User> {
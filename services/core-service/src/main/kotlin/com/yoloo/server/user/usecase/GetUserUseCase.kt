@@ -3,8 +3,8 @@ package com.yoloo.server.user.usecase
 import com.arcticicestudio.icecore.hashids.Hashids
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions.checkNotFound
+import com.yoloo.server.filter.FilterKind
 import com.yoloo.server.filter.FilterService
-import com.yoloo.server.relationship.entity.Relationship
 import com.yoloo.server.usecase.AbstractUseCase
 import com.yoloo.server.user.entity.User
 import com.yoloo.server.user.exception.UserErrors
@@ -21,15 +21,13 @@ class GetUserUseCase(
         val requesterId = hashids.decode(input.requesterId)[0]
         val targetId = hashids.decode(input.targetId)[0]
 
-        val entityCache = filterService.getAll()
-
-        checkNotFound(entityCache.contains(requesterId), UserErrors.NOT_FOUND)
-        checkNotFound(entityCache.contains(targetId), UserErrors.NOT_FOUND)
+        checkNotFound(filterService.contains(FilterKind.USER, requesterId), UserErrors.NOT_FOUND)
+        checkNotFound(filterService.contains(FilterKind.USER, targetId), UserErrors.NOT_FOUND)
 
         val user = ofy().load().key(User.createKey(targetId)).now()
 
         val self = targetId == requesterId
-        val following = entityCache.contains(Relationship.createId(requesterId, targetId))
+        val following = filterService.contains(FilterKind.RELATIONSHIP, requesterId, targetId)
 
         return userResponseMapper.apply(user, self, following)
     }
@@ -3,10 +3,12 @@ package com.yoloo.server.user.usecase
 import com.google.appengine.api.memcache.MemcacheService
 import com.googlecode.objectify.ObjectifyService.ofy
 import com.yoloo.server.common.exception.exception.ServiceExceptions
+import com.yoloo.server.filter.getFilter
+import com.yoloo.server.filter.putFilter
 import com.yoloo.server.user.entity.User
 import com.yoloo.server.user.vo.Email
 import com.yoloo.server.user.vo.PatchUserRequest
-import net.cinnom.nanocuckoo.NanoCuckooFilter
+import com.yoloo.server.util.sketch.CuckooFilter
 
 // TODO create a task that updates displayName all other places
 class UpdateUserUseCase(
@@ -22,7 +24,7 @@ class UpdateUserUseCase(
             user.profile.displayName.value = it
         }
 
-        var userIdentifierFilter: NanoCuckooFilter? = null
+        var userIdentifierFilter: CuckooFilter? = null
         request.email?.let {
             userIdentifierFilter = getUserIdentifierFilter()
             ServiceExceptions.checkBadRequest(!userIdentifierFilter!!.contains(it), "user.email.conflict")
@@ -38,13 +40,13 @@ class UpdateUserUseCase(
             addToSearchQueue(user)
 
             if (userIdentifierFilter != null) {
-                memcacheService.put(User.KEY_FILTER_USER_IDENTIFIER, userIdentifierFilter)
+                memcacheService.putFilter(User.KEY_FILTER_USER_IDENTIFIER, userIdentifierFilter!!)
             }
         }
     }
 
-    private fun getUserIdentifierFilter(): NanoCuckooFilter {
-        return memcacheService.get(User.KEY_FILTER_USER_IDENTIFIER) as NanoCuckooFilter
+    private fun getUserIdentifierFilter(): CuckooFilter {
+        return memcacheService.getFilter(User.KEY_FILTER_USER_IDENTIFIER)
     }
 
     private fun addToSearchQueue(user: User) {
@@ -59,6 +59,11 @@ import java.nio.ByteBuffer;
  *
  * <p>so even if there are multiple hash collisions, the returned value will be the best estimate
  * (upper bound) for the given key. The actual count can never be greater than this value.
+ *
+ * <p>The counters are kept in a single row-major array, so the d probes of a key hit one object.
+ * In conservative update mode, adding a key only raises the counters that are below the new
+ * estimate of the key instead of incrementing all of them, which reduces over-estimation. The
+ * estimates stay upper bounds as long as only non-negative counts are added.
  */
 public class CountMinSketch {
   // 1% estimation error with 1% probability (99% confidence) that the estimation breaks this limit
@@ -66,43 +71,42 @@ public class CountMinSketch {
   private static final float DEFAULT_EPSILON = 0.01f;
   private final int w;
   private final int d;
-  private final int[][] multiset;
+  private final boolean conservative;
+  // row-major, the counter of row i and column j is at i * w + j
+  private final int[] table;
 
   public CountMinSketch() {
     this(DEFAULT_DELTA, DEFAULT_EPSILON);
   }
 
+  public CountMinSketch(boolean conservative) {
+    this(DEFAULT_DELTA, DEFAULT_EPSILON, conservative);
+  }
+
   public CountMinSketch(float delta, float epsilon) {
-    this.w = (int) Math.ceil(Math.exp(1.0) / epsilon);
-    this.d = (int) Math.ceil(Math.log(1.0 / delta));
-    this.multiset = new int[d][w];
+    this(delta, epsilon, false);
   }
 
-  public CountMinSketch(int width, int depth) {
-    this(width, depth, new int[depth][width]);
+  public CountMinSketch(float delta, float epsilon, boolean conservative) {
+    this(
+        (int) Math.ceil(Math.exp(1.0) / epsilon),
+        (int) Math.ceil(Math.log(1.0 / delta)),
+        conservative);
   }
 
-  private CountMinSketch(int width, int depth, int[][] ms) {
-    this.w = width;
-    this.d = depth;
-    this.multiset = ms;
+  public CountMinSketch(int width, int depth) {
+    this(width, depth, false);
   }
 
-  private static byte[] intToByteArrayLE(int val) {
-    return new byte[] {(byte) (val), (byte) (val >> 8), (byte) (val >> 16), (byte) (val >> 24)};
+  public CountMinSketch(int width, int depth, boolean conservative) {
+    this(width, depth, conservative, new int[width * depth]);
   }
 
-  private static byte[] longToByteArrayLE(long val) {
-    return new byte[] {
-      (byte) (val),
-      (byte) (val >> 8),
-      (byte) (val >> 16),
-      (byte) (val >> 24),
-      (byte) (val >> 32),
-      (byte) (val >> 40),
-      (byte) (val >> 48),
-      (byte) (val >> 56),
-    };
+  CountMinSketch(int width, int depth, boolean conservative, int[] table) {
+    this.w = width;
+    this.d = depth;
+    this.conservative = conservative;
+    this.table = table;
   }
 
   /**
@@ -116,12 +120,7 @@ public class CountMinSketch {
     ByteBuffer bb = ByteBuffer.allocate((int) serializedSize);
     bb.putInt(cms.getWidth());
     bb.putInt(cms.getDepth());
-    for (int i = 0; i < cms.getDepth(); i++) {
-      for (int j = 0; j < cms.getWidth(); j++) {
-        bb.putInt(cms.multiset[i][j]);
-      }
-    }
-    bb.flip();
+    bb.asIntBuffer().put(cms.table);
     return bb.array();
   }
 
@@ -132,18 +131,23 @@ public class CountMinSketch {
    * @return deserialized count min sketch object
    */
   public static CountMinSketch deserialize(byte[] serialized) {
-    ByteBuffer bb = ByteBuffer.allocate(serialized.length);
-    bb.put(serialized);
-    bb.flip();
+    return deserialize(serialized, false);
+  }
+
+  /**
+   * Deserialize the serialized count min sketch.
+   *
+   * @param serialized - serialized count min sketch
+   * @param conservative - whether the sketch uses conservative update
+   * @return deserialized count min sketch object
+   */
+  public static CountMinSketch deserialize(byte[] serialized, boolean conservative) {
+    ByteBuffer bb = ByteBuffer.wrap(serialized);
     int width = bb.getInt();
     int depth = bb.getInt();
-    int[][] multiset = new int[depth][width];
-    for (int i = 0; i < depth; i++) {
-      for (int j = 0; j < width; j++) {
-        multiset[i][j] = bb.getInt();
-      }
-    }
-    return new CountMinSketch(width, depth, multiset);
+    int[] table = new int[width * depth];
+    bb.asIntBuffer().get(table);
+    return new CountMinSketch(width, depth, conservative, table);
   }
 
   public int getWidth() {
@@ -154,6 +158,15 @@ public class CountMinSketch {
     return d;
   }
 
+  public boolean isConservative() {
+    return conservative;
+  }
+
+  // Exposes the backing array to the codec, must not be modified by the caller.
+  int[] getTable() {
+    return table;
+  }
+
   /**
    * Returns the size in bytes after serialization.
    *
@@ -164,32 +177,50 @@ public class CountMinSketch {
   }
 
   public void add(byte[] key) {
-    // We use the trick mentioned in "Less Hashing, Same Performance: Building a Better Bloom
-    // Filter"
-    // by Kirsch et.al. From abstract 'only two hash functions are necessary to effectively
-    // implement a Bloom filter without any loss in the asymptotic false positive probability'
-    // The paper also proves that the same technique (using just 2 pairwise independent hash
-    // functions)
-    // can be used for Count-Min sketch.
+    add(key, 1);
+  }
 
-    // Lets split up 64-bit hashcode into two 32-bit hashcodes and employ the technique mentioned
-    // in the above paper
-    long hash64 = Murmur3.hash64(key);
-    int hash1 = (int) hash64;
-    int hash2 = (int) (hash64 >>> 32);
-    for (int i = 1; i <= d; i++) {
-      int combinedHash = hash1 + (i * hash2);
-      // hashcode should be positive, flip all the bits if it's negative
-      if (combinedHash < 0) {
-        combinedHash = ~combinedHash;
+  /**
+   * Adds the given count for the key in one pass over the rows. Coalesced updates use this instead
+   * of calling {@link #add(byte[])} count times.
+   *
+   * @param key - the key to be counted
+   * @param count - the number of occurrences to add
+   */
+  public void add(byte[] key, int count) {
+    addHash(Murmur3.hash64(key), count);
+  }
+
+  /**
+   * Adds the given count for a key whose 64-bit Murmur3 hash was computed beforehand. This lets
+   * callers ship and aggregate hashes instead of the original keys.
+   *
+   * @param hash64 - the {@link Murmur3#hash64(byte[])} of the key
+   * @param count - the number of occurrences to add, must not be negative in conservative mode
+   */
+  public void addHash(long hash64, int count) {
+    if (conservative) {
+      int target = getEstimatedCountByHash(hash64) + count;
+      for (int i = 1; i <= d; i++) {
+        int index = index(hash64, i);
+        if (table[index] < target) {
+          table[index] = target;
+        }
+      }
+    } else {
+      for (int i = 1; i <= d; i++) {
+        table[index(hash64, i)] += count;
       }
-      int pos = combinedHash % w;
-      multiset[i - 1][pos] += 1;
     }
   }
 
   public void add(String val) {
-    add(val.getBytes());
+    add(val, 1);
+  }
+
+  public void add(String val, int count) {
+    // hashes the UTF-8 bytes without encoding the string to an array first
+    addHash(Murmur3.hash64(val), count);
   }
 
   public void add(byte val) {
@@ -197,13 +228,13 @@ public class CountMinSketch {
   }
 
   public void add(int val) {
-    // puts int in little endian order
-    add(intToByteArrayLE(val));
+    // hashes the int as if it was put in little endian order
+    addHash(Murmur3.hash64(val), 1);
   }
 
   public void add(long val) {
-    // puts long in little endian order
-    add(longToByteArrayLE(val));
+    // hashes the long as if it was put in little endian order
+    addHash(Murmur3.hash64(val), 1);
   }
 
   public void add(float val) {
@@ -215,25 +246,50 @@ public class CountMinSketch {
   }
 
   public int getEstimatedCount(byte[] key) {
-    long hash64 = Murmur3.hash64(key);
-    int hash1 = (int) hash64;
-    int hash2 = (int) (hash64 >>> 32);
+    return getEstimatedCountByHash(Murmur3.hash64(key));
+  }
+
+  /**
+   * Returns the estimated count for a key given its 64-bit Murmur3 hash.
+   *
+   * @param hash64 - the {@link Murmur3#hash64(byte[])} of the key
+   * @return estimated count
+   */
+  public int getEstimatedCountByHash(long hash64) {
     int min = Integer.MAX_VALUE;
     for (int i = 1; i <= d; i++) {
-      int combinedHash = hash1 + (i * hash2);
-      // hashcode should be positive, flip all the bits if it's negative
-      if (combinedHash < 0) {
-        combinedHash = ~combinedHash;
-      }
-      int pos = combinedHash % w;
-      min = Math.min(min, multiset[i - 1][pos]);
+      min = Math.min(min, table[index(hash64, i)]);
     }
 
     return min;
   }
 
+  /**
+   * Estimates the counts of many long keys at once.
+   *
+   * @param keys - the keys to look up
+   * @param out - receives the estimate of keys[i] at index i, must be at least as long as keys
+   */
+  public void getEstimatedCounts(long[] keys, int[] out) {
+    for (int k = 0; k < keys.length; k++) {
+      out[k] = getEstimatedCountByHash(Murmur3.hash64(keys[k]));
+    }
+  }
+
+  /**
+   * Estimates the counts of many keys at once given their 64-bit Murmur3 hashes.
+   *
+   * @param hashes - the {@link Murmur3#hash64(byte[])} of the keys
+   * @param out - receives the estimate of hashes[i] at index i, must be at least as long as hashes
+   */
+  public void getEstimatedCountsByHash(long[] hashes, int[] out) {
+    for (int k = 0; k < hashes.length; k++) {
+      out[k] = getEstimatedCountByHash(hashes[k]);
+    }
+  }
+
   public int getEstimatedCount(String val) {
-    return getEstimatedCount(val.getBytes());
+    return getEstimatedCountByHash(Murmur3.hash64(val));
   }
 
   public int getEstimatedCount(byte val) {
@@ -241,11 +297,11 @@ public class CountMinSketch {
   }
 
   public int getEstimatedCount(int val) {
-    return getEstimatedCount(intToByteArrayLE(val));
+    return getEstimatedCountByHash(Murmur3.hash64(val));
   }
 
   public int getEstimatedCount(long val) {
-    return getEstimatedCount(longToByteArrayLE(val));
+    return getEstimatedCountByHash(Murmur3.hash64(val));
   }
 
   public int getEstimatedCount(float val) {
@@ -285,10 +341,30 @@ public class CountMinSketch {
               + that.getDepth());
     }
 
-    for (int i = 0; i < d; i++) {
-      for (int j = 0; j < w; j++) {
-        this.multiset[i][j] += that.multiset[i][j];
-      }
+    for (int i = 0; i < table.length; i++) {
+      this.table[i] += that.table[i];
+    }
+  }
+
+  // Position of the key in the given row (1 based), in the flat table.
+  private int index(long hash64, int row) {
+    // We use the trick mentioned in "Less Hashing, Same Performance: Building a Better Bloom
+    // Filter"
+    // by Kirsch et.al. From abstract 'only two hash functions are necessary to effectively
+    // implement a Bloom filter without any loss in the asymptotic false positive probability'
+    // The paper also proves that the same technique (using just 2 pairwise independent hash
+    // functions)
+    // can be used for Count-Min sketch.
+
+    // Lets split up 64-bit hashcode into two 32-bit hashcodes and employ the technique mentioned
+    // in the above paper
+    int hash1 = (int) hash64;
+    int hash2 = (int) (hash64 >>> 32);
+    int combinedHash = hash1 + (row * hash2);
+    // hashcode should be positive, flip all the bits if it's negative
+    if (combinedHash < 0) {
+      combinedHash = ~combinedHash;
     }
+    return (row - 1) * w + combinedHash % w;
   }
 }
@@ -0,0 +1,115 @@
+package com.yoloo.server.util.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Versioned binary format of {@link CountMinSketch} used for persistence. The header holds the
+ * format version, a flags byte, width and depth. Every row is then written either dense, as width
+ * ints, or sparse, as the number of non-zero counters followed by (column, value) pairs, whichever
+ * is smaller. Most rows of a counter shard are sparse, so this is usually a fraction of {@link
+ * CountMinSketch#serialize(CountMinSketch)}.
+ */
+public final class CountMinSketchCodec {
+
+  private static final byte VERSION = 1;
+  private static final byte FLAG_CONSERVATIVE = 1;
+
+  private static final byte ROW_DENSE = 0;
+  private static final byte ROW_SPARSE = 1;
+
+  private static final int HEADER_SIZE = 2 + 2 * Integer.BYTES;
+
+  private CountMinSketchCodec() {}
+
+  public static byte[] encode(CountMinSketch sketch) {
+    int width = sketch.getWidth();
+    int depth = sketch.getDepth();
+    int[] table = sketch.getTable();
+
+    int[] nonZeros = new int[depth];
+    int size = HEADER_SIZE;
+    for (int row = 0; row < depth; row++) {
+      for (int i = row * width, end = i + width; i < end; i++) {
+        if (table[i] != 0) {
+          nonZeros[row]++;
+        }
+      }
+      size += 1 + rowSize(width, nonZeros[row]);
+    }
+
+    ByteBuffer bb = ByteBuffer.allocate(size);
+    bb.put(VERSION);
+    bb.put(sketch.isConservative() ? FLAG_CONSERVATIVE : 0);
+    bb.putInt(width);
+    bb.putInt(depth);
+
+    for (int row = 0; row < depth; row++) {
+      int offset = row * width;
+      if (isSparse(width, nonZeros[row])) {
+        bb.put(ROW_SPARSE);
+        bb.putInt(nonZeros[row]);
+        for (int col = 0; col < width; col++) {
+          int value = table[offset + col];
+          if (value != 0) {
+            bb.putInt(col);
+            bb.putInt(value);
+          }
+        }
+      } else {
+        bb.put(ROW_DENSE);
+        bb.asIntBuffer().put(table, offset, width);
+        bb.position(bb.position() + width * Integer.BYTES);
+      }
+    }
+
+    return bb.array();
+  }
+
+  /**
+   * Decodes a sketch written by {@link #encode(CountMinSketch)}.
+   *
+   * @param bytes the encoded sketch
+   * @return decoded sketch
+   * @throws IllegalArgumentException if the bytes are not an encoded sketch
+   */
+  public static CountMinSketch decode(byte[] bytes) {
+    ByteBuffer bb = ByteBuffer.wrap(bytes);
+    byte version = bb.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported count min sketch version: " + version);
+    }
+    boolean conservative = (bb.get() & FLAG_CONSERVATIVE) != 0;
+    int width = bb.getInt();
+    int depth = bb.getInt();
+
+    int[] table = new int[width * depth];
+    for (int row = 0; row < depth; row++) {
+      int offset = row * width;
+      byte mode = bb.get();
+      if (mode == ROW_SPARSE) {
+        int nonZeros = bb.getInt();
+        for (int i = 0; i < nonZeros; i++) {
+          int col = bb.getInt();
+          table[offset + col] = bb.getInt();
+        }
+      } else if (mode == ROW_DENSE) {
+        bb.asIntBuffer().get(table, offset, width);
+        bb.position(bb.position() + width * Integer.BYTES);
+      } else {
+        throw new IllegalArgumentException("Unsupported count min sketch row mode: " + mode);
+      }
+    }
+
+    return new CountMinSketch(width, depth, conservative, table);
+  }
+
+  private static boolean isSparse(int width, int nonZeros) {
+    return Integer.BYTES + nonZeros * 2 * Integer.BYTES < width * Integer.BYTES;
+  }
+
+  private static int rowSize(int width, int nonZeros) {
+    return isSparse(width, nonZeros)
+        ? Integer.BYTES + nonZeros * 2 * Integer.BYTES
+        : width * Integer.BYTES;
+  }
+}
@@ -0,0 +1,75 @@
+package com.yoloo.server.util.sketch;
+
+import com.google.cloud.datastore.Blob;
+import com.google.cloud.datastore.BlobValue;
+import com.google.cloud.datastore.FullEntity;
+import com.google.cloud.datastore.Value;
+import com.google.cloud.datastore.ValueType;
+import com.googlecode.objectify.impl.translate.SimpleTranslatorFactory;
+
+import java.util.List;
+
+/**
+ * Persists {@link CountMinSketch} fields as a single unindexed blob in the {@link
+ * CountMinSketchCodec} format instead of embedding every counter reflectively.
+ *
+ * <p>Sketches saved before in the embedded form are still read, so existing counts stay visible
+ * until the entity is saved again in the blob form.
+ */
+public class CountMinSketchTranslatorFactory
+    extends SimpleTranslatorFactory<CountMinSketch, Blob> {
+
+  /** Create a new instance. */
+  public CountMinSketchTranslatorFactory() {
+    super(CountMinSketch.class, ValueType.BLOB, ValueType.ENTITY);
+  }
+
+  @Override
+  protected CountMinSketch toPojo(Value<Blob> value) {
+    if (value.getType() == ValueType.ENTITY) {
+      return fromEmbedded((FullEntity<?>) ((Value<?>) value).get());
+    }
+    return CountMinSketchCodec.decode(value.get().toByteArray());
+  }
+
+  @Override
+  protected Value<Blob> toDatastore(CountMinSketch value) {
+    return BlobValue.newBuilder(Blob.copyFrom(CountMinSketchCodec.encode(value)))
+        .setExcludeFromIndexes(true)
+        .build();
+  }
+
+  // The embedded form holds the fields of the sketch, either the flat row-major "table" or the
+  // "multiset" rows of the former two-dimensional layout.
+  private static CountMinSketch fromEmbedded(FullEntity<?> entity) {
+    int width = (int) entity.getLong("w");
+    int depth = (int) entity.getLong("d");
+    boolean conservative = entity.contains("conservative") && entity.getBoolean("conservative");
+
+    int[] table = new int[width * depth];
+    String property = entity.contains("table") ? "table" : "multiset";
+    if (entity.contains(property)) {
+      int filled = flatten(entity.getList(property), table, 0);
+      if (filled != table.length) {
+        throw new IllegalArgumentException(
+            "Embedded sketch has " + filled + " counters, expected " + table.length);
+      }
+    }
+    return new CountMinSketch(width, depth, conservative, table);
+  }
+
+  private static int flatten(List<? extends Value<?>> values, int[] into, int offset) {
+    for (Value<?> value : values) {
+      if (value.getType() == ValueType.LIST) {
+        @SuppressWarnings("unchecked")
+        List<? extends Value<?>> row = (List<? extends Value<?>>) value.get();
+        offset = flatten(row, into, offset);
+      } else if (offset < into.length) {
+        into[offset++] = ((Number) value.get()).intValue();
+      } else {
+        offset++;
+      }
+    }
+    return offset;
+  }
+}
@@ -0,0 +1,344 @@
+package com.yoloo.server.util.sketch;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * On-heap cuckoo filter for approximate set membership with support for deletion, see "Cuckoo
+ * Filter: Practically Better Than Bloom" by Fan et al.
+ *
+ * <p>Every bucket holds {@link #ENTRIES_PER_BUCKET} fingerprints of up to 16 bits which are stored
+ * in a single {@code short[]}, so the whole table can be copied in bulk by {@link
+ * CuckooFilterCodec}. A fingerprint of 0 marks an empty slot. The two candidate buckets of a key
+ * are derived from one 64-bit {@link Murmur3} hash using partial-key cuckoo hashing, so a
+ * fingerprint can be relocated without knowing the original key. When an insertion can't find a
+ * free slot after {@link #MAX_KICKS} relocations the last evicted fingerprint is parked in a victim
+ * slot; the filter is full once the victim slot is taken.
+ *
+ * <p>Instances are thread safe. Lookups are lock free in the absence of concurrent writes.
+ */
+public class CuckooFilter {
+
+  public static final int ENTRIES_PER_BUCKET = 4;
+  public static final int DEFAULT_FINGERPRINT_BITS = 16;
+
+  static final int MAX_KICKS = 500;
+
+  // the table is sized so that the requested capacity is reached at this load factor
+  private static final double MAX_LOAD_FACTOR = 0.95;
+
+  private final long capacity;
+  private final int fingerprintBits;
+  private final int seed;
+  private final int bucketMask;
+  private final short[] table;
+  private final StampedLock lock = new StampedLock();
+
+  private long count;
+  private int victimIndex;
+  private short victimFingerprint;
+
+  public CuckooFilter(long capacity) {
+    this(capacity, DEFAULT_FINGERPRINT_BITS, 0);
+  }
+
+  public CuckooFilter(long capacity, int fingerprintBits, int seed) {
+    this(capacity, fingerprintBits, seed, new short[bucketCount(capacity) * ENTRIES_PER_BUCKET]);
+  }
+
+  CuckooFilter(long capacity, int fingerprintBits, int seed, short[] table) {
+    if (fingerprintBits < 4 || fingerprintBits > Short.SIZE) {
+      throw new IllegalArgumentException("Fingerprint bits must be in [4, 16]: " + fingerprintBits);
+    }
+    if (table.length != bucketCount(capacity) * ENTRIES_PER_BUCKET) {
+      throw new IllegalArgumentException("Table length does not match capacity: " + capacity);
+    }
+    this.capacity = capacity;
+    this.fingerprintBits = fingerprintBits;
+    this.seed = seed;
+    this.bucketMask = table.length / ENTRIES_PER_BUCKET - 1;
+    this.table = table;
+  }
+
+  // Largest capacity which still fits into the given number of buckets, see bucketCount.
+  static long capacityOf(int buckets) {
+    return (long) (buckets * ENTRIES_PER_BUCKET * MAX_LOAD_FACTOR);
+  }
+
+  static int bucketCount(long capacity) {
+    long buckets = (long) Math.ceil(capacity / (ENTRIES_PER_BUCKET * MAX_LOAD_FACTOR));
+    long pow2 = buckets <= 1 ? 1L : Long.highestOneBit(buckets - 1) << 1;
+    if (pow2 * ENTRIES_PER_BUCKET > Integer.MAX_VALUE - 8) {
+      throw new IllegalArgumentException("Capacity is too large: " + capacity);
+    }
+    return (int) pow2;
+  }
+
+  public boolean insert(CharSequence key) {
+    return insertHash(Murmur3.hash64(key, seed));
+  }
+
+  public boolean contains(CharSequence key) {
+    return containsHash(Murmur3.hash64(key, seed));
+  }
+
+  public boolean delete(CharSequence key) {
+    return deleteHash(Murmur3.hash64(key, seed));
+  }
+
+  /**
+   * Inserts a key given its 64-bit hash, which must be computed with {@link #getSeed()}.
+   *
+   * @param hash64 hash of the key
+   * @return false if the filter is full
+   */
+  public boolean insertHash(long hash64) {
+    return insertFingerprint(index(hash64), fingerprint(hash64));
+  }
+
+  /**
+   * Tests a key given its 64-bit hash, which must be computed with {@link #getSeed()}.
+   *
+   * @param hash64 hash of the key
+   * @return false if the key is definitely not in the filter
+   */
+  public boolean containsHash(long hash64) {
+    short fp = fingerprint(hash64);
+    int i1 = index(hash64);
+    int i2 = altIndex(i1, fp);
+
+    long stamp = lock.tryOptimisticRead();
+    boolean found = lookup(i1, i2, fp);
+    if (!lock.validate(stamp)) {
+      stamp = lock.readLock();
+      try {
+        found = lookup(i1, i2, fp);
+      } finally {
+        lock.unlockRead(stamp);
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Deletes a key given its 64-bit hash, which must be computed with {@link #getSeed()}. Deleting
+   * a key which was never inserted may remove another key sharing the same fingerprint.
+   *
+   * @param hash64 hash of the key
+   * @return true if a matching fingerprint was removed
+   */
+  public boolean deleteHash(long hash64) {
+    short fp = fingerprint(hash64);
+    int i1 = index(hash64);
+    int i2 = altIndex(i1, fp);
+
+    long stamp = lock.writeLock();
+    try {
+      if (victimFingerprint == fp && (victimIndex == i1 || victimIndex == i2)) {
+        victimFingerprint = 0;
+        count--;
+        return true;
+      }
+      if (remove(i1, fp) || remove(i2, fp)) {
+        count--;
+        // a slot became free, give the victim another chance
+        if (victimFingerprint != 0) {
+          short victim = victimFingerprint;
+          int index = victimIndex;
+          if (put(index, victim) || put(altIndex(index, victim), victim)) {
+            victimFingerprint = 0;
+          }
+        }
+        return true;
+      }
+      return false;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  /**
+   * Adds every fingerprint of the given filter to this one. Both filters must have the same
+   * geometry and seed.
+   *
+   * @param other the filter to merge
+   * @return false if this filter became full before every fingerprint could be copied
+   */
+  public boolean merge(CuckooFilter other) {
+    if (other.table.length != table.length
+        || other.fingerprintBits != fingerprintBits
+        || other.seed != seed) {
+      throw new IllegalArgumentException("Cuckoo filters are not compatible");
+    }
+
+    short[] entries;
+    int otherVictimIndex;
+    short otherVictim;
+    long stamp = other.lock.readLock();
+    try {
+      entries = other.table.clone();
+      otherVictimIndex = other.victimIndex;
+      otherVictim = other.victimFingerprint;
+    } finally {
+      other.lock.unlockRead(stamp);
+    }
+
+    boolean complete = true;
+    for (int slot = 0; slot < entries.length; slot++) {
+      if (entries[slot] != 0) {
+        complete &= insertFingerprint(slot / ENTRIES_PER_BUCKET, entries[slot]);
+      }
+    }
+    if (otherVictim != 0) {
+      complete &= insertFingerprint(otherVictimIndex, otherVictim);
+    }
+    return complete;
+  }
+
+  public long getCapacity() {
+    return capacity;
+  }
+
+  public int getFingerprintBits() {
+    return fingerprintBits;
+  }
+
+  public int getSeed() {
+    return seed;
+  }
+
+  public long getCount() {
+    long stamp = lock.readLock();
+    try {
+      return count;
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  public double getLoadFactor() {
+    return (double) getCount() / table.length;
+  }
+
+  /**
+   * Runs the given action with a consistent view of the table, count and victim.
+   *
+   * @param action receives the state, must not modify the table
+   */
+  void read(StateConsumer action) {
+    long stamp = lock.readLock();
+    try {
+      action.accept(table, count, victimIndex, victimFingerprint);
+    } finally {
+      lock.unlockRead(stamp);
+    }
+  }
+
+  void restore(long count, int victimIndex, short victimFingerprint) {
+    long stamp = lock.writeLock();
+    try {
+      this.count = count;
+      this.victimIndex = victimIndex;
+      this.victimFingerprint = victimFingerprint;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  // Inserts a fingerprint into one of the buckets it belongs to, index may be either of them.
+  private boolean insertFingerprint(int index, short fp) {
+    long stamp = lock.writeLock();
+    try {
+      if (victimFingerprint != 0) {
+        return false;
+      }
+      if (put(index, fp) || put(altIndex(index, fp), fp)) {
+        count++;
+        return true;
+      }
+
+      ThreadLocalRandom random = ThreadLocalRandom.current();
+      if (random.nextBoolean()) {
+        index = altIndex(index, fp);
+      }
+      for (int kick = 0; kick < MAX_KICKS; kick++) {
+        int slot = index * ENTRIES_PER_BUCKET + random.nextInt(ENTRIES_PER_BUCKET);
+        short evicted = table[slot];
+        table[slot] = fp;
+        fp = evicted;
+        index = altIndex(index, fp);
+        if (put(index, fp)) {
+          count++;
+          return true;
+        }
+      }
+
+      // the key is stored, only the last evicted fingerprint could not be placed
+      victimIndex = index;
+      victimFingerprint = fp;
+      count++;
+      return true;
+    } finally {
+      lock.unlockWrite(stamp);
+    }
+  }
+
+  private boolean lookup(int i1, int i2, short fp) {
+    if (victimFingerprint == fp && (victimIndex == i1 || victimIndex == i2)) {
+      return true;
+    }
+    return has(i1, fp) || has(i2, fp);
+  }
+
+  private boolean has(int index, short fp) {
+    int offset = index * ENTRIES_PER_BUCKET;
+    for (int i = offset; i < offset + ENTRIES_PER_BUCKET; i++) {
+      if (table[i] == fp) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean put(int index, short fp) {
+    int offset = index * ENTRIES_PER_BUCKET;
+    for (int i = offset; i < offset + ENTRIES_PER_BUCKET; i++) {
+      if (table[i] == 0) {
+        table[i] = fp;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private boolean remove(int index, short fp) {
+    int offset = index * ENTRIES_PER_BUCKET;
+    for (int i = offset; i < offset + ENTRIES_PER_BUCKET; i++) {
+      if (table[i] == fp) {
+        table[i] = 0;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private short fingerprint(long hash64) {
+    // the upper bits are independent of the bucket index which uses the lower ones
+    int fp = (int) (hash64 >>> (Long.SIZE - fingerprintBits));
+    return (short) (fp == 0 ? 1 : fp);
+  }
+
+  private int index(long hash64) {
+    return (int) hash64 & bucketMask;
+  }
+
+  private int altIndex(int index, short fp) {
+    // xor with the hash of the fingerprint is an involution, so either bucket yields the other one
+    return (index ^ ((fp & 0xffff) * 0x5bd1e995)) & bucketMask;
+  }
+
+  @FunctionalInterface
+  interface StateConsumer {
+    void accept(short[] table, long count, int victimIndex, short victimFingerprint);
+  }
+}
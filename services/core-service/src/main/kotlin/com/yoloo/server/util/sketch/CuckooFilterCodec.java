@@ -0,0 +1,115 @@
+package com.yoloo.server.util.sketch;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Versioned binary format of {@link CuckooFilter} shared by the datastore translator and the
+ * memcache paths. The header holds a magic number, the format version, capacity, fingerprint bits,
+ * seed, item count and the victim slot, followed by the raw bucket array which is copied in bulk.
+ */
+public final class CuckooFilterCodec {
+
+  /**
+   * Upper bound of an encoded filter, below the 1MB limit of both datastore entities and memcache
+   * values.
+   */
+  public static final int MAX_ENCODED_SIZE = 1_000_000;
+
+  private static final int MAGIC = 0x434b4f4f;
+  private static final byte VERSION = 1;
+
+  private static final int HEADER_SIZE =
+      Integer.BYTES // magic
+          + Byte.BYTES // version
+          + Long.BYTES // capacity
+          + Byte.BYTES // fingerprint bits
+          + Integer.BYTES // seed
+          + Long.BYTES // count
+          + Integer.BYTES // victim index
+          + Short.BYTES // victim fingerprint
+          + Integer.BYTES; // table length
+
+  private CuckooFilterCodec() {}
+
+  /**
+   * Returns the size of an encoded filter of the given capacity.
+   *
+   * @param capacity the capacity of the filter
+   * @return size in bytes
+   */
+  public static long encodedSize(long capacity) {
+    return HEADER_SIZE
+        + (long) CuckooFilter.bucketCount(capacity) * CuckooFilter.ENTRIES_PER_BUCKET * Short.BYTES;
+  }
+
+  /**
+   * Returns the largest capacity whose encoded filter fits into the given size.
+   *
+   * @param maxEncodedSize the size in bytes
+   * @return the capacity, 0 if not even a single bucket fits
+   */
+  public static long maxCapacity(long maxEncodedSize) {
+    long buckets =
+        (maxEncodedSize - HEADER_SIZE) / (CuckooFilter.ENTRIES_PER_BUCKET * Short.BYTES);
+    if (buckets < 1) {
+      return 0L;
+    }
+    return CuckooFilter.capacityOf((int) Long.highestOneBit(buckets));
+  }
+
+  public static byte[] encode(CuckooFilter filter) {
+    ByteBuffer[] holder = new ByteBuffer[1];
+    filter.read(
+        (table, count, victimIndex, victimFingerprint) -> {
+          ByteBuffer bb = ByteBuffer.allocate(HEADER_SIZE + table.length * Short.BYTES);
+          bb.putInt(MAGIC);
+          bb.put(VERSION);
+          bb.putLong(filter.getCapacity());
+          bb.put((byte) filter.getFingerprintBits());
+          bb.putInt(filter.getSeed());
+          bb.putLong(count);
+          bb.putInt(victimIndex);
+          bb.putShort(victimFingerprint);
+          bb.putInt(table.length);
+          bb.asShortBuffer().put(table);
+          holder[0] = bb;
+        });
+    return holder[0].array();
+  }
+
+  /**
+   * Decodes a filter written by {@link #encode(CuckooFilter)}.
+   *
+   * @param bytes the encoded filter
+   * @return decoded filter
+   * @throws IllegalArgumentException if the bytes are not an encoded filter
+   */
+  public static CuckooFilter decode(byte[] bytes) {
+    ByteBuffer bb = ByteBuffer.wrap(bytes);
+    if (bytes.length < HEADER_SIZE || bb.getInt() != MAGIC) {
+      throw new IllegalArgumentException("Not a cuckoo filter");
+    }
+    byte version = bb.get();
+    if (version != VERSION) {
+      throw new IllegalArgumentException("Unsupported cuckoo filter version: " + version);
+    }
+
+    long capacity = bb.getLong();
+    int fingerprintBits = bb.get();
+    int seed = bb.getInt();
+    long count = bb.getLong();
+    int victimIndex = bb.getInt();
+    short victimFingerprint = bb.getShort();
+    int length = bb.getInt();
+    if (bb.remaining() != length * Short.BYTES) {
+      throw new IllegalArgumentException("Truncated cuckoo filter");
+    }
+
+    short[] table = new short[length];
+    bb.asShortBuffer().get(table);
+
+    CuckooFilter filter = new CuckooFilter(capacity, fingerprintBits, seed, table);
+    filter.restore(count, victimIndex, victimFingerprint);
+    return filter;
+  }
+}
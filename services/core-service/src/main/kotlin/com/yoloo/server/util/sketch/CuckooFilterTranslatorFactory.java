@@ -0,0 +1,31 @@
+package com.yoloo.server.util.sketch;
+
+import com.google.cloud.datastore.Blob;
+import com.google.cloud.datastore.BlobValue;
+import com.google.cloud.datastore.Value;
+import com.google.cloud.datastore.ValueType;
+import com.googlecode.objectify.impl.translate.SimpleTranslatorFactory;
+
+/**
+ * Persists {@link CuckooFilter} fields as a single unindexed blob in the {@link CuckooFilterCodec}
+ * format.
+ */
+public class CuckooFilterTranslatorFactory extends SimpleTranslatorFactory<CuckooFilter, Blob> {
+
+  /** Create a new instance. */
+  public CuckooFilterTranslatorFactory() {
+    super(CuckooFilter.class, ValueType.BLOB);
+  }
+
+  @Override
+  protected CuckooFilter toPojo(Value<Blob> value) {
+    return CuckooFilterCodec.decode(value.get().toByteArray());
+  }
+
+  @Override
+  protected Value<Blob> toDatastore(CuckooFilter value) {
+    return BlobValue.newBuilder(Blob.copyFrom(CuckooFilterCodec.encode(value)))
+        .setExcludeFromIndexes(true)
+        .build();
+  }
+}
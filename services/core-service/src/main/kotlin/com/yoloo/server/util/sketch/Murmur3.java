@@ -181,6 +181,145 @@ public class Murmur3 {
     return hash;
   }
 
+  /**
+   * Murmur3 64-bit variant of a long. Returns the same value as {@link #hash64(byte[])} of the 8
+   * little endian bytes of the long, without allocating them.
+   *
+   * @param data - input long
+   * @return - hashcode
+   */
+  public static long hash64(long data) {
+    return hash64(data, DEFAULT_SEED);
+  }
+
+  /**
+   * Murmur3 64-bit variant of a long. Returns the same value as {@link #hash64(byte[], int, int)}
+   * of the 8 little endian bytes of the long, without allocating them.
+   *
+   * @param data - input long
+   * @param seed - seed. (default is 0)
+   * @return - hashcode
+   */
+  public static long hash64(long data, int seed) {
+    long hash = mixBlock64(seed, data);
+
+    // finalization
+    hash ^= Long.BYTES;
+    return fmix64(hash);
+  }
+
+  /**
+   * Murmur3 64-bit variant of two longs. Returns the same value as {@link #hash64(byte[])} of the
+   * 16 little endian bytes of first followed by second, so composite keys can be hashed without
+   * building a string or an array.
+   *
+   * @param first - first input long
+   * @param second - second input long
+   * @return - hashcode
+   */
+  public static long hash64Pair(long first, long second) {
+    long hash = mixBlock64(DEFAULT_SEED, first);
+    hash = mixBlock64(hash, second);
+
+    // finalization
+    hash ^= 2 * Long.BYTES;
+    return fmix64(hash);
+  }
+
+  /**
+   * Murmur3 64-bit variant of an int. Returns the same value as {@link #hash64(byte[])} of the 4
+   * little endian bytes of the int, without allocating them.
+   *
+   * @param data - input int
+   * @return - hashcode
+   */
+  public static long hash64(int data) {
+    long hash = mixTail64(DEFAULT_SEED, data & 0xffffffffL);
+
+    // finalization
+    hash ^= Integer.BYTES;
+    return fmix64(hash);
+  }
+
+  /**
+   * Murmur3 64-bit variant of a character sequence. Returns the same value as {@link
+   * #hash64(byte[])} of its UTF-8 encoding, the bytes are encoded on the fly instead of being
+   * copied to an intermediate array. Unpaired surrogates are encoded as '?' just like {@link
+   * String#getBytes(java.nio.charset.Charset)} does.
+   *
+   * @param data - input character sequence
+   * @return - hashcode
+   */
+  public static long hash64(CharSequence data) {
+    return hash64(data, DEFAULT_SEED);
+  }
+
+  /**
+   * Murmur3 64-bit variant of a character sequence. See {@link #hash64(CharSequence)}.
+   *
+   * @param data - input character sequence
+   * @param seed - seed. (default is 0)
+   * @return - hashcode
+   */
+  public static long hash64(CharSequence data, int seed) {
+    long hash = seed;
+    long block = 0;
+    int shift = 0;
+    int length = 0;
+
+    for (int i = 0, n = data.length(); i < n; i++) {
+      char c = data.charAt(i);
+
+      // UTF-8 bytes of the code point packed in little endian order
+      int bytes;
+      int count;
+      if (c < 0x80) {
+        bytes = c;
+        count = 1;
+      } else if (c < 0x800) {
+        bytes = (0xc0 | (c >> 6)) | ((0x80 | (c & 0x3f)) << 8);
+        count = 2;
+      } else if (!Character.isSurrogate(c)) {
+        bytes =
+            (0xe0 | (c >> 12)) | ((0x80 | ((c >> 6) & 0x3f)) << 8) | ((0x80 | (c & 0x3f)) << 16);
+        count = 3;
+      } else if (Character.isHighSurrogate(c)
+          && i + 1 < n
+          && Character.isLowSurrogate(data.charAt(i + 1))) {
+        int cp = Character.toCodePoint(c, data.charAt(++i));
+        bytes =
+            (0xf0 | (cp >> 18))
+                | ((0x80 | ((cp >> 12) & 0x3f)) << 8)
+                | ((0x80 | ((cp >> 6) & 0x3f)) << 16)
+                | ((0x80 | (cp & 0x3f)) << 24);
+        count = 4;
+      } else {
+        bytes = '?';
+        count = 1;
+      }
+
+      length += count;
+      for (int j = 0; j < count; j++) {
+        block |= ((long) (bytes >>> (j << 3)) & 0xff) << shift;
+        shift += 8;
+        if (shift == Long.SIZE) {
+          hash = mixBlock64(hash, block);
+          block = 0;
+          shift = 0;
+        }
+      }
+    }
+
+    // tail
+    if (shift > 0) {
+      hash = mixTail64(hash, block);
+    }
+
+    // finalization
+    hash ^= length;
+    return fmix64(hash);
+  }
+
   /**
    * Murmur3 128-bit variant.
    *
@@ -308,6 +447,21 @@ public class Murmur3 {
     return new long[] {h1, h2};
   }
 
+  private static long mixBlock64(long hash, long k) {
+    k *= C1;
+    k = Long.rotateLeft(k, R1);
+    k *= C2;
+    hash ^= k;
+    return Long.rotateLeft(hash, R2) * M + N1;
+  }
+
+  private static long mixTail64(long hash, long k1) {
+    k1 *= C1;
+    k1 = Long.rotateLeft(k1, R1);
+    k1 *= C2;
+    return hash ^ k1;
+  }
+
   private static long fmix64(long h) {
     h ^= (h >>> 33);
     h *= 0xff51afd7ed558ccdL;
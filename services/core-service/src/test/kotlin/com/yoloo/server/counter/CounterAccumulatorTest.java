@@ -0,0 +1,77 @@
+package com.yoloo.server.counter;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class CounterAccumulatorTest {
+
+  @Test
+  void drain_whenUpdatedConcurrently_willNotLoseDeltas() throws InterruptedException {
+    CounterAccumulator accumulator = new CounterAccumulator();
+    int threads = 4;
+    int updates = 100_000;
+    CountDownLatch done = new CountDownLatch(threads);
+
+    List<Thread> writers = new ArrayList<>();
+    for (int t = 0; t < threads; t++) {
+      Thread writer =
+          new Thread(
+              () -> {
+                for (int i = 0; i < updates; i++) {
+                  accumulator.add("likes:" + (i % 8), 1L);
+                }
+                done.countDown();
+              });
+      writers.add(writer);
+      writer.start();
+    }
+
+    long drained = 0L;
+    while (done.getCount() > 0L) {
+      drained += sum(accumulator);
+    }
+    for (Thread writer : writers) {
+      writer.join();
+    }
+    drained += sum(accumulator);
+
+    assertThat(drained).isEqualTo((long) threads * updates);
+  }
+
+  @Test
+  void drain_whenNothingChanged_willEvictAdder() {
+    CounterAccumulator accumulator = new CounterAccumulator();
+    accumulator.add("likes:1", 3L);
+
+    assertThat(accumulator.drain()).containsExactly("likes:1", 3L);
+    assertThat(accumulator.pending("likes:1", CounterSketch.hash("likes:1"), id -> false))
+        .isEqualTo(0L);
+    assertThat(accumulator.drain()).isEmpty();
+  }
+
+  private static long sum(CounterAccumulator accumulator) {
+    return accumulator.drain().values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  @Test
+  void pending_whenFlushedBatchIsNotApplied_willKeepCountingIt() {
+    CounterAccumulator accumulator = new CounterAccumulator();
+    long hash = CounterSketch.hash("likes:1");
+    accumulator.hold(new long[] {7L}, Collections.singletonMap(hash, 2L), 1_000L);
+
+    assertThat(accumulator.pending("likes:1", hash, id -> false)).isEqualTo(2L);
+    assertThat(accumulator.pending("likes:1", hash, id -> id == 7L)).isEqualTo(0L);
+
+    accumulator.release(id -> false, 0L);
+    assertThat(accumulator.pending("likes:1", hash, id -> false)).isEqualTo(2L);
+
+    accumulator.release(id -> id == 7L, 0L);
+    assertThat(accumulator.pending("likes:1", hash, id -> false)).isEqualTo(0L);
+  }
+}
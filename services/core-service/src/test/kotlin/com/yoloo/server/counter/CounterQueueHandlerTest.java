@@ -0,0 +1,69 @@
+package com.yoloo.server.counter;
+
+import com.google.appengine.api.taskqueue.TaskHandle;
+import com.google.appengine.api.taskqueue.TaskOptions;
+import com.yoloo.server.appengine.TestBase;
+import com.yoloo.server.util.sketch.CountMinSketchTranslatorFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+class CounterQueueHandlerTest extends TestBase {
+
+  private CounterQueueHandler handler;
+  private CounterSnapshot snapshot;
+
+  @BeforeEach
+  void setUp() {
+    ofy().factory().getTranslators().add(new CountMinSketchTranslatorFactory());
+    ofy().factory().register(CounterSketch.class);
+
+    CounterProperties properties = new CounterProperties();
+    snapshot = new CounterSnapshot(properties);
+    handler = new CounterQueueHandler(properties, snapshot);
+  }
+
+  @Test
+  void handle_whenBatchIsRedelivered_willApplyItOnce() {
+    TaskHandle task = task(CounterSketch.hash("likes:1"), 3L);
+
+    assertThat(handler.handle(Collections.singletonList(task))).containsExactly(task);
+    assertThat(handler.handle(Collections.singletonList(task))).containsExactly(task);
+
+    assertThat(count("likes:1")).isEqualTo(3);
+  }
+
+  @Test
+  void handle_whenBatchesAreLeasedTogether_willApplyEach() {
+    TaskHandle first = task(CounterSketch.hash("likes:1"), 3L);
+    TaskHandle second = task(CounterSketch.hash("likes:1"), -1L);
+    List<TaskHandle> tasks = Arrays.asList(first, second, first);
+
+    assertThat(handler.handle(tasks)).containsExactly(first, second, first);
+
+    assertThat(count("likes:1")).isEqualTo(2);
+  }
+
+  private int count(String name) {
+    int[] out = new int[1];
+    snapshot.view().getEstimatedCounts(new long[] {CounterSketch.hash(name)}, out);
+    return out[0];
+  }
+
+  private static TaskHandle task(long hash, long delta) {
+    byte[] payload =
+        CounterDeltaCodec.encode(Collections.singletonMap(hash, delta), System.currentTimeMillis())
+            .get(0);
+    return new TaskHandle(
+        TaskOptions.Builder.withMethod(TaskOptions.Method.PULL)
+            .tag(CounterDeltaCodec.TAG)
+            .payload(payload),
+        "batch-save-pull-queue");
+  }
+}
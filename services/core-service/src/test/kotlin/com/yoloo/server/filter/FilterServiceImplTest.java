@@ -0,0 +1,73 @@
+package com.yoloo.server.filter;
+
+import com.google.appengine.api.memcache.MemcacheService;
+import com.yoloo.server.appengine.TestBase;
+import com.yoloo.server.util.sketch.CuckooFilterTranslatorFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlecode.objectify.ObjectifyService.ofy;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FilterServiceImplTest extends TestBase {
+
+  private MemcacheService memcacheService;
+  private FilterProperties properties;
+  private FilterServiceImpl filterService;
+
+  @BeforeEach
+  void setUp() {
+    ofy().factory().getTranslators().add(new CuckooFilterTranslatorFactory());
+    ofy().factory().register(EntityIdFilter.class);
+    ofy().factory().register(FilterJournal.class);
+
+    memcacheService = mock(MemcacheService.class);
+    properties = new FilterProperties();
+    properties.setVersionCheckIntervalMillis(0L);
+    filterService = new FilterServiceImpl(memcacheService, newWriteBehind(), properties);
+  }
+
+  @Test
+  void add_whenStampEvicted_willStartSequenceAboveResidentVersion() {
+    when(memcacheService.increment(anyString(), eq(1L), anyLong()))
+        .thenAnswer(invocation -> (Long) invocation.getArgument(2) + 1L);
+
+    filterService.add(FilterKind.USER, 1L);
+
+    ArgumentCaptor<Long> initial = ArgumentCaptor.forClass(Long.class);
+    verify(memcacheService).increment(anyString(), eq(1L), initial.capture());
+    assertThat(FilterVersion.epoch(initial.getValue())).isGreaterThan(0L);
+    assertThat(filterService.contains(FilterKind.USER, 1L)).isTrue();
+  }
+
+  @Test
+  void contains_whenOtherInstanceStartedNewSequence_willReloadJournaledMutations() {
+    long hash = Filter.hash(1L);
+    int partition = FilterKind.USER.partitionOf(hash);
+    String versionKey = "filter:version:" + EntityIdFilter.createId(FilterKind.USER, partition);
+
+    assertThat(filterService.contains(FilterKind.USER, 1L)).isFalse();
+
+    // another instance lost the stamp, started a new sequence and journaled its mutation
+    long version = FilterVersion.newSequence(0L, System.currentTimeMillis()) + 1L;
+    FilterWriteBehind other = newWriteBehind();
+    other.record(
+        EntityIdFilter.create(FilterKind.USER, partition), version, FilterDelta.OP_INSERT, hash);
+    other.writeJournal();
+    when(memcacheService.get(versionKey)).thenReturn(version);
+
+    assertThat(filterService.contains(FilterKind.USER, 1L)).isTrue();
+  }
+
+  private FilterWriteBehind newWriteBehind() {
+    return new FilterWriteBehind(properties, new SimpleMeterRegistry());
+  }
+}
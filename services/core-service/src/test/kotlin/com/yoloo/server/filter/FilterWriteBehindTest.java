@@ -0,0 +1,84 @@
+package com.yoloo.server.filter;
+
+import com.googlecode.objectify.Key;
+import com.yoloo.server.appengine.TestBase;
+import com.yoloo.server.util.sketch.CuckooFilterTranslatorFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.googlecode.objectify.ObjectifyService.ofy;
+
+class FilterWriteBehindTest extends TestBase {
+
+  private static final Key<EntityIdFilter> KEY = EntityIdFilter.createKey(FilterKind.USER, 0);
+
+  private FilterWriteBehind writeBehind;
+
+  @BeforeEach
+  void setUp() {
+    ofy().factory().getTranslators().add(new CuckooFilterTranslatorFactory());
+    ofy().factory().register(EntityIdFilter.class);
+    ofy().factory().register(FilterJournal.class);
+
+    writeBehind = new FilterWriteBehind(new FilterProperties(), new SimpleMeterRegistry());
+  }
+
+  @Test
+  void flushAll_whenStoredIsOlder_willWriteSnapshotAndDeleteJournal() {
+    EntityIdFilter filter = EntityIdFilter.create(FilterKind.USER, 0);
+    filter.insertHash(1L);
+    filter.setVersion(1L);
+    writeBehind.record(filter, 1L, FilterDelta.OP_INSERT, 1L);
+
+    writeBehind.flushAll();
+    ofy().clear();
+
+    EntityIdFilter stored = ofy().load().key(KEY).now();
+    assertThat(stored.getVersion()).isEqualTo(1L);
+    assertThat(stored.containsHash(1L)).isTrue();
+    assertThat(ofy().load().type(FilterJournal.class).ancestor(KEY).keys().list()).isEmpty();
+  }
+
+  @Test
+  void flushAll_whenStoredIsNewer_willMergeMutationsOfOlderEpoch() {
+    long newer = FilterVersion.newSequence(0L, System.currentTimeMillis()) + 5L;
+    EntityIdFilter stored = EntityIdFilter.create(FilterKind.USER, 0);
+    stored.insertHash(2L);
+    stored.setVersion(newer);
+    ofy().save().entity(stored).now();
+
+    EntityIdFilter filter = EntityIdFilter.create(FilterKind.USER, 0);
+    filter.insertHash(1L);
+    filter.setVersion(3L);
+    writeBehind.record(filter, 3L, FilterDelta.OP_INSERT, 1L);
+
+    writeBehind.flushAll();
+    ofy().clear();
+
+    EntityIdFilter merged = ofy().load().key(KEY).now();
+    assertThat(merged.getVersion()).isEqualTo(newer);
+    assertThat(merged.containsHash(1L)).isTrue();
+    assertThat(merged.containsHash(2L)).isTrue();
+  }
+
+  @Test
+  void recover_whenVersionSequenceRestarted_willReplayBothSequences() {
+    long restarted = FilterVersion.newSequence(2L, System.currentTimeMillis());
+    EntityIdFilter filter = EntityIdFilter.create(FilterKind.USER, 0);
+    writeBehind.record(filter, 1L, FilterDelta.OP_INSERT, 1L);
+    writeBehind.record(filter, 2L, FilterDelta.OP_INSERT, 2L);
+    writeBehind.record(filter, restarted + 1L, FilterDelta.OP_INSERT, 3L);
+    writeBehind.record(filter, restarted + 2L, FilterDelta.OP_DELETE, 1L);
+    writeBehind.writeJournal();
+
+    EntityIdFilter snapshot = EntityIdFilter.create(FilterKind.USER, 0);
+    assertThat(writeBehind.recover(snapshot))
+        .containsExactly(1L, 2L, restarted + 1L, restarted + 2L)
+        .inOrder();
+    assertThat(snapshot.containsHash(1L)).isFalse();
+    assertThat(snapshot.containsHash(2L)).isTrue();
+    assertThat(snapshot.containsHash(3L)).isTrue();
+  }
+}
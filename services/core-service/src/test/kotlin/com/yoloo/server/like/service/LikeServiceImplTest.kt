@@ -1,28 +1,48 @@
 package com.yoloo.server.like.service
 
-import com.google.appengine.api.memcache.MemcacheServiceFactory
-import com.googlecode.objectify.ObjectifyService.ofy
-import com.yoloo.server.appengine.TestBase
-import com.yoloo.server.counter.CounterServiceImpl
+import com.yoloo.server.counter.CounterNames
+import com.yoloo.server.counter.CounterService
+import com.yoloo.server.filter.FilterKind
+import com.yoloo.server.filter.FilterService
 import com.yoloo.server.post.entity.Post
+import com.yoloo.server.queue.FeedSyncPublisher
+import com.yoloo.server.queue.QueuePayload
+import com.yoloo.server.queue.QueuePublisher
 import org.junit.jupiter.api.BeforeEach
 import org.junit.jupiter.api.Test
+import org.mockito.ArgumentMatchers.any
+import org.mockito.Mockito.`when`
+import org.mockito.Mockito.mock
+import org.mockito.Mockito.verify
 
-internal class LikeServiceImplTest : TestBase() {
+internal class LikeServiceImplTest {
 
+    lateinit var filterService: FilterService
+    lateinit var counterService: CounterService
+    lateinit var queuePublisher: QueuePublisher
+    lateinit var feedSyncPublisher: FeedSyncPublisher
     lateinit var likeService: LikeService
 
     @BeforeEach
     fun setUp() {
-        likeService = LikeServiceImpl(MemcacheServiceFactory.getAsyncMemcacheService(),
-            CounterServiceImpl(queueFactory, memcacheService, objectMapper)
-        )
+        filterService = mock(FilterService::class.java)
+        counterService = mock(CounterService::class.java)
+        queuePublisher = mock(QueuePublisher::class.java)
+        feedSyncPublisher = mock(FeedSyncPublisher::class.java)
 
-        ofy().factory().register(Post::class.java)
+        likeService = LikeServiceImpl(filterService, counterService, queuePublisher, feedSyncPublisher)
     }
 
     @Test
     fun like() {
+        `when`(filterService.contains(FilterKind.USER, 1L)).thenReturn(true)
+        `when`(filterService.contains(FilterKind.POST, 2L)).thenReturn(true)
+
         likeService.like(1, 2, Post::class.java)
+
+        verify(counterService).increment(CounterNames.likes(2))
+        verify(filterService).add(FilterKind.LIKE, 1L, 2L)
+        verify(queuePublisher).publish(any(QueuePayload::class.java))
+        verify(feedSyncPublisher).postCountsChanged(2L)
     }
 }
@@ -0,0 +1,68 @@
+package com.yoloo.server.queue;
+
+import com.yoloo.server.queue.QueuePayload.Type;
+import com.yoloo.server.queue.QueuePayloadCoalescer.Result;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class QueuePayloadCoalescerTest {
+
+  @Test
+  void coalesce_whenInsertedAndDeleted_willCancelOut() {
+    QueuePayload insert = payload(Type.INSERT, "like", 1L);
+    QueuePayload delete = payload(Type.DELETE, "like", 2L);
+
+    Result<QueuePayload> result =
+        QueuePayloadCoalescer.coalesce(Arrays.asList(delete, insert), Function.identity());
+
+    assertThat(result.getWrites()).isEmpty();
+    assertThat(result.getCancelled()).containsExactly(insert, delete);
+  }
+
+  @Test
+  void coalesce_whenSameKey_willKeepNewestPayload() {
+    QueuePayload delete = payload(Type.DELETE, "like", 1L);
+    QueuePayload insert = payload(Type.INSERT, "like", 2L);
+    QueuePayload other = payload(Type.SAVE, "post", 1L);
+
+    Result<QueuePayload> result =
+        QueuePayloadCoalescer.coalesce(Arrays.asList(delete, other, insert), Function.identity());
+
+    assertThat(result.getCancelled()).isEmpty();
+    assertThat(result.getWrites()).hasSize(2);
+    assertThat(result.getWrites().get(0).getPayload()).isSameAs(insert);
+    assertThat(result.getWrites().get(0).getItems()).containsExactly(delete, insert);
+    assertThat(result.getWrites().get(1).getPayload()).isSameAs(other);
+  }
+
+  @Test
+  void coalesce_whenSavedAndDeleted_willDelete() {
+    QueuePayload save = payload(Type.SAVE, "like", 1L);
+    QueuePayload delete = payload(Type.DELETE, "like", 2L);
+
+    Result<QueuePayload> result =
+        QueuePayloadCoalescer.coalesce(Arrays.asList(save, delete), Function.identity());
+
+    assertThat(result.getWrites()).hasSize(1);
+    assertThat(result.getWrites().get(0).getPayload()).isSameAs(delete);
+  }
+
+  @Test
+  void coalesce_whenKeyMissing_willPassThrough() {
+    QueuePayload first = payload(Type.SAVE, null, 0L);
+    QueuePayload second = payload(Type.SAVE, null, 0L);
+
+    Result<QueuePayload> result =
+        QueuePayloadCoalescer.coalesce(Arrays.asList(first, second), Function.identity());
+
+    assertThat(result.getWrites()).hasSize(2);
+  }
+
+  private static QueuePayload payload(Type type, String key, long createdAt) {
+    return new QueuePayload(type, new Object(), "Like", key, createdAt);
+  }
+}
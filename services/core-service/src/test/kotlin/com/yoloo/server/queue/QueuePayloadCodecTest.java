@@ -0,0 +1,66 @@
+package com.yoloo.server.queue;
+
+import com.yoloo.server.like.entity.Like;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class QueuePayloadCodecTest {
+
+  private final QueuePayloadCodec codec =
+      new QueuePayloadCodec(Collections.singletonList(new LikeIdCodec()));
+
+  @Test
+  void decode_whenEncoded_willRestoreEntity() {
+    Like like = Like.Companion.create(1L, 2L);
+    QueuePayload payload = new QueuePayload(QueuePayload.Type.INSERT, like, "Like", "key", 42L);
+
+    QueuePayload decoded = codec.decode(codec.encode(payload));
+
+    assertThat(decoded.getType()).isEqualTo(QueuePayload.Type.INSERT);
+    assertThat(decoded.getPayload()).isEqualTo(like);
+    assertThat(decoded.getKind()).isEqualTo("Like");
+    assertThat(decoded.getKey()).isEqualTo("key");
+    assertThat(decoded.getCreatedAt()).isEqualTo(42L);
+  }
+
+  @Test
+  void decode_whenDelete_willRestoreKey() {
+    QueuePayload payload = new QueuePayload(QueuePayload.Type.DELETE, "key", "Like", "key", 42L);
+
+    QueuePayload decoded = codec.decode(codec.encode(payload));
+
+    assertThat(decoded.getType()).isEqualTo(QueuePayload.Type.DELETE);
+    assertThat(decoded.getPayload()).isEqualTo("key");
+  }
+
+  @Test
+  void decode_whenJson_willThrow() {
+    byte[] json = "{\"type\":\"SAVE\"}".getBytes(StandardCharsets.UTF_8);
+
+    assertThrows(IllegalArgumentException.class, () -> codec.decode(json));
+  }
+
+  private static final class LikeIdCodec implements PayloadCodec<Like> {
+
+    @Override
+    public Class<Like> getType() {
+      return Like.class;
+    }
+
+    @Override
+    public byte[] encode(Like entity) {
+      return entity.getId().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public Like decode(byte[] bytes) {
+      String[] parts = new String(bytes, StandardCharsets.UTF_8).split(":");
+      return Like.Companion.create(Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+    }
+  }
+}
@@ -0,0 +1,122 @@
+package com.yoloo.server.util.sketch;
+
+import com.google.cloud.datastore.EntityValue;
+import com.google.cloud.datastore.FullEntity;
+import com.google.cloud.datastore.ListValue;
+import com.google.cloud.datastore.LongValue;
+import com.google.cloud.datastore.Value;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class CountMinSketchTest {
+
+  @Test
+  void getEstimatedCount_whenAdded_willNeverUnderestimate() {
+    CountMinSketch sketch = new CountMinSketch();
+    for (long i = 0; i < 5_000; i++) {
+      sketch.add(i % 500);
+    }
+
+    for (long i = 0; i < 500; i++) {
+      assertThat(sketch.getEstimatedCount(i)).isAtLeast(10);
+    }
+  }
+
+  @Test
+  void getEstimatedCount_whenConservative_willNotExceedPlainEstimate() {
+    CountMinSketch plain = new CountMinSketch();
+    CountMinSketch conservative = new CountMinSketch(true);
+    Random random = new Random(7);
+    for (int i = 0; i < 20_000; i++) {
+      long key = random.nextInt(2_000);
+      plain.add(key);
+      conservative.add(key);
+    }
+
+    for (long key = 0; key < 2_000; key++) {
+      assertThat(conservative.getEstimatedCount(key)).isAtMost(plain.getEstimatedCount(key));
+    }
+  }
+
+  @Test
+  void getEstimatedCounts_whenBatch_willMatchSingleEstimates() {
+    CountMinSketch sketch = new CountMinSketch();
+    long[] keys = new long[50];
+    for (int i = 0; i < keys.length; i++) {
+      keys[i] = i * 31L;
+      sketch.add(keys[i]);
+      sketch.add(keys[i]);
+    }
+
+    int[] counts = new int[keys.length];
+    sketch.getEstimatedCounts(keys, counts);
+
+    for (int i = 0; i < keys.length; i++) {
+      assertThat(counts[i]).isEqualTo(sketch.getEstimatedCount(keys[i]));
+    }
+  }
+
+  @Test
+  void deserialize_whenSerialized_willKeepCounts() {
+    CountMinSketch sketch = new CountMinSketch();
+    sketch.add("LIKE:1", 3);
+    sketch.add("LIKE:2");
+
+    CountMinSketch copy = CountMinSketch.deserialize(CountMinSketch.serialize(sketch));
+
+    assertThat(copy.getWidth()).isEqualTo(sketch.getWidth());
+    assertThat(copy.getDepth()).isEqualTo(sketch.getDepth());
+    assertThat(copy.getEstimatedCount("LIKE:1")).isEqualTo(3);
+    assertThat(copy.getEstimatedCount("LIKE:2")).isEqualTo(1);
+  }
+
+  @Test
+  void decode_whenEncoded_willKeepCountsAndMode() {
+    CountMinSketch sketch = new CountMinSketch(true);
+    for (long i = 0; i < 100; i++) {
+      sketch.add(i);
+    }
+
+    CountMinSketch copy = CountMinSketchCodec.decode(CountMinSketchCodec.encode(sketch));
+
+    assertThat(copy.isConservative()).isTrue();
+    for (long i = 0; i < 100; i++) {
+      assertThat(copy.getEstimatedCount(i)).isEqualTo(sketch.getEstimatedCount(i));
+    }
+  }
+
+  @Test
+  void encode_whenMostlyEmpty_willBeSmallerThanSerialize() {
+    CountMinSketch sketch = new CountMinSketch();
+    sketch.add("LIKE:1");
+
+    assertThat(CountMinSketchCodec.encode(sketch).length)
+        .isLessThan(CountMinSketch.serialize(sketch).length);
+  }
+
+  @Test
+  void toPojo_whenEmbeddedRows_willKeepCounts() {
+    CountMinSketch sketch = new CountMinSketch(4, 2);
+    sketch.add("LIKE:1", 3);
+
+    int[] table = sketch.getTable();
+    ListValue.Builder rows = ListValue.newBuilder();
+    for (int row = 0; row < 2; row++) {
+      ListValue.Builder columns = ListValue.newBuilder();
+      for (int column = 0; column < 4; column++) {
+        columns.addValue(LongValue.of(table[row * 4 + column]));
+      }
+      rows.addValue(columns.build());
+    }
+    FullEntity<?> embedded =
+        FullEntity.newBuilder().set("w", 4).set("d", 2).set("multiset", rows.build()).build();
+
+    CountMinSketch loaded =
+        new CountMinSketchTranslatorFactory().toPojo((Value) EntityValue.of(embedded));
+
+    assertThat(loaded.getEstimatedCount("LIKE:1")).isEqualTo(3);
+  }
+}
@@ -0,0 +1,54 @@
+package com.yoloo.server.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static com.google.common.truth.Truth.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class CuckooFilterCodecTest {
+
+  @Test
+  void decode_whenEncoded_willContainSameKeys() {
+    CuckooFilter filter = new CuckooFilter(10_000, 16, 7);
+    for (int i = 0; i < 10_000; i++) {
+      filter.insert("like:" + i);
+    }
+
+    CuckooFilter copy = CuckooFilterCodec.decode(CuckooFilterCodec.encode(filter));
+
+    assertThat(copy.getCapacity()).isEqualTo(10_000);
+    assertThat(copy.getFingerprintBits()).isEqualTo(16);
+    assertThat(copy.getSeed()).isEqualTo(7);
+    assertThat(copy.getCount()).isEqualTo(filter.getCount());
+    for (int i = 0; i < 10_000; i++) {
+      assertThat(copy.contains("like:" + i)).isTrue();
+    }
+  }
+
+  @Test
+  void delete_whenInserted_willNotContainKey() {
+    CuckooFilter filter = new CuckooFilter(1_000);
+    filter.insert("bookmark:1:2");
+
+    assertThat(filter.delete("bookmark:1:2")).isTrue();
+    assertThat(filter.contains("bookmark:1:2")).isFalse();
+    assertThat(filter.getCount()).isEqualTo(0);
+  }
+
+  @Test
+  void decode_whenNotAFilter_willThrow() {
+    assertThrows(IllegalArgumentException.class, () -> CuckooFilterCodec.decode(new byte[64]));
+  }
+
+  @Test
+  void encodedSize_whenEncoded_willMatchLength() {
+    CuckooFilter filter = new CuckooFilter(240_000);
+
+    assertThat((long) CuckooFilterCodec.encode(filter).length)
+        .isEqualTo(CuckooFilterCodec.encodedSize(240_000));
+    assertThat(CuckooFilterCodec.encodedSize(240_000))
+        .isAtMost((long) CuckooFilterCodec.MAX_ENCODED_SIZE);
+    assertThat(CuckooFilterCodec.encodedSize(500_000))
+        .isGreaterThan((long) CuckooFilterCodec.MAX_ENCODED_SIZE);
+  }
+}
@@ -0,0 +1,89 @@
+package com.yoloo.server.util.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static com.google.common.truth.Truth.assertThat;
+
+class Murmur3Test {
+
+  private final Random random = new Random(42);
+
+  @Test
+  void hash64Long_whenComparedToLittleEndianBytes_willReturnSameHash() {
+    for (int i = 0; i < 1_000; i++) {
+      long value = random.nextLong();
+      byte[] bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+
+      assertThat(Murmur3.hash64(value)).isEqualTo(Murmur3.hash64(bytes));
+    }
+  }
+
+  @Test
+  void hash64LongWithSeed_whenComparedToLittleEndianBytes_willReturnSameHash() {
+    long value = random.nextLong();
+    byte[] bytes = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN).putLong(value).array();
+
+    assertThat(Murmur3.hash64(value, 123)).isEqualTo(Murmur3.hash64(bytes, 8, 123));
+  }
+
+  @Test
+  void hash64LongPair_whenComparedToLittleEndianBytes_willReturnSameHash() {
+    for (int i = 0; i < 1_000; i++) {
+      long first = random.nextLong();
+      long second = random.nextLong();
+      byte[] bytes =
+          ByteBuffer.allocate(16)
+              .order(ByteOrder.LITTLE_ENDIAN)
+              .putLong(first)
+              .putLong(second)
+              .array();
+
+      assertThat(Murmur3.hash64Pair(first, second)).isEqualTo(Murmur3.hash64(bytes));
+    }
+  }
+
+  @Test
+  void hash64Int_whenComparedToLittleEndianBytes_willReturnSameHash() {
+    for (int i = 0; i < 1_000; i++) {
+      int value = random.nextInt();
+      byte[] bytes = ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(value).array();
+
+      assertThat(Murmur3.hash64(value)).isEqualTo(Murmur3.hash64(bytes));
+    }
+  }
+
+  @Test
+  void hash64CharSequence_whenAscii_willReturnSameHashAsUtf8Bytes() {
+    for (String value : new String[] {"", "a", "LIKE:1", "POST_COMMENT:1234567890", "12345678"}) {
+      assertThat(Murmur3.hash64(value))
+          .isEqualTo(Murmur3.hash64(value.getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Test
+  void hash64CharSequence_whenRandomUnicode_willReturnSameHashAsUtf8Bytes() {
+    for (int i = 0; i < 1_000; i++) {
+      char[] chars = new char[random.nextInt(40)];
+      for (int j = 0; j < chars.length; j++) {
+        chars[j] = (char) random.nextInt(Character.MAX_VALUE + 1);
+      }
+      String value = new String(chars);
+
+      assertThat(Murmur3.hash64(value))
+          .isEqualTo(Murmur3.hash64(value.getBytes(StandardCharsets.UTF_8)));
+    }
+  }
+
+  @Test
+  void hash64CharSequence_whenSurrogatePair_willReturnSameHashAsUtf8Bytes() {
+    String value = "post 😀 liked";
+
+    assertThat(Murmur3.hash64(value))
+        .isEqualTo(Murmur3.hash64(value.getBytes(StandardCharsets.UTF_8)));
+  }
+}
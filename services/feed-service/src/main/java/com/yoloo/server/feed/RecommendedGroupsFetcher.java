@@ -1,17 +1,28 @@
 package com.yoloo.server.feed;
 
-import com.yoloo.server.feed.core.FeedItem;
+import com.yoloo.server.feed.core.ItemFetcher;
 
-import java.util.Optional;
+import java.util.Collections;
+import java.util.List;
 
-public class RecommendedGroupsFetcher extends ItemFetcher {
+public class RecommendedGroupsFetcher extends ItemFetcher<RecommendedGroups> {
 
   @Override
-  public Optional<FeedItem> fetch(int totalConsumedCount, int requestedCount) {
-    if (totalConsumedCount == 0) {
-      return Optional.of(new RecommendedGroups());
+  public boolean matches(int position, int requestedCount) {
+    return position == 0;
+  }
+
+  @Override
+  public int order() {
+    return 0;
+  }
+
+  @Override
+  protected List<RecommendedGroups> fetch(String cursor, int limit) {
+    if (cursor != null) {
+      return Collections.emptyList();
     }
 
-    return fetchNext(totalConsumedCount, requestedCount);
+    return Collections.singletonList(new RecommendedGroups());
   }
 }
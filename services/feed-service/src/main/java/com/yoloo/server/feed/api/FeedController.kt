@@ -1,18 +1,75 @@
 package com.yoloo.server.feed.api
 
+import com.yoloo.server.auth.AuthUtil
 import com.yoloo.server.common.vo.response.CollectionResponse
+import com.yoloo.server.feed.config.FeedProperties
 import com.yoloo.server.feed.service.FeedService
+import com.yoloo.server.feed.snapshot.AnonymousFeedSnapshotService
+import com.yoloo.server.feed.snapshot.SnapshotProperties
+import com.yoloo.server.feed.timeline.TimelineService
+import org.springframework.http.CacheControl
+import org.springframework.http.MediaType
+import org.springframework.http.ResponseEntity
+import org.springframework.security.core.Authentication
 import org.springframework.web.bind.annotation.GetMapping
 import org.springframework.web.bind.annotation.RequestMapping
 import org.springframework.web.bind.annotation.RequestParam
 import org.springframework.web.bind.annotation.RestController
+import org.springframework.web.context.request.WebRequest
+import java.util.concurrent.TimeUnit
 
 @RestController
 @RequestMapping("/api/feeds")
-class FeedController(private val feedService: FeedService) {
+class FeedController(
+    private val feedService: FeedService,
+    private val timelineService: TimelineService,
+    private val anonymousFeedSnapshotService: AnonymousFeedSnapshotService,
+    private val feedProperties: FeedProperties,
+    private val snapshotProperties: SnapshotProperties
+) {
 
+    /**
+     * Serves the leading pages from the pre-serialized snapshot, answering 304 when the client
+     * already has the page, and falls back to the database beyond them or for other page sizes.
+     */
     @GetMapping("/anonymous")
-    fun listAnonymousFeed(@RequestParam("cursor", required = false) cursor: String?): CollectionResponse {
-        return feedService.listAnonymousFeed(cursor)
+    fun listAnonymousFeed(
+        @RequestParam("cursor", required = false) cursor: String?,
+        @RequestParam("limit", required = false) limit: Int?,
+        request: WebRequest
+    ): ResponseEntity<*>? {
+        if (limit == null || limit == feedProperties.defaultPageSize) {
+            val page = anonymousFeedSnapshotService.get().getPage(cursor).orElse(null)
+            if (page != null) {
+                if (request.checkNotModified(page.etag)) {
+                    return null
+                }
+
+                return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON_UTF8)
+                    .eTag(page.etag)
+                    .cacheControl(CacheControl.maxAge(snapshotProperties.maxAgeSeconds.toLong(), TimeUnit.SECONDS))
+                    .body(page.json)
+            }
+        }
+
+        return ResponseEntity.ok(feedService.listAnonymousFeed(cursor, limit))
+    }
+
+    @GetMapping("/home")
+    fun listHomeFeed(
+        authentication: Authentication,
+        @RequestParam("cursor", required = false) cursor: String?
+    ): CollectionResponse {
+        val user = AuthUtil.from(authentication)
+
+        return timelineService.listHomeFeed(user.userId, cursor)
+    }
+
+    @GetMapping("/home/top")
+    fun listTopFeed(authentication: Authentication): CollectionResponse {
+        val user = AuthUtil.from(authentication)
+
+        return timelineService.listTopFeed(user.userId)
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,19 @@
+package com.yoloo.server.feed.api
+
+import com.yoloo.server.feed.snapshot.AnonymousFeedSnapshotService
+import org.springframework.http.HttpStatus
+import org.springframework.web.bind.annotation.GetMapping
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.ResponseStatus
+import org.springframework.web.bind.annotation.RestController
+
+@RestController
+@RequestMapping("/_ah/tasks/feed")
+class SnapshotTaskController(private val anonymousFeedSnapshotService: AnonymousFeedSnapshotService) {
+
+    @GetMapping("/anonymous-snapshot")
+    @ResponseStatus(HttpStatus.OK)
+    fun refreshAnonymousSnapshot() {
+        anonymousFeedSnapshotService.refresh()
+    }
+}
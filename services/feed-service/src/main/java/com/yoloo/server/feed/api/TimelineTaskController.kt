@@ -0,0 +1,100 @@
+package com.yoloo.server.feed.api
+
+import com.yoloo.server.feed.timeline.TimelineService
+import com.yoloo.server.feed.timeline.TimelineSyncService
+import org.springframework.http.HttpStatus
+import org.springframework.web.bind.annotation.PostMapping
+import org.springframework.web.bind.annotation.RequestMapping
+import org.springframework.web.bind.annotation.RequestParam
+import org.springframework.web.bind.annotation.ResponseStatus
+import org.springframework.web.bind.annotation.RestController
+import java.time.Instant
+import java.time.LocalDateTime
+import java.time.ZoneId
+
+/**
+ * Push task endpoints of the core service feed sync queue.
+ */
+@RestController
+@RequestMapping("/_ah/tasks/timeline")
+class TimelineTaskController(
+    private val timelineService: TimelineService,
+    private val timelineSyncService: TimelineSyncService
+) {
+
+    /**
+     * Stores a created post and fans it out. A redelivered task fans out again, which leaves the timelines unchanged.
+     */
+    @PostMapping("/posts")
+    @ResponseStatus(HttpStatus.OK)
+    fun createPost(
+        @RequestParam("postId") postId: Long,
+        @RequestParam("authorId") authorId: Long,
+        @RequestParam("authorDisplayName") authorDisplayName: String,
+        @RequestParam("authorProfileImageUrl") authorProfileImageUrl: String,
+        @RequestParam("groupId") groupId: Long,
+        @RequestParam("groupDisplayName") groupDisplayName: String,
+        @RequestParam("title") title: String,
+        @RequestParam("content") content: String,
+        @RequestParam("tag", required = false) tags: List<String>?,
+        @RequestParam("bounty", defaultValue = "0") bounty: Int,
+        @RequestParam("createdAt") createdAt: Long
+    ) {
+        timelineSyncService.savePost(
+            TimelineSyncService.PostProjection(
+                id = postId,
+                authorId = authorId,
+                authorDisplayName = authorDisplayName,
+                authorProfileImageUrl = authorProfileImageUrl,
+                groupId = groupId,
+                groupDisplayName = groupDisplayName,
+                title = title,
+                content = content,
+                tags = tags.orEmpty().toSet(),
+                bounty = bounty,
+                createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(createdAt), ZoneId.systemDefault())
+            )
+        )
+        timelineService.fanOut(postId)
+    }
+
+    @PostMapping("/counts")
+    @ResponseStatus(HttpStatus.OK)
+    fun updateCounts(
+        @RequestParam("postId") postId: Long,
+        @RequestParam("likeCount", required = false) likeCount: Int?,
+        @RequestParam("commentCount", required = false) commentCount: Int?
+    ) {
+        timelineSyncService.updateCounts(postId, likeCount, commentCount)
+    }
+
+    @PostMapping("/fan-out")
+    @ResponseStatus(HttpStatus.OK)
+    fun fanOut(@RequestParam("postId") postId: Long) {
+        timelineService.fanOut(postId)
+    }
+
+    @PostMapping("/follow")
+    @ResponseStatus(HttpStatus.OK)
+    fun follow(@RequestParam("followerId") followerId: Long, @RequestParam("followingId") followingId: Long) {
+        timelineSyncService.follow(followerId, followingId)
+    }
+
+    @PostMapping("/unfollow")
+    @ResponseStatus(HttpStatus.OK)
+    fun unfollow(@RequestParam("followerId") followerId: Long, @RequestParam("followingId") followingId: Long) {
+        timelineSyncService.unfollow(followerId, followingId)
+    }
+
+    @PostMapping("/subscribe")
+    @ResponseStatus(HttpStatus.OK)
+    fun subscribe(@RequestParam("userId") userId: Long, @RequestParam("groupId") groupId: Long) {
+        timelineSyncService.subscribe(userId, groupId)
+    }
+
+    @PostMapping("/unsubscribe")
+    @ResponseStatus(HttpStatus.OK)
+    fun unsubscribe(@RequestParam("userId") userId: Long, @RequestParam("groupId") groupId: Long) {
+        timelineSyncService.unsubscribe(userId, groupId)
+    }
+}
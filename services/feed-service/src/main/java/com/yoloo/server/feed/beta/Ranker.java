@@ -1,7 +1,16 @@
 package com.yoloo.server.feed.beta;
 
+/** Orders the candidate posts of a feed for a user. */
 @FunctionalInterface
 public interface Ranker {
 
-  double getRank();
+  /**
+   * Selects the best candidates.
+   *
+   * @param candidates the candidate posts
+   * @param context the user the feed is ranked for
+   * @param limit the maximum number of selected candidates
+   * @return indices of at most {@code limit} candidates, best first
+   */
+  int[] rank(RankingCandidates candidates, RankingContext context, int limit);
 }
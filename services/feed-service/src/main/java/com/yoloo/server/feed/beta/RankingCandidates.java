@@ -0,0 +1,71 @@
+package com.yoloo.server.feed.beta;
+
+import com.yoloo.server.feed.jpa.Post;
+
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * Candidate posts of a ranking, kept as parallel primitive arrays so scoring a large pool doesn't
+ * chase entity references.
+ */
+public final class RankingCandidates {
+
+  private final long[] postIds;
+  private final long[] authorIds;
+  private final long[] groupIds;
+  private final long[] createdAtMillis;
+  private final int[] likes;
+  private final int[] comments;
+
+  private RankingCandidates(int size) {
+    this.postIds = new long[size];
+    this.authorIds = new long[size];
+    this.groupIds = new long[size];
+    this.createdAtMillis = new long[size];
+    this.likes = new int[size];
+    this.comments = new int[size];
+  }
+
+  public static RankingCandidates of(List<Post> posts) {
+    RankingCandidates candidates = new RankingCandidates(posts.size());
+    for (int i = 0; i < posts.size(); i++) {
+      Post post = posts.get(i);
+      candidates.postIds[i] = post.getId();
+      candidates.authorIds[i] = post.getAuthor().getId();
+      candidates.groupIds[i] = post.getGroup().getId();
+      candidates.createdAtMillis[i] = post.getCreatedAt().toInstant(ZoneOffset.UTC).toEpochMilli();
+      candidates.likes[i] = post.getLikeCount();
+      candidates.comments[i] = post.getCommentCount();
+    }
+    return candidates;
+  }
+
+  public int size() {
+    return postIds.length;
+  }
+
+  public long getPostId(int i) {
+    return postIds[i];
+  }
+
+  public long getAuthorId(int i) {
+    return authorIds[i];
+  }
+
+  public long getGroupId(int i) {
+    return groupIds[i];
+  }
+
+  public long getCreatedAtMillis(int i) {
+    return createdAtMillis[i];
+  }
+
+  public int getLikes(int i) {
+    return likes[i];
+  }
+
+  public int getComments(int i) {
+    return comments[i];
+  }
+}
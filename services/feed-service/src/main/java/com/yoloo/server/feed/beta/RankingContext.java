@@ -0,0 +1,49 @@
+package com.yoloo.server.feed.beta;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/** The user a feed is ranked for, with its followed authors and subscribed groups. */
+public final class RankingContext {
+
+  private final long userId;
+  private final long nowMillis;
+  private final long[] followedAuthorIds;
+  private final long[] subscribedGroupIds;
+
+  private RankingContext(
+      long userId, long nowMillis, long[] followedAuthorIds, long[] subscribedGroupIds) {
+    this.userId = userId;
+    this.nowMillis = nowMillis;
+    this.followedAuthorIds = followedAuthorIds;
+    this.subscribedGroupIds = subscribedGroupIds;
+  }
+
+  public static RankingContext of(
+      long userId, Collection<Long> followedAuthorIds, Collection<Long> subscribedGroupIds) {
+    return new RankingContext(
+        userId, System.currentTimeMillis(), sorted(followedAuthorIds), sorted(subscribedGroupIds));
+  }
+
+  public long getUserId() {
+    return userId;
+  }
+
+  public long getNowMillis() {
+    return nowMillis;
+  }
+
+  public boolean isFollowing(long authorId) {
+    return Arrays.binarySearch(followedAuthorIds, authorId) >= 0;
+  }
+
+  public boolean isSubscribed(long groupId) {
+    return Arrays.binarySearch(subscribedGroupIds, groupId) >= 0;
+  }
+
+  private static long[] sorted(Collection<Long> ids) {
+    long[] array = ids.stream().mapToLong(Long::longValue).toArray();
+    Arrays.sort(array);
+    return array;
+  }
+}
@@ -0,0 +1,96 @@
+package com.yoloo.server.feed.beta;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "feed.ranking")
+public class RankingProperties {
+  /** Age after which the score of a post halves. */
+  private double recencyHalfLifeHours = 24.0;
+
+  /** Weight of the likes and comments of a post. */
+  private double engagementWeight = 1.0;
+
+  /** How many likes a comment is worth. */
+  private double commentWeight = 2.0;
+
+  /** Weight of posts written by authors the user follows. */
+  private double affinityWeight = 1.5;
+
+  /** Weight of posts shared in groups the user is subscribed to. */
+  private double subscriptionWeight = 0.5;
+
+  /** Number of candidates scored by one task. */
+  private int batchSize = 256;
+
+  /** Number of threads scoring batches. */
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /** Number of timeline posts considered for a ranked page. */
+  private int candidateCount = 500;
+
+  public double getRecencyHalfLifeHours() {
+    return recencyHalfLifeHours;
+  }
+
+  public void setRecencyHalfLifeHours(double recencyHalfLifeHours) {
+    this.recencyHalfLifeHours = recencyHalfLifeHours;
+  }
+
+  public double getEngagementWeight() {
+    return engagementWeight;
+  }
+
+  public void setEngagementWeight(double engagementWeight) {
+    this.engagementWeight = engagementWeight;
+  }
+
+  public double getCommentWeight() {
+    return commentWeight;
+  }
+
+  public void setCommentWeight(double commentWeight) {
+    this.commentWeight = commentWeight;
+  }
+
+  public double getAffinityWeight() {
+    return affinityWeight;
+  }
+
+  public void setAffinityWeight(double affinityWeight) {
+    this.affinityWeight = affinityWeight;
+  }
+
+  public double getSubscriptionWeight() {
+    return subscriptionWeight;
+  }
+
+  public void setSubscriptionWeight(double subscriptionWeight) {
+    this.subscriptionWeight = subscriptionWeight;
+  }
+
+  public int getBatchSize() {
+    return batchSize;
+  }
+
+  public void setBatchSize(int batchSize) {
+    this.batchSize = batchSize;
+  }
+
+  public int getParallelism() {
+    return parallelism;
+  }
+
+  public void setParallelism(int parallelism) {
+    this.parallelism = parallelism;
+  }
+
+  public int getCandidateCount() {
+    return candidateCount;
+  }
+
+  public void setCandidateCount(int candidateCount) {
+    this.candidateCount = candidateCount;
+  }
+}
@@ -0,0 +1,86 @@
+package com.yoloo.server.feed.beta;
+
+/**
+ * Bounded top-k selection over a score array. Keeps a min-heap of the best {@code k} indices, so
+ * selecting a page out of {@code n} candidates costs {@code O(n log k)} instead of a full sort.
+ */
+final class TopK {
+
+  private TopK() {}
+
+  /**
+   * Selects the indices of the highest scores.
+   *
+   * @param scores the scores
+   * @param k the maximum number of selected indices
+   * @return at most {@code k} indices, highest score first, the lower index first on ties
+   */
+  static int[] select(double[] scores, int k) {
+    int size = Math.min(k, scores.length);
+    if (size <= 0) {
+      return new int[0];
+    }
+
+    int[] heap = new int[size];
+    int count = 0;
+    for (int i = 0; i < scores.length; i++) {
+      if (count < size) {
+        heap[count] = i;
+        siftUp(heap, count++, scores);
+      } else if (worse(heap[0], i, scores)) {
+        heap[0] = i;
+        siftDown(heap, size, scores);
+      }
+    }
+
+    // Popping the worst index first fills the result from its end
+    int[] selected = new int[size];
+    for (int n = size; n > 0; n--) {
+      selected[n - 1] = heap[0];
+      heap[0] = heap[n - 1];
+      siftDown(heap, n - 1, scores);
+    }
+    return selected;
+  }
+
+  private static void siftUp(int[] heap, int position, double[] scores) {
+    int index = heap[position];
+    while (position > 0) {
+      int parent = (position - 1) >>> 1;
+      if (!worse(index, heap[parent], scores)) {
+        break;
+      }
+      heap[position] = heap[parent];
+      position = parent;
+    }
+    heap[position] = index;
+  }
+
+  private static void siftDown(int[] heap, int size, double[] scores) {
+    if (size == 0) {
+      return;
+    }
+
+    int index = heap[0];
+    int position = 0;
+    int half = size >>> 1;
+    while (position < half) {
+      int child = 2 * position + 1;
+      int right = child + 1;
+      if (right < size && worse(heap[right], heap[child], scores)) {
+        child = right;
+      }
+      if (!worse(heap[child], index, scores)) {
+        break;
+      }
+      heap[position] = heap[child];
+      position = child;
+    }
+    heap[position] = index;
+  }
+
+  // Whether candidate a ranks below candidate b.
+  private static boolean worse(int a, int b, double[] scores) {
+    return scores[a] < scores[b] || (scores[a] == scores[b] && a > b);
+  }
+}
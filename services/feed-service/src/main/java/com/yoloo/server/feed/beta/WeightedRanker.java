@@ -0,0 +1,105 @@
+package com.yoloo.server.feed.beta;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scores every candidate as
+ *
+ * <pre>
+ * decay(age) * (1 + engagement * log(1 + likes + comment * comments)
+ *                 + affinity * following + subscription * subscribed)
+ * </pre>
+ *
+ * where {@code decay} halves the score every {@link RankingProperties#getRecencyHalfLifeHours()}.
+ * Large candidate pools are scored in parallel batches of {@link RankingProperties#getBatchSize()}
+ * into one score array, and the best candidates are picked with a bounded top-k selection.
+ */
+@Component
+public class WeightedRanker implements Ranker {
+
+  private static final double MILLIS_PER_HOUR = TimeUnit.HOURS.toMillis(1);
+
+  private final RankingProperties properties;
+  private final ExecutorService executor;
+
+  @Autowired
+  public WeightedRanker(RankingProperties properties) {
+    this.properties = properties;
+    this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getParallelism()));
+  }
+
+  @Override
+  public int[] rank(RankingCandidates candidates, RankingContext context, int limit) {
+    int size = candidates.size();
+    int batchSize = Math.max(1, properties.getBatchSize());
+    double[] scores = new double[size];
+
+    if (size <= batchSize) {
+      score(candidates, context, scores, 0, size);
+    } else {
+      List<Future<?>> batches = new ArrayList<>(size / batchSize + 1);
+      for (int from = 0; from < size; from += batchSize) {
+        int start = from;
+        int end = Math.min(size, from + batchSize);
+        batches.add(executor.submit(() -> score(candidates, context, scores, start, end)));
+      }
+      awaitAll(batches);
+    }
+
+    return TopK.select(scores, limit);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdown();
+  }
+
+  private void score(
+      RankingCandidates candidates, RankingContext context, double[] scores, int from, int to) {
+    double decayPerHour = Math.log(2) / properties.getRecencyHalfLifeHours();
+    double engagementWeight = properties.getEngagementWeight();
+    double commentWeight = properties.getCommentWeight();
+    double affinityWeight = properties.getAffinityWeight();
+    double subscriptionWeight = properties.getSubscriptionWeight();
+    long now = context.getNowMillis();
+
+    for (int i = from; i < to; i++) {
+      double ageHours = Math.max(0L, now - candidates.getCreatedAtMillis(i)) / MILLIS_PER_HOUR;
+      double engagement =
+          Math.log1p(candidates.getLikes(i) + commentWeight * candidates.getComments(i));
+
+      double boost = 1.0 + engagementWeight * engagement;
+      if (context.isFollowing(candidates.getAuthorId(i))) {
+        boost += affinityWeight;
+      }
+      if (context.isSubscribed(candidates.getGroupId(i))) {
+        boost += subscriptionWeight;
+      }
+
+      scores[i] = Math.exp(-decayPerHour * ageHours) * boost;
+    }
+  }
+
+  private static void awaitAll(List<Future<?>> futures) {
+    try {
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Ranking was interrupted", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("A ranking batch failed", e.getCause());
+    }
+  }
+}
@@ -0,0 +1,44 @@
+package com.yoloo.server.feed.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "feed")
+public class FeedProperties {
+  /** Page size used when the client doesn't ask for one. */
+  private int defaultPageSize = 20;
+
+  /** Largest page size a client can ask for. */
+  private int maxPageSize = 50;
+
+  /**
+   * Key signing the page cursors, must be the same on every instance. Only the local profile has a
+   * default, everywhere else the service doesn't start without it.
+   */
+  private String cursorSecret;
+
+  public int getDefaultPageSize() {
+    return defaultPageSize;
+  }
+
+  public void setDefaultPageSize(int defaultPageSize) {
+    this.defaultPageSize = defaultPageSize;
+  }
+
+  public int getMaxPageSize() {
+    return maxPageSize;
+  }
+
+  public void setMaxPageSize(int maxPageSize) {
+    this.maxPageSize = maxPageSize;
+  }
+
+  public String getCursorSecret() {
+    return cursorSecret;
+  }
+
+  public void setCursorSecret(String cursorSecret) {
+    this.cursorSecret = cursorSecret;
+  }
+}
@@ -0,0 +1,26 @@
+package com.yoloo.server.feed.config
+
+import com.yoloo.server.auth.BaseWebSecurityConfig
+import com.yoloo.server.auth.firebase.EnableFirebaseSecurity
+import com.yoloo.server.auth.firebase.FirebaseAuthenticationProvider
+import org.springframework.security.config.annotation.web.builders.HttpSecurity
+import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity
+
+@EnableFirebaseSecurity
+@EnableWebSecurity
+class WebSecurityConfig(
+    firebaseAuthenticationProvider: FirebaseAuthenticationProvider
+) : BaseWebSecurityConfig(firebaseAuthenticationProvider) {
+
+    override fun configure(http: HttpSecurity) {
+        super.configure(http)
+        http
+            .authorizeRequests()
+            .antMatchers("/api/feeds/anonymous", "/_ah/**")
+            .permitAll()
+            .and()
+            .authorizeRequests()
+            .antMatchers("/api/**")
+            .authenticated()
+    }
+}
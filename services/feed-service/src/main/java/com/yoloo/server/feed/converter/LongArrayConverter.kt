@@ -0,0 +1,28 @@
+package com.yoloo.server.feed.converter
+
+import java.nio.ByteBuffer
+import javax.persistence.AttributeConverter
+import javax.persistence.Converter
+
+/**
+ * Stores a [LongArray] as packed 8 byte big endian values, without any per element overhead.
+ */
+@Converter
+class LongArrayConverter : AttributeConverter<LongArray, ByteArray> {
+
+    override fun convertToDatabaseColumn(attribute: LongArray?): ByteArray {
+        val values = attribute ?: LongArray(0)
+        val buffer = ByteBuffer.allocate(values.size * java.lang.Long.BYTES)
+        buffer.asLongBuffer().put(values)
+        return buffer.array()
+    }
+
+    override fun convertToEntityAttribute(dbData: ByteArray?): LongArray {
+        if (dbData == null || dbData.isEmpty()) {
+            return LongArray(0)
+        }
+
+        val buffer = ByteBuffer.wrap(dbData).asLongBuffer()
+        return LongArray(buffer.remaining()).also { buffer.get(it) }
+    }
+}
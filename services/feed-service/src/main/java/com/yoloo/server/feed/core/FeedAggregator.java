@@ -1,30 +1,45 @@
 package com.yoloo.server.feed.core;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
+/**
+ * Builds a feed page out of several {@link ItemFetcher}s.
+ *
+ * <p>Every fetcher runs on the given executor at the same time. Each one has until its {@link
+ * ItemFetcher#getBudgetMillis()}, counted from the start of the aggregation, to answer. Late
+ * fetchers are interrupted, and they are skipped along with the ones which fail or are rejected by
+ * the executor, so a page takes as long as its slowest source within budget. The positions are
+ * then filled by the first fetcher in {@link ItemFetcher#order()} which matches the position and
+ * still has items.
+ *
+ * <p>The executor belongs to the caller. A bounded queue with an abort policy turns an overloaded
+ * executor into skipped sources instead of slower pages.
+ */
 public class FeedAggregator {
+  private static final Logger logger = LoggerFactory.getLogger(FeedAggregator.class);
 
-  private final List<FeedItem> feedItems = new ArrayList<>();
+  private final List<FeedItem> feedItems;
 
   private FeedAggregator(Builder builder) {
-    List<ItemFetcher<FeedItem>> fetchers = builder.items;
-    int limit = builder.limit;
-    int totalConsumedCount = 100;
-
-    Collections.sort(fetchers);
-
-    for(int i = 1; i <= limit; i++) {
-      for (ItemFetcher<FeedItem> fetcher : fetchers) {
-        if (fetcher.matches(totalConsumedCount, limit)) {
-          FeedItem item = fetcher.getFromLast(i);
-          feedItems.add(item);
-          ++totalConsumedCount;
-          break;
-        }
-      }
-    }
+    List<ItemFetcher<? extends FeedItem>> fetchers = new ArrayList<>(builder.fetchers);
+    Collections.sort(fetchers, (a, b) -> Integer.compare(a.order(), b.order()));
+
+    List<Deque<FeedItem>> fetched = fetchAll(fetchers, builder);
+    this.feedItems = merge(fetchers, fetched, builder.limit);
   }
 
   public static Builder newBuilder(int limit) {
@@ -35,18 +50,88 @@ public class FeedAggregator {
     return feedItems;
   }
 
+  private static List<Deque<FeedItem>> fetchAll(
+      List<ItemFetcher<? extends FeedItem>> fetchers, Builder builder) {
+    long startNanos = System.nanoTime();
+
+    List<Future<? extends List<? extends FeedItem>>> futures = new ArrayList<>(fetchers.size());
+    for (ItemFetcher<? extends FeedItem> fetcher : fetchers) {
+      Future<? extends List<? extends FeedItem>> future;
+      try {
+        future = builder.executor.submit(() -> fetcher.fetch(builder.cursor, builder.limit));
+      } catch (RejectedExecutionException e) {
+        logger.warn("{} was rejected, skipping it", fetcher.getClass().getSimpleName());
+        future = CompletableFuture.completedFuture(Collections.emptyList());
+      }
+      futures.add(future);
+    }
+
+    List<Deque<FeedItem>> fetched = new ArrayList<>(fetchers.size());
+    for (int i = 0; i < fetchers.size(); i++) {
+      ItemFetcher<? extends FeedItem> fetcher = fetchers.get(i);
+      long deadlineNanos = startNanos + TimeUnit.MILLISECONDS.toNanos(fetcher.getBudgetMillis());
+      fetched.add(new ArrayDeque<>(await(fetcher, futures.get(i), deadlineNanos)));
+    }
+    return fetched;
+  }
+
+  private static List<? extends FeedItem> await(
+      ItemFetcher<? extends FeedItem> fetcher,
+      Future<? extends List<? extends FeedItem>> future,
+      long deadlineNanos) {
+    String name = fetcher.getClass().getSimpleName();
+    try {
+      long remainingNanos = Math.max(0L, deadlineNanos - System.nanoTime());
+      List<? extends FeedItem> items = future.get(remainingNanos, TimeUnit.NANOSECONDS);
+      return items == null ? Collections.emptyList() : items;
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      logger.warn("{} missed its {} ms budget, skipping it", name, fetcher.getBudgetMillis());
+    } catch (ExecutionException e) {
+      logger.warn("{} failed, skipping it", name, e.getCause());
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      future.cancel(true);
+    }
+    return Collections.emptyList();
+  }
+
+  private static List<FeedItem> merge(
+      List<ItemFetcher<? extends FeedItem>> fetchers, List<Deque<FeedItem>> fetched, int limit) {
+    List<FeedItem> items = new ArrayList<>(limit);
+    for (int position = 0; position < limit; position++) {
+      FeedItem next = null;
+      for (int i = 0; i < fetchers.size() && next == null; i++) {
+        if (!fetched.get(i).isEmpty() && fetchers.get(i).matches(position, limit)) {
+          next = fetched.get(i).poll();
+        }
+      }
+      if (next == null) {
+        break;
+      }
+      items.add(next);
+    }
+    return items;
+  }
+
   public static class Builder {
-    private List<ItemFetcher<FeedItem>> items;
-    private int limit;
+    private final List<ItemFetcher<? extends FeedItem>> fetchers;
+    private final int limit;
+    private ExecutorService executor;
     private String cursor;
 
     private Builder(int limit) {
       this.limit = limit;
-      this.items = new ArrayList<>(limit);
+      this.fetchers = new ArrayList<>();
+    }
+
+    public Builder addFetcher(ItemFetcher<? extends FeedItem> fetcher) {
+      fetchers.add(fetcher);
+      return this;
     }
 
-    public Builder addFetcher(ItemFetcher<FeedItem> fetcher) {
-      items.add(fetcher);
+    public Builder executor(ExecutorService executor) {
+      this.executor = executor;
       return this;
     }
 
@@ -56,6 +141,9 @@ public class FeedAggregator {
     }
 
     public FeedAggregator build() {
+      if (executor == null) {
+        throw new IllegalStateException("executor is not set");
+      }
       return new FeedAggregator(this);
     }
   }
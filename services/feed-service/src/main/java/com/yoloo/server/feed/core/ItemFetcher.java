@@ -1,32 +1,45 @@
 package com.yoloo.server.feed.core;
 
-import java.util.ArrayList;
 import java.util.List;
 
+/**
+ * A source of feed items. {@link FeedAggregator} fetches every source at the same time and then
+ * fills the positions of the page, asking the sources in {@link #order()} whether they fill it.
+ */
 public abstract class ItemFetcher<T extends FeedItem> implements Comparable<ItemFetcher<T>> {
 
-  private final List<T> cached;
+  /** Latency budget of a source which doesn't declare its own. */
+  public static final long DEFAULT_BUDGET_MILLIS = 300L;
 
-  protected ItemFetcher() {
-    cached = new ArrayList<>();
-  }
-
-  public abstract boolean matches(int totalConsumedCount, int requestedCount);
+  /**
+   * Whether this source fills the given position of the page.
+   *
+   * @param position the position, starting at 0
+   * @param requestedCount the page size
+   */
+  public abstract boolean matches(int position, int requestedCount);
 
   public abstract int order();
 
-  public T getFromLast(int i) {
-    if (cached.isEmpty()) {
-      List<T> fetched = fetch();
-      cached.addAll(fetched);
-    }
-    return cached.get(cached.size() - i);
+  /**
+   * How long the aggregator waits for {@link #fetch(String, int)}. A source which misses its
+   * budget is left out of the page.
+   */
+  public long getBudgetMillis() {
+    return DEFAULT_BUDGET_MILLIS;
   }
 
-  protected abstract List<T> fetch();
+  /**
+   * Fetches the items of the page, called on an aggregator thread.
+   *
+   * @param cursor the page cursor, {@code null} for the first page
+   * @param limit the page size
+   * @return the items in the order they should appear
+   */
+  protected abstract List<T> fetch(String cursor, int limit);
 
   @Override
   public int compareTo(ItemFetcher<T> o) {
-    return order() - o.order();
+    return Integer.compare(order(), o.order());
   }
 }
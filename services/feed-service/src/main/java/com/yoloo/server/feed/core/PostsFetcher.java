@@ -6,17 +6,17 @@ import java.util.List;
 public class PostsFetcher extends ItemFetcher<Post> {
 
   @Override
-  public boolean matches(int totalConsumedCount, int requestedCount) {
+  public boolean matches(int position, int requestedCount) {
     return true;
   }
 
   @Override
   public int order() {
-    return 0;
+    return 1;
   }
 
   @Override
-  protected List<Post> fetch() {
+  protected List<Post> fetch(String cursor, int limit) {
     return Collections.emptyList();
   }
 }
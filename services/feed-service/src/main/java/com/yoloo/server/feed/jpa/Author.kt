@@ -18,5 +18,9 @@ class Author(
     var profileImageUrl: String,
 
     @OneToMany(mappedBy = "author")
-    var posts: Set<Post>
+    var posts: Set<Post>,
+
+    /** Whether the author has more followers than the fan-out threshold, see TimelineService. */
+    @Column(columnDefinition = "boolean default false not null")
+    var largeSource: Boolean = false
 )
@@ -0,0 +1,26 @@
+package com.yoloo.server.feed.jpa
+
+import com.yoloo.server.common.util.NoArg
+import javax.persistence.*
+
+@NoArg
+@Entity
+@Table(
+    indexes = [
+        Index(name = "idx_follow_following_id", columnList = "following_id"),
+        Index(name = "idx_follow_follower_id", columnList = "follower_id")
+    ],
+    uniqueConstraints = [UniqueConstraint(columnNames = ["follower_id", "following_id"])]
+)
+class Follow(
+    @Id
+    @GeneratedValue
+    @Column(name = "follow_id")
+    var id: Long? = null,
+
+    @Column(name = "follower_id", nullable = false)
+    var followerId: Long,
+
+    @Column(name = "following_id", nullable = false)
+    var followingId: Long
+)
@@ -4,7 +4,7 @@ import com.yoloo.server.common.util.NoArg
 import javax.persistence.*
 
 @NoArg
-@Entity
+@Entity(name = "PostGroup")
 @Table(name = "post_group")
 class Group(
     @Id
@@ -15,5 +15,9 @@ class Group(
     var displayName: String,
 
     @OneToMany(mappedBy = "group", cascade = [CascadeType.ALL], orphanRemoval = true)
-    var posts: Set<Post>
+    var posts: Set<Post>,
+
+    /** Whether the group has more subscribers than the fan-out threshold, see TimelineService. */
+    @Column(columnDefinition = "boolean default false not null")
+    var largeSource: Boolean = false
 )
@@ -12,7 +12,7 @@ import javax.persistence.*
 
 @NoArg
 @Entity
-@Table
+@Table(indexes = [Index(name = "idx_post_created_at", columnList = "created_at, post_id")])
 class Post(
     @Id
     @Column(name = "post_id")
@@ -50,6 +50,16 @@ class Post(
     @Column(nullable = false)
     var bounty: Int = 0,
 
-    @Column(nullable = false)
+    /**
+     * Like and comment counts of the core counters, copied by the feed sync queue after every change, see
+     * [com.yoloo.server.feed.timeline.TimelineSyncService.updateCounts].
+     */
+    @Column(nullable = false, columnDefinition = "int default 0")
+    var likeCount: Int = 0,
+
+    @Column(nullable = false, columnDefinition = "int default 0")
+    var commentCount: Int = 0,
+
+    @Column(name = "created_at", nullable = false)
     var createdAt: LocalDateTime = LocalDateTime.now()
 )
@@ -0,0 +1,26 @@
+package com.yoloo.server.feed.jpa
+
+import com.yoloo.server.common.util.NoArg
+import javax.persistence.*
+
+@NoArg
+@Entity
+@Table(
+    indexes = [
+        Index(name = "idx_subscription_group_id", columnList = "group_id"),
+        Index(name = "idx_subscription_user_id", columnList = "user_id")
+    ],
+    uniqueConstraints = [UniqueConstraint(columnNames = ["user_id", "group_id"])]
+)
+class Subscription(
+    @Id
+    @GeneratedValue
+    @Column(name = "subscription_id")
+    var id: Long? = null,
+
+    @Column(name = "user_id", nullable = false)
+    var userId: Long,
+
+    @Column(name = "group_id", nullable = false)
+    var groupId: Long
+)
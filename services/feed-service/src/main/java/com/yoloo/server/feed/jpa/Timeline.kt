@@ -0,0 +1,22 @@
+package com.yoloo.server.feed.jpa
+
+import com.yoloo.server.common.util.NoArg
+import com.yoloo.server.feed.converter.LongArrayConverter
+import javax.persistence.*
+
+/**
+ * Materialized home timeline of a user, post ids sorted newest first.
+ */
+@NoArg
+@Entity
+@Table
+class Timeline(
+    @Id
+    @Column(name = "user_id")
+    var userId: Long,
+
+    @Lob
+    @Convert(converter = LongArrayConverter::class)
+    @Column(nullable = false)
+    var postIds: LongArray = LongArray(0)
+)
@@ -0,0 +1,20 @@
+package com.yoloo.server.feed.jpa
+
+import com.yoloo.server.common.util.NoArg
+import java.time.LocalDateTime
+import javax.persistence.*
+
+/**
+ * Last time a user read its home feed or followed someone, only active users get new posts fanned out to them.
+ */
+@NoArg
+@Entity
+@Table(indexes = [Index(name = "idx_user_activity_last_active_at", columnList = "last_active_at")])
+class UserActivity(
+    @Id
+    @Column(name = "user_id")
+    var userId: Long,
+
+    @Column(name = "last_active_at", nullable = false)
+    var lastActiveAt: LocalDateTime
+)
@@ -22,7 +22,7 @@ class PostResponseMapper {
             tags = from.tags.toList(),
             approvedCommentId = from.approvedCommentId,
             bounty = from.bounty,
-            count = PostCountResponse(0, 0),
+            count = PostCountResponse(from.likeCount, from.commentCount),
             voted = voted,
             bookmarked = bookmarked,
             createdAt = from.createdAt,
@@ -0,0 +1,32 @@
+package com.yoloo.server.feed.pagination;
+
+import java.time.LocalDateTime;
+
+/** Position of the last post of a feed page, the next page starts right after it. */
+public final class FeedCursor {
+
+  private final LocalDateTime createdAt;
+  private final long postId;
+
+  private FeedCursor(LocalDateTime createdAt, long postId) {
+    this.createdAt = createdAt;
+    this.postId = postId;
+  }
+
+  public static FeedCursor of(LocalDateTime createdAt, long postId) {
+    return new FeedCursor(createdAt, postId);
+  }
+
+  public LocalDateTime getCreatedAt() {
+    return createdAt;
+  }
+
+  public long getPostId() {
+    return postId;
+  }
+
+  @Override
+  public String toString() {
+    return "FeedCursor{" + "createdAt=" + createdAt + ", postId=" + postId + '}';
+  }
+}
@@ -0,0 +1,102 @@
+package com.yoloo.server.feed.pagination;
+
+import com.yoloo.server.common.exception.exception.BadRequestException;
+import com.yoloo.server.feed.config.FeedProperties;
+import com.yoloo.server.feed.util.FeedErrors;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * Turns {@link FeedCursor}s into opaque url safe tokens and back.
+ *
+ * <p>A token is the cursor followed by a truncated HMAC-SHA256 of it, so clients can't forge a
+ * position and send the keyset query to an arbitrary point of the table.
+ */
+@Component
+public class FeedCursorCodec {
+
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final byte VERSION = 1;
+  private static final int CURSOR_LENGTH = 1 + Long.BYTES + Integer.BYTES + Long.BYTES;
+  private static final int SIGNATURE_LENGTH = 12;
+
+  private final ThreadLocal<Mac> macs;
+
+  @Autowired
+  public FeedCursorCodec(FeedProperties properties) {
+    String secret = properties.getCursorSecret();
+    if (secret == null || secret.trim().isEmpty()) {
+      throw new IllegalStateException("feed.cursor-secret is not set");
+    }
+    SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+    this.macs = ThreadLocal.withInitial(() -> newMac(key));
+  }
+
+  public String encode(FeedCursor cursor) {
+    ByteBuffer buffer = ByteBuffer.allocate(CURSOR_LENGTH + SIGNATURE_LENGTH);
+    buffer.put(VERSION);
+    buffer.putLong(cursor.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+    buffer.putInt(cursor.getCreatedAt().getNano());
+    buffer.putLong(cursor.getPostId());
+    buffer.put(sign(buffer.array()));
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+  }
+
+  /**
+   * Decodes a token created by {@link #encode(FeedCursor)}.
+   *
+   * @param token the token
+   * @return the cursor
+   * @throws BadRequestException if the token is malformed or its signature doesn't match
+   */
+  public FeedCursor decode(String token) {
+    byte[] bytes;
+    try {
+      bytes = Base64.getUrlDecoder().decode(token);
+    } catch (IllegalArgumentException e) {
+      throw new BadRequestException(FeedErrors.INVALID_CURSOR);
+    }
+
+    if (bytes.length != CURSOR_LENGTH + SIGNATURE_LENGTH || bytes[0] != VERSION) {
+      throw new BadRequestException(FeedErrors.INVALID_CURSOR);
+    }
+
+    byte[] signature = Arrays.copyOfRange(bytes, CURSOR_LENGTH, bytes.length);
+    if (!MessageDigest.isEqual(signature, sign(bytes))) {
+      throw new BadRequestException(FeedErrors.INVALID_CURSOR);
+    }
+
+    ByteBuffer buffer = ByteBuffer.wrap(bytes, 1, CURSOR_LENGTH - 1);
+    LocalDateTime createdAt =
+        LocalDateTime.ofEpochSecond(buffer.getLong(), buffer.getInt(), ZoneOffset.UTC);
+    return FeedCursor.of(createdAt, buffer.getLong());
+  }
+
+  // Signs the cursor part of the buffer.
+  private byte[] sign(byte[] bytes) {
+    Mac mac = macs.get();
+    mac.update(bytes, 0, CURSOR_LENGTH);
+    return Arrays.copyOf(mac.doFinal(), SIGNATURE_LENGTH);
+  }
+
+  private static Mac newMac(SecretKeySpec key) {
+    try {
+      Mac mac = Mac.getInstance(ALGORITHM);
+      mac.init(key);
+      return mac;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+}
@@ -0,0 +1,21 @@
+package com.yoloo.server.feed.repository;
+
+import com.yoloo.server.feed.jpa.Author;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface AuthorRepository extends JpaRepository<Author, Long> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "update Author a set a.largeSource = :largeSource "
+          + "where a.id = :authorId and a.largeSource <> :largeSource")
+  int updateLargeSource(
+      @Param("authorId") long authorId, @Param("largeSource") boolean largeSource);
+}
@@ -0,0 +1,42 @@
+package com.yoloo.server.feed.repository;
+
+import com.yoloo.server.feed.jpa.Follow;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface FollowRepository extends JpaRepository<Follow, Long> {
+
+  long countByFollowingId(long followingId);
+
+  boolean existsByFollowerIdAndFollowingId(long followerId, long followingId);
+
+  @Modifying
+  @Transactional
+  @Query(
+      "delete from Follow f where f.followerId = :followerId and f.followingId = :followingId")
+  int deleteFollow(@Param("followerId") long followerId, @Param("followingId") long followingId);
+
+  @Query("select f.followingId from Follow f where f.followerId = :userId")
+  List<Long> findFollowingIds(@Param("userId") long userId);
+
+  @Query(
+      "select f.followerId from Follow f, UserActivity u "
+          + "where f.followingId = :authorId and u.userId = f.followerId "
+          + "and u.lastActiveAt >= :since")
+  List<Long> findActiveFollowerIds(
+      @Param("authorId") long authorId, @Param("since") LocalDateTime since);
+
+  /** Authors followed by the given user which are not fanned out on write. */
+  @Query(
+      "select f.followingId from Follow f, Author a "
+          + "where f.followerId = :userId and a.id = f.followingId and a.largeSource = true")
+  List<Long> findLargeSourceFollowingIds(@Param("userId") long userId);
+}
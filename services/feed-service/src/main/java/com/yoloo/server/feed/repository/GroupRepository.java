@@ -0,0 +1,20 @@
+package com.yoloo.server.feed.repository;
+
+import com.yoloo.server.feed.jpa.Group;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+@Repository
+public interface GroupRepository extends JpaRepository<Group, Long> {
+
+  @Modifying
+  @Transactional
+  @Query(
+      "update PostGroup g set g.largeSource = :largeSource "
+          + "where g.id = :groupId and g.largeSource <> :largeSource")
+  int updateLargeSource(@Param("groupId") long groupId, @Param("largeSource") boolean largeSource);
+}
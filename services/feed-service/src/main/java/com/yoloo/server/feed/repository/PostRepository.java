@@ -1,9 +1,66 @@
 package com.yoloo.server.feed.repository;
 
 import com.yoloo.server.feed.jpa.Post;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 
 @Repository
 public interface PostRepository extends JpaRepository<Post, Long> {
+
+  @Query(
+      "select p from Post p join fetch p.author join fetch p.group "
+          + "order by p.createdAt desc, p.id desc")
+  List<Post> findLatest(Pageable pageable);
+
+  /**
+   * Keyset query for the page after the given post. The leading {@code createdAt <=} range lets
+   * the {@code (created_at, post_id)} index seek to the position instead of skipping rows.
+   */
+  @Query(
+      "select p from Post p join fetch p.author join fetch p.group "
+          + "where p.createdAt <= :createdAt "
+          + "and (p.createdAt < :createdAt or p.id < :postId) "
+          + "order by p.createdAt desc, p.id desc")
+  List<Post> findLatestBefore(
+      @Param("createdAt") LocalDateTime createdAt,
+      @Param("postId") long postId,
+      Pageable pageable);
+
+  @Query(
+      "select p.id from Post p where p.author.id in :authorIds and p.id < :maxId "
+          + "order by p.id desc")
+  List<Long> findIdsByAuthorIds(
+      @Param("authorIds") Collection<Long> authorIds,
+      @Param("maxId") long maxId,
+      Pageable pageable);
+
+  @Query(
+      "select p.id from Post p where p.group.id in :groupIds and p.id < :maxId "
+          + "order by p.id desc")
+  List<Long> findIdsByGroupIds(
+      @Param("groupIds") Collection<Long> groupIds,
+      @Param("maxId") long maxId,
+      Pageable pageable);
+
+  @Query("select p from Post p join fetch p.author join fetch p.group where p.id in :ids")
+  List<Post> findAllWithAuthorAndGroup(@Param("ids") Collection<Long> ids);
+
+  @Modifying
+  @Transactional
+  @Query("update Post p set p.likeCount = :likeCount where p.id = :postId")
+  int updateLikeCount(@Param("postId") long postId, @Param("likeCount") int likeCount);
+
+  @Modifying
+  @Transactional
+  @Query("update Post p set p.commentCount = :commentCount where p.id = :postId")
+  int updateCommentCount(@Param("postId") long postId, @Param("commentCount") int commentCount);
 }
@@ -0,0 +1,40 @@
+package com.yoloo.server.feed.repository;
+
+import com.yoloo.server.feed.jpa.Subscription;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface SubscriptionRepository extends JpaRepository<Subscription, Long> {
+
+  long countByGroupId(long groupId);
+
+  boolean existsByUserIdAndGroupId(long userId, long groupId);
+
+  @Modifying
+  @Transactional
+  @Query("delete from Subscription s where s.userId = :userId and s.groupId = :groupId")
+  int deleteSubscription(@Param("userId") long userId, @Param("groupId") long groupId);
+
+  @Query("select s.groupId from Subscription s where s.userId = :userId")
+  List<Long> findGroupIds(@Param("userId") long userId);
+
+  @Query(
+      "select s.userId from Subscription s, UserActivity u "
+          + "where s.groupId = :groupId and u.userId = s.userId and u.lastActiveAt >= :since")
+  List<Long> findActiveSubscriberIds(
+      @Param("groupId") long groupId, @Param("since") LocalDateTime since);
+
+  /** Groups subscribed by the given user which are not fanned out on write. */
+  @Query(
+      "select s.groupId from Subscription s, PostGroup g "
+          + "where s.userId = :userId and g.id = s.groupId and g.largeSource = true")
+  List<Long> findLargeSourceGroupIds(@Param("userId") long userId);
+}
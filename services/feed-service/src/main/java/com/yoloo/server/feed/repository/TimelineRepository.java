@@ -0,0 +1,20 @@
+package com.yoloo.server.feed.repository;
+
+import com.yoloo.server.feed.jpa.Timeline;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface TimelineRepository extends JpaRepository<Timeline, Long> {
+
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("select t from Timeline t where t.userId in :userIds")
+  List<Timeline> findAllForUpdate(@Param("userIds") Collection<Long> userIds);
+}
@@ -0,0 +1,8 @@
+package com.yoloo.server.feed.repository;
+
+import com.yoloo.server.feed.jpa.UserActivity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface UserActivityRepository extends JpaRepository<UserActivity, Long> {}
@@ -3,21 +3,48 @@ package com.yoloo.server.feed.service
 import com.yoloo.server.common.vo.response.CollectionResponse
 import com.yoloo.server.common.vo.response.ResponseData
 import com.yoloo.server.common.vo.response.ResponseMeta
+import com.yoloo.server.common.vo.response.ResponsePagination
+import com.yoloo.server.feed.config.FeedProperties
 import com.yoloo.server.feed.mapper.PostResponseMapper
+import com.yoloo.server.feed.pagination.FeedCursor
+import com.yoloo.server.feed.pagination.FeedCursorCodec
 import com.yoloo.server.feed.repository.PostRepository
+import org.springframework.data.domain.PageRequest
 import org.springframework.stereotype.Service
-import java.util.stream.Collectors
 
 @Service
-class FeedService(private val postRepository: PostRepository, private val postResponseMapper: PostResponseMapper) {
+class FeedService(
+    private val postRepository: PostRepository,
+    private val postResponseMapper: PostResponseMapper,
+    private val feedCursorCodec: FeedCursorCodec,
+    private val feedProperties: FeedProperties
+) {
 
-    fun listAnonymousFeed(cursor: String?): CollectionResponse {
-        return postRepository
-            .findAll()
-            .stream()
+    fun listAnonymousFeed(cursor: String?, limit: Int?): CollectionResponse {
+        val pageSize = (limit ?: feedProperties.defaultPageSize).coerceIn(1, feedProperties.maxPageSize)
+        // One extra row tells whether there is a next page
+        val pageable = PageRequest.of(0, pageSize + 1)
+
+        val posts = if (cursor == null) {
+            postRepository.findLatest(pageable)
+        } else {
+            val position = feedCursorCodec.decode(cursor)
+            postRepository.findLatestBefore(position.createdAt, position.postId, pageable)
+        }
+
+        val page = posts.take(pageSize)
+        val nextCursor = if (posts.size > pageSize) {
+            page.last().let { feedCursorCodec.encode(FeedCursor.of(it.createdAt, it.id)) }
+        } else {
+            null
+        }
+
+        return page
             .map { postResponseMapper.apply(it, false, false, false) }
             .map { ResponseData.create("DEFAULT_POST", it) }
-            .collect(Collectors.toList())
-            .let { CollectionResponse.create(ResponseMeta.newBuilder().build(), it) }
+            .let {
+                val pagination = ResponsePagination.create(cursor, nextCursor)
+                CollectionResponse.create(ResponseMeta.newBuilder().pagination(pagination).build(), it)
+            }
     }
-}
\ No newline at end of file
+}
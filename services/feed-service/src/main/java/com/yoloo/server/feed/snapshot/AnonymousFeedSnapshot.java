@@ -0,0 +1,79 @@
+package com.yoloo.server.feed.snapshot;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * The leading pages of the anonymous feed, serialized to JSON once and served as they are. Page
+ * {@code i} is requested with the cursor of page {@code i}, {@code null} for the first page.
+ */
+public final class AnonymousFeedSnapshot implements Serializable {
+
+  private static final long serialVersionUID = 1L;
+
+  private final List<String> cursors;
+  private final List<byte[]> pages;
+  private final List<String> etags;
+  private final long createdAt;
+
+  AnonymousFeedSnapshot(List<String> cursors, List<byte[]> pages, List<String> etags) {
+    this(cursors, pages, etags, System.currentTimeMillis());
+  }
+
+  AnonymousFeedSnapshot(
+      List<String> cursors, List<byte[]> pages, List<String> etags, long createdAt) {
+    this.cursors = cursors;
+    this.pages = pages;
+    this.etags = etags;
+    this.createdAt = createdAt;
+  }
+
+  public Optional<Page> getPage(String cursor) {
+    int index = cursors.indexOf(cursor);
+    return index < 0 ? Optional.empty() : Optional.of(new Page(pages.get(index), etags.get(index)));
+  }
+
+  List<String> getCursors() {
+    return cursors;
+  }
+
+  List<String> getEtags() {
+    return etags;
+  }
+
+  byte[] getPageJson(int index) {
+    return pages.get(index);
+  }
+
+  public int getPageCount() {
+    return pages.size();
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public boolean isOlderThan(long ageMillis) {
+    return System.currentTimeMillis() - createdAt > ageMillis;
+  }
+
+  public static final class Page {
+    private final byte[] json;
+    private final String etag;
+
+    private Page(byte[] json, String etag) {
+      this.json = Objects.requireNonNull(json);
+      this.etag = Objects.requireNonNull(etag);
+    }
+
+    public byte[] getJson() {
+      return json;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+  }
+}
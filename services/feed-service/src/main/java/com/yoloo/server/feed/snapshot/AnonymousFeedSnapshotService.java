@@ -0,0 +1,201 @@
+package com.yoloo.server.feed.snapshot;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.appengine.api.memcache.MemcacheService;
+import com.yoloo.server.common.vo.response.CollectionResponse;
+import com.yoloo.server.common.vo.response.ResponsePagination;
+import com.yoloo.server.feed.service.FeedService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the {@link AnonymousFeedSnapshot} of the instance.
+ *
+ * <p>The snapshot is rebuilt by the {@code /_ah/tasks/feed/anonymous-snapshot} cron and shared
+ * through memcache. Every instance serves its in-memory copy and checks memcache for a newer one
+ * once the copy is older than {@link SnapshotProperties#getMaxAgeSeconds()}, so anonymous reads
+ * don't touch the database. An instance only rebuilds the snapshot itself if memcache has none,
+ * or only one the cron failed to refresh.
+ *
+ * <p>Every page is stored under a key of its own next to a small manifest, so no value comes near
+ * the memcache size limit.
+ */
+@Component
+public class AnonymousFeedSnapshotService {
+  private static final Logger logger = LoggerFactory.getLogger(AnonymousFeedSnapshotService.class);
+
+  private static final String MEMCACHE_KEY = "feed:anonymous:snapshot:v2";
+
+  private final FeedService feedService;
+  private final ObjectMapper objectMapper;
+  private final MemcacheService memcacheService;
+  private final SnapshotProperties properties;
+
+  private volatile AnonymousFeedSnapshot snapshot;
+  private volatile long checkedAt;
+
+  @Autowired
+  public AnonymousFeedSnapshotService(
+      FeedService feedService,
+      ObjectMapper objectMapper,
+      MemcacheService memcacheService,
+      SnapshotProperties properties) {
+    this.feedService = feedService;
+    this.objectMapper = objectMapper;
+    this.memcacheService = memcacheService;
+    this.properties = properties;
+  }
+
+  public AnonymousFeedSnapshot get() {
+    AnonymousFeedSnapshot current = snapshot;
+    if (current == null || isExpired(checkedAt)) {
+      return reload();
+    }
+    return current;
+  }
+
+  /** Rebuilds the snapshot from the database and shares it with the other instances. */
+  public synchronized AnonymousFeedSnapshot refresh() {
+    AnonymousFeedSnapshot rebuilt = build();
+    share(rebuilt);
+    use(rebuilt);
+    logger.info("Rebuilt the anonymous feed snapshot, {} pages", rebuilt.getPageCount());
+    return rebuilt;
+  }
+
+  private synchronized AnonymousFeedSnapshot reload() {
+    AnonymousFeedSnapshot current = snapshot;
+    if (current != null && !isExpired(checkedAt)) {
+      return current;
+    }
+
+    AnonymousFeedSnapshot shared = load();
+    if (shared == null || shared.isOlderThan(2 * maxAgeMillis())) {
+      return refresh();
+    }
+
+    use(shared);
+    return shared;
+  }
+
+  /**
+   * Stores the pages before the manifest, so a manifest is only seen once its pages are there. A
+   * snapshot which can't be stored is still served by this instance.
+   */
+  private void share(AnonymousFeedSnapshot snapshot) {
+    Map<String, byte[]> pages = new HashMap<>(snapshot.getPageCount());
+    for (int i = 0; i < snapshot.getPageCount(); i++) {
+      pages.put(pageKey(snapshot.getCreatedAt(), i), snapshot.getPageJson(i));
+    }
+
+    try {
+      memcacheService.putAll(pages);
+      memcacheService.put(MEMCACHE_KEY, new Manifest(snapshot));
+    } catch (RuntimeException e) {
+      logger.warn("Anonymous feed snapshot could not be stored in memcache", e);
+    }
+  }
+
+  /** Returns the shared snapshot, or null if its manifest or any of its pages is missing. */
+  private AnonymousFeedSnapshot load() {
+    try {
+      Manifest manifest = (Manifest) memcacheService.get(MEMCACHE_KEY);
+      if (manifest == null) {
+        return null;
+      }
+
+      List<String> keys = new ArrayList<>(manifest.etags.size());
+      for (int i = 0; i < manifest.etags.size(); i++) {
+        keys.add(pageKey(manifest.createdAt, i));
+      }
+      Map<String, Object> stored = memcacheService.getAll(keys);
+      if (stored.size() != keys.size()) {
+        return null;
+      }
+
+      List<byte[]> pages = new ArrayList<>(keys.size());
+      for (String key : keys) {
+        pages.add((byte[]) stored.get(key));
+      }
+      return new AnonymousFeedSnapshot(
+          manifest.cursors, pages, manifest.etags, manifest.createdAt);
+    } catch (RuntimeException e) {
+      logger.warn("Anonymous feed snapshot could not be read from memcache", e);
+      return null;
+    }
+  }
+
+  private static String pageKey(long createdAt, int index) {
+    return MEMCACHE_KEY + ':' + createdAt + ':' + index;
+  }
+
+  private void use(AnonymousFeedSnapshot snapshot) {
+    this.snapshot = snapshot;
+    this.checkedAt = System.currentTimeMillis();
+  }
+
+  private AnonymousFeedSnapshot build() {
+    List<String> cursors = new ArrayList<>(properties.getPageCount());
+    List<byte[]> pages = new ArrayList<>(properties.getPageCount());
+    List<String> etags = new ArrayList<>(properties.getPageCount());
+
+    String cursor = null;
+    for (int i = 0; i < properties.getPageCount(); i++) {
+      CollectionResponse response = feedService.listAnonymousFeed(cursor, null);
+      byte[] json = toJson(response);
+
+      cursors.add(cursor);
+      pages.add(json);
+      etags.add('"' + DigestUtils.md5DigestAsHex(json) + '"');
+
+      ResponsePagination pagination = response.getMeta().getPagination();
+      cursor = pagination == null ? null : pagination.getNext();
+      if (cursor == null) {
+        break;
+      }
+    }
+
+    return new AnonymousFeedSnapshot(cursors, pages, etags);
+  }
+
+  private byte[] toJson(CollectionResponse response) {
+    try {
+      return objectMapper.writeValueAsBytes(response);
+    } catch (JsonProcessingException e) {
+      throw new IllegalStateException("Anonymous feed page could not be serialized", e);
+    }
+  }
+
+  private boolean isExpired(long since) {
+    return System.currentTimeMillis() - since > maxAgeMillis();
+  }
+
+  private long maxAgeMillis() {
+    return TimeUnit.SECONDS.toMillis(properties.getMaxAgeSeconds());
+  }
+
+  private static final class Manifest implements Serializable {
+    private static final long serialVersionUID = 1L;
+
+    private final ArrayList<String> cursors;
+    private final ArrayList<String> etags;
+    private final long createdAt;
+
+    private Manifest(AnonymousFeedSnapshot snapshot) {
+      this.cursors = new ArrayList<>(snapshot.getCursors());
+      this.etags = new ArrayList<>(snapshot.getEtags());
+      this.createdAt = snapshot.getCreatedAt();
+    }
+  }
+}
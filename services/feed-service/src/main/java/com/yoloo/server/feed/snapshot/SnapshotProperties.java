@@ -0,0 +1,33 @@
+package com.yoloo.server.feed.snapshot;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "feed.snapshot")
+public class SnapshotProperties {
+  /** Number of leading anonymous feed pages kept pre-serialized. */
+  private int pageCount = 5;
+
+  /**
+   * How long an instance serves its in-memory snapshot before checking memcache for a newer one.
+   * Also sent to the clients as the max age of the cached pages.
+   */
+  private int maxAgeSeconds = 60;
+
+  public int getPageCount() {
+    return pageCount;
+  }
+
+  public void setPageCount(int pageCount) {
+    this.pageCount = pageCount;
+  }
+
+  public int getMaxAgeSeconds() {
+    return maxAgeSeconds;
+  }
+
+  public void setMaxAgeSeconds(int maxAgeSeconds) {
+    this.maxAgeSeconds = maxAgeSeconds;
+  }
+}
@@ -0,0 +1,94 @@
+package com.yoloo.server.feed.timeline;
+
+import java.util.Arrays;
+
+/**
+ * Operations on timelines kept as {@code long[]} of post ids sorted newest first. Post ids are
+ * snowflake ids, so sorting them in descending order sorts the posts by creation time.
+ */
+public final class PostIds {
+
+  private PostIds() {}
+
+  /**
+   * Inserts the post id at its position, dropping the oldest ids beyond the capacity.
+   *
+   * @param ids the timeline
+   * @param postId the post id to insert
+   * @param capacity the maximum length of the timeline
+   * @return a new timeline, or the given one if it already contains the id or the id is too old
+   */
+  public static long[] insert(long[] ids, long postId, int capacity) {
+    int index = indexOf(ids, postId);
+    if (index < ids.length && ids[index] == postId) {
+      return ids;
+    }
+    if (index >= capacity) {
+      return ids;
+    }
+
+    long[] inserted = new long[Math.min(ids.length + 1, capacity)];
+    System.arraycopy(ids, 0, inserted, 0, index);
+    inserted[index] = postId;
+    System.arraycopy(ids, index, inserted, index + 1, inserted.length - index - 1);
+    return inserted;
+  }
+
+  /**
+   * Returns the page of ids older than the given id.
+   *
+   * @param ids the timeline
+   * @param maxId exclusive upper bound, {@link Long#MAX_VALUE} for the first page
+   * @param limit the page size
+   * @return at most {@code limit} ids
+   */
+  public static long[] before(long[] ids, long maxId, int limit) {
+    int from = indexOf(ids, maxId);
+    if (from < ids.length && ids[from] == maxId) {
+      from++;
+    }
+    return Arrays.copyOfRange(ids, from, Math.min(ids.length, from + limit));
+  }
+
+  /**
+   * Merges two timelines, dropping duplicate ids.
+   *
+   * @param first a timeline
+   * @param second another timeline
+   * @param limit the maximum length of the result
+   * @return at most {@code limit} ids sorted newest first
+   */
+  public static long[] merge(long[] first, long[] second, int limit) {
+    long[] merged = new long[Math.min(limit, first.length + second.length)];
+    int i = 0;
+    int j = 0;
+    int n = 0;
+    while (n < merged.length && (i < first.length || j < second.length)) {
+      long next;
+      if (j >= second.length || (i < first.length && first[i] >= second[j])) {
+        next = first[i++];
+      } else {
+        next = second[j++];
+      }
+      if (n == 0 || merged[n - 1] != next) {
+        merged[n++] = next;
+      }
+    }
+    return n == merged.length ? merged : Arrays.copyOf(merged, n);
+  }
+
+  // Index of the id, or of the first smaller id, in a descending array.
+  private static int indexOf(long[] ids, long id) {
+    int low = 0;
+    int high = ids.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (ids[mid] > id) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,55 @@
+package com.yoloo.server.feed.timeline;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "timeline")
+public class TimelineProperties {
+  /** Maximum number of post ids kept per timeline, older ids are dropped. */
+  private int capacity = 800;
+
+  /**
+   * Authors and groups with more followers or subscribers are not fanned out on write, their posts
+   * are merged into the timeline when it is read.
+   */
+  private long fanOutThreshold = 10_000L;
+
+  /** Only users which were active within this many days get the post on their timeline. */
+  private int activeDays = 30;
+
+  /** Number of timelines updated in one transaction. */
+  private int writeChunkSize = 500;
+
+  public int getCapacity() {
+    return capacity;
+  }
+
+  public void setCapacity(int capacity) {
+    this.capacity = capacity;
+  }
+
+  public long getFanOutThreshold() {
+    return fanOutThreshold;
+  }
+
+  public void setFanOutThreshold(long fanOutThreshold) {
+    this.fanOutThreshold = fanOutThreshold;
+  }
+
+  public int getActiveDays() {
+    return activeDays;
+  }
+
+  public void setActiveDays(int activeDays) {
+    this.activeDays = activeDays;
+  }
+
+  public int getWriteChunkSize() {
+    return writeChunkSize;
+  }
+
+  public void setWriteChunkSize(int writeChunkSize) {
+    this.writeChunkSize = writeChunkSize;
+  }
+}
@@ -0,0 +1,160 @@
+package com.yoloo.server.feed.timeline
+
+import com.yoloo.server.common.vo.response.CollectionResponse
+import com.yoloo.server.common.vo.response.ResponseData
+import com.yoloo.server.common.vo.response.ResponseMeta
+import com.yoloo.server.common.vo.response.ResponsePagination
+import com.yoloo.server.feed.beta.Ranker
+import com.yoloo.server.feed.beta.RankingCandidates
+import com.yoloo.server.feed.beta.RankingContext
+import com.yoloo.server.feed.beta.RankingProperties
+import com.yoloo.server.feed.jpa.Post
+import com.yoloo.server.feed.mapper.PostResponseMapper
+import com.yoloo.server.feed.repository.AuthorRepository
+import com.yoloo.server.feed.repository.FollowRepository
+import com.yoloo.server.feed.repository.GroupRepository
+import com.yoloo.server.feed.repository.PostRepository
+import com.yoloo.server.feed.repository.SubscriptionRepository
+import org.slf4j.LoggerFactory
+import org.springframework.data.domain.PageRequest
+import org.springframework.stereotype.Service
+import java.time.LocalDateTime
+
+/**
+ * Hybrid fan-out home timelines.
+ *
+ * A new post is written to the timelines of the author, of the active followers of the author and
+ * of the active subscribers of its group. Authors and groups above
+ * [TimelineProperties.getFanOutThreshold] are skipped on write, their latest posts are merged into
+ * the stored timeline when it is read instead. Whether a source is skipped is decided on fan-out and
+ * kept as [com.yoloo.server.feed.jpa.Author.largeSource] and [com.yoloo.server.feed.jpa.Group.largeSource],
+ * so a read doesn't count followers or subscribers.
+ *
+ * The core service sends every created post to `/_ah/tasks/timeline/posts`, which stores it and fans it out,
+ * and keeps `Follow` and `Subscription` in sync through the same queue, see [TimelineSyncService]. A user counts
+ * as active when its `UserActivity` is recent, which is recorded when it reads the home feed, follows or
+ * subscribes.
+ *
+ * The home feed lists the timeline newest first, the top feed ranks its latest
+ * [RankingProperties.getCandidateCount] posts with the [Ranker].
+ */
+@Service
+class TimelineService(
+    private val timelineStore: TimelineStore,
+    private val timelineSyncService: TimelineSyncService,
+    private val postRepository: PostRepository,
+    private val followRepository: FollowRepository,
+    private val subscriptionRepository: SubscriptionRepository,
+    private val authorRepository: AuthorRepository,
+    private val groupRepository: GroupRepository,
+    private val postResponseMapper: PostResponseMapper,
+    private val timelineProperties: TimelineProperties,
+    private val ranker: Ranker,
+    private val rankingProperties: RankingProperties
+) {
+
+    fun fanOut(postId: Long) {
+        val post = postRepository.findById(postId).orElse(null)
+        if (post == null) {
+            logger.warn("Post {} doesn't exist, skipping fan-out", postId)
+            return
+        }
+
+        val since = LocalDateTime.now().minusDays(timelineProperties.activeDays.toLong())
+        val threshold = timelineProperties.fanOutThreshold
+
+        val largeAuthor = followRepository.countByFollowingId(post.author.id) > threshold
+        val largeGroup = subscriptionRepository.countByGroupId(post.group.id) > threshold
+        authorRepository.updateLargeSource(post.author.id, largeAuthor)
+        groupRepository.updateLargeSource(post.group.id, largeGroup)
+
+        val audience = LinkedHashSet<Long>()
+        audience.add(post.author.id)
+        if (!largeAuthor) {
+            audience.addAll(followRepository.findActiveFollowerIds(post.author.id, since))
+        }
+        if (!largeGroup) {
+            audience.addAll(subscriptionRepository.findActiveSubscriberIds(post.group.id, since))
+        }
+
+        audience.chunked(timelineProperties.writeChunkSize).forEach { timelineStore.push(it, postId) }
+        logger.info("Fanned out post {} to {} timelines", postId, audience.size)
+    }
+
+    fun listHomeFeed(userId: Long, cursor: String?): CollectionResponse {
+        markActive(userId)
+
+        val maxId = cursor?.toLongOrNull() ?: Long.MAX_VALUE
+
+        val postIds = latestPostIds(userId, maxId, PAGE_SIZE)
+
+        val posts = postRepository.findAllWithAuthorAndGroup(postIds.asList()).associateBy { it.id }
+        val nextCursor = if (postIds.size < PAGE_SIZE) null else postIds.last().toString()
+
+        return toResponse(userId, postIds.mapNotNull { posts[it] }, ResponsePagination.create(cursor, nextCursor))
+    }
+
+    fun listTopFeed(userId: Long): CollectionResponse {
+        markActive(userId)
+
+        val postIds = latestPostIds(userId, Long.MAX_VALUE, rankingProperties.candidateCount)
+        val posts = postRepository.findAllWithAuthorAndGroup(postIds.asList())
+
+        val context = RankingContext.of(
+            userId,
+            followRepository.findFollowingIds(userId),
+            subscriptionRepository.findGroupIds(userId)
+        )
+        val ranked = ranker.rank(RankingCandidates.of(posts), context, PAGE_SIZE)
+
+        return toResponse(userId, ranked.map { posts[it] }, null)
+    }
+
+    // A failed update only delays the user's return to the fan-out audience, the feed is served anyway.
+    private fun markActive(userId: Long) {
+        try {
+            timelineSyncService.markActive(userId)
+        } catch (e: RuntimeException) {
+            logger.warn("Activity of user {} could not be recorded", userId, e)
+        }
+    }
+
+    private fun latestPostIds(userId: Long, maxId: Long, limit: Int): LongArray {
+        val stored = PostIds.before(timelineStore.get(userId), maxId, limit)
+        return PostIds.merge(stored, pullLargeSources(userId, maxId, limit), limit)
+    }
+
+    private fun toResponse(userId: Long, posts: List<Post>, pagination: ResponsePagination?): CollectionResponse {
+        return posts
+            .map { postResponseMapper.apply(it, it.author.id == userId, false, false) }
+            .map { ResponseData.create("DEFAULT_POST", it) }
+            .let { CollectionResponse.create(ResponseMeta.newBuilder().pagination(pagination).build(), it) }
+    }
+
+    // Latest post ids of the followed authors and subscribed groups which are not fanned out.
+    private fun pullLargeSources(userId: Long, maxId: Long, limit: Int): LongArray {
+        val page = PageRequest.of(0, limit)
+
+        var postIds = LongArray(0)
+
+        val authorIds = followRepository.findLargeSourceFollowingIds(userId)
+        if (authorIds.isNotEmpty()) {
+            val pulled = postRepository.findIdsByAuthorIds(authorIds, maxId, page).toLongArray()
+            postIds = PostIds.merge(postIds, pulled, limit)
+        }
+
+        val groupIds = subscriptionRepository.findLargeSourceGroupIds(userId)
+        if (groupIds.isNotEmpty()) {
+            val pulled = postRepository.findIdsByGroupIds(groupIds, maxId, page).toLongArray()
+            postIds = PostIds.merge(postIds, pulled, limit)
+        }
+
+        return postIds
+    }
+
+    companion object {
+        private val logger = LoggerFactory.getLogger(TimelineService::class.java)
+
+        private const val PAGE_SIZE = 20
+    }
+}
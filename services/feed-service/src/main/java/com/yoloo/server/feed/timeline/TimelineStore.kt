@@ -0,0 +1,39 @@
+package com.yoloo.server.feed.timeline
+
+import com.yoloo.server.feed.jpa.Timeline
+import com.yoloo.server.feed.repository.TimelineRepository
+import org.springframework.stereotype.Component
+import org.springframework.transaction.annotation.Transactional
+
+/**
+ * Home timelines of the users, one row per user holding its post ids as a packed [LongArray].
+ */
+@Component
+class TimelineStore(
+    private val timelineRepository: TimelineRepository,
+    private val timelineProperties: TimelineProperties
+) {
+
+    fun get(userId: Long): LongArray {
+        return timelineRepository.findById(userId).map { it.postIds }.orElse(LongArray(0))
+    }
+
+    /**
+     * Adds the post to the timelines of the given users in one transaction. The rows are locked
+     * while they are updated, so concurrent fan-outs to the same user don't overwrite each other.
+     */
+    @Transactional
+    fun push(userIds: Collection<Long>, postId: Long) {
+        val timelines = timelineRepository.findAllForUpdate(userIds).associateBy { it.userId }
+
+        userIds
+            .map { timelines[it] ?: Timeline(it) }
+            .filter {
+                val postIds = PostIds.insert(it.postIds, postId, timelineProperties.capacity)
+                val changed = postIds !== it.postIds
+                it.postIds = postIds
+                changed
+            }
+            .let { timelineRepository.saveAll(it) }
+    }
+}
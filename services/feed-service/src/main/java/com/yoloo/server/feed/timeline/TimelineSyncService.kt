@@ -0,0 +1,137 @@
+package com.yoloo.server.feed.timeline
+
+import com.yoloo.server.feed.jpa.Author
+import com.yoloo.server.feed.jpa.Follow
+import com.yoloo.server.feed.jpa.Group
+import com.yoloo.server.feed.jpa.Post
+import com.yoloo.server.feed.jpa.Subscription
+import com.yoloo.server.feed.jpa.UserActivity
+import com.yoloo.server.feed.repository.AuthorRepository
+import com.yoloo.server.feed.repository.FollowRepository
+import com.yoloo.server.feed.repository.GroupRepository
+import com.yoloo.server.feed.repository.PostRepository
+import com.yoloo.server.feed.repository.SubscriptionRepository
+import com.yoloo.server.feed.repository.UserActivityRepository
+import org.springframework.stereotype.Service
+import org.springframework.transaction.annotation.Transactional
+import java.time.LocalDateTime
+
+/**
+ * Writes the projection the timelines are built from. The core service sends its changes as push tasks, see
+ * [com.yoloo.server.feed.api.TimelineTaskController]. Tasks can be delivered more than once, so every write is
+ * idempotent.
+ */
+@Service
+class TimelineSyncService(
+    private val postRepository: PostRepository,
+    private val authorRepository: AuthorRepository,
+    private val groupRepository: GroupRepository,
+    private val followRepository: FollowRepository,
+    private val subscriptionRepository: SubscriptionRepository,
+    private val userActivityRepository: UserActivityRepository
+) {
+
+    /**
+     * Stores a created post together with its author and group, the names of which are refreshed.
+     *
+     * @return false if the post was already stored
+     */
+    @Transactional
+    fun savePost(post: PostProjection): Boolean {
+        // Existing rows are managed and updated on commit, they are not merged so their posts are left alone.
+        val author = authorRepository.findById(post.authorId).orElse(null)
+            ?.apply {
+                displayName = post.authorDisplayName
+                profileImageUrl = post.authorProfileImageUrl
+            }
+            ?: authorRepository.save(
+                Author(post.authorId, post.authorDisplayName, post.authorProfileImageUrl, mutableSetOf())
+            )
+        val group = groupRepository.findById(post.groupId).orElse(null)
+            ?.apply { displayName = post.groupDisplayName }
+            ?: groupRepository.save(Group(post.groupId, post.groupDisplayName, mutableSetOf()))
+
+        if (postRepository.existsById(post.id)) {
+            return false
+        }
+
+        postRepository.save(
+            Post(
+                id = post.id,
+                author = author,
+                title = post.title,
+                content = post.content,
+                group = group,
+                tags = post.tags,
+                medias = emptyList(),
+                bounty = post.bounty,
+                createdAt = post.createdAt
+            )
+        )
+        return true
+    }
+
+    /**
+     * Copies the like and comment counts of the core counters, a count which is not given is left as it is.
+     */
+    @Transactional
+    fun updateCounts(postId: Long, likeCount: Int?, commentCount: Int?) {
+        likeCount?.let { postRepository.updateLikeCount(postId, it) }
+        commentCount?.let { postRepository.updateCommentCount(postId, it) }
+    }
+
+    @Transactional
+    fun follow(followerId: Long, followingId: Long) {
+        if (!followRepository.existsByFollowerIdAndFollowingId(followerId, followingId)) {
+            followRepository.save(Follow(followerId = followerId, followingId = followingId))
+        }
+        markActive(followerId)
+    }
+
+    @Transactional
+    fun unfollow(followerId: Long, followingId: Long) {
+        followRepository.deleteFollow(followerId, followingId)
+    }
+
+    @Transactional
+    fun subscribe(userId: Long, groupId: Long) {
+        if (!subscriptionRepository.existsByUserIdAndGroupId(userId, groupId)) {
+            subscriptionRepository.save(Subscription(userId = userId, groupId = groupId))
+        }
+        markActive(userId)
+    }
+
+    @Transactional
+    fun unsubscribe(userId: Long, groupId: Long) {
+        subscriptionRepository.deleteSubscription(userId, groupId)
+    }
+
+    /**
+     * Records the user as active, so posts are fanned out to its timeline. The stored time is only moved once it is
+     * an hour old, so reading the feed doesn't write on every request.
+     */
+    @Transactional
+    fun markActive(userId: Long) {
+        val now = LocalDateTime.now()
+        val activity = userActivityRepository.findById(userId).orElse(null)
+        if (activity == null) {
+            userActivityRepository.save(UserActivity(userId, now))
+        } else if (activity.lastActiveAt.isBefore(now.minusHours(1))) {
+            activity.lastActiveAt = now
+        }
+    }
+
+    data class PostProjection(
+        val id: Long,
+        val authorId: Long,
+        val authorDisplayName: String,
+        val authorProfileImageUrl: String,
+        val groupId: Long,
+        val groupDisplayName: String,
+        val title: String,
+        val content: String,
+        val tags: Set<String>,
+        val bounty: Int,
+        val createdAt: LocalDateTime
+    )
+}
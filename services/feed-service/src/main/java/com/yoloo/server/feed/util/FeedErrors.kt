@@ -0,0 +1,5 @@
+package com.yoloo.server.feed.util
+
+object FeedErrors {
+    const val INVALID_CURSOR = "feed.cursor.invalid"
+}
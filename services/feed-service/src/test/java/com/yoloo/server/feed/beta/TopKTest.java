@@ -0,0 +1,51 @@
+package com.yoloo.server.feed.beta;
+
+import org.junit.Test;
+
+import java.util.Comparator;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.Assert.assertArrayEquals;
+
+public class TopKTest {
+
+  // Highest score first, the lower index first on ties
+  private static int[] fullSort(double[] scores, int k) {
+    return IntStream.range(0, scores.length)
+        .boxed()
+        .sorted(
+            Comparator.<Integer>comparingDouble(i -> -scores[i])
+                .thenComparing(Comparator.naturalOrder()))
+        .limit(k)
+        .mapToInt(Integer::intValue)
+        .toArray();
+  }
+
+  @Test
+  public void select_whenRandomScoresWithTies_willMatchFullSort() {
+    Random random = new Random(42L);
+    for (int run = 0; run < 200; run++) {
+      double[] scores = new double[random.nextInt(300)];
+      for (int i = 0; i < scores.length; i++) {
+        // few distinct values so ties are common
+        scores[i] = random.nextInt(20) / 4.0;
+      }
+      int k = random.nextInt(40);
+
+      assertArrayEquals(fullSort(scores, k), TopK.select(scores, k));
+    }
+  }
+
+  @Test
+  public void select_whenKIsAboveCandidateCount_willReturnAllSorted() {
+    double[] scores = {0.5, 3.0, 1.0, 3.0};
+
+    assertArrayEquals(new int[] {1, 3, 2, 0}, TopK.select(scores, 10));
+  }
+
+  @Test
+  public void select_whenKIsZero_willReturnEmpty() {
+    assertArrayEquals(new int[0], TopK.select(new double[] {1.0, 2.0}, 0));
+  }
+}
@@ -0,0 +1,150 @@
+package com.yoloo.server.feed.core;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FeedAggregatorTest {
+
+  private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  private static List<String> names(FeedAggregator aggregator) {
+    return aggregator.getFeedItems().stream()
+        .map(item -> ((Item) item).name)
+        .collect(Collectors.toList());
+  }
+
+  @Test
+  public void build_whenFetchersMatchPositions_willFillPositionsInOrder() {
+    FeedAggregator aggregator =
+        FeedAggregator.newBuilder(4)
+            .executor(executor)
+            .addFetcher(new Fetcher(2, Arrays.asList("p1", "p2", "p3", "p4")))
+            .addFetcher(
+                new Fetcher(1, Arrays.asList("g1", "g2")) {
+                  @Override
+                  public boolean matches(int position, int requestedCount) {
+                    return position == 0;
+                  }
+                })
+            .build();
+
+    assertEquals(Arrays.asList("g1", "p1", "p2", "p3"), names(aggregator));
+  }
+
+  @Test
+  public void build_whenFetcherMissesBudget_willSkipAndInterruptIt() throws Exception {
+    CountDownLatch interrupted = new CountDownLatch(1);
+    Fetcher slow =
+        new Fetcher(1, Collections.singletonList("slow")) {
+          @Override
+          public long getBudgetMillis() {
+            return 50L;
+          }
+
+          @Override
+          protected List<Item> fetch(String cursor, int limit) {
+            try {
+              Thread.sleep(10_000L);
+            } catch (InterruptedException e) {
+              interrupted.countDown();
+            }
+            return super.fetch(cursor, limit);
+          }
+        };
+
+    long start = System.nanoTime();
+    FeedAggregator aggregator =
+        FeedAggregator.newBuilder(2)
+            .executor(executor)
+            .addFetcher(slow)
+            .addFetcher(new Fetcher(2, Arrays.asList("p1", "p2")))
+            .build();
+
+    assertEquals(Arrays.asList("p1", "p2"), names(aggregator));
+    assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+    assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  public void build_whenFetcherFails_willSkipIt() {
+    Fetcher failing =
+        new Fetcher(1, Collections.emptyList()) {
+          @Override
+          protected List<Item> fetch(String cursor, int limit) {
+            throw new IllegalStateException("source is down");
+          }
+        };
+
+    FeedAggregator aggregator =
+        FeedAggregator.newBuilder(2)
+            .executor(executor)
+            .addFetcher(failing)
+            .addFetcher(new Fetcher(2, Arrays.asList("p1", "p2")))
+            .build();
+
+    assertEquals(Arrays.asList("p1", "p2"), names(aggregator));
+  }
+
+  @Test
+  public void build_whenExecutorRejects_willSkipEverySource() {
+    executor.shutdown();
+
+    FeedAggregator aggregator =
+        FeedAggregator.newBuilder(2)
+            .executor(executor)
+            .addFetcher(new Fetcher(1, Arrays.asList("p1", "p2")))
+            .build();
+
+    assertTrue(aggregator.getFeedItems().isEmpty());
+  }
+
+  private static final class Item implements FeedItem {
+    private final String name;
+
+    private Item(String name) {
+      this.name = name;
+    }
+  }
+
+  private static class Fetcher extends ItemFetcher<Item> {
+    private final int order;
+    private final List<String> names;
+
+    private Fetcher(int order, List<String> names) {
+      this.order = order;
+      this.names = names;
+    }
+
+    @Override
+    public boolean matches(int position, int requestedCount) {
+      return true;
+    }
+
+    @Override
+    public int order() {
+      return order;
+    }
+
+    @Override
+    protected List<Item> fetch(String cursor, int limit) {
+      return names.stream().limit(limit).map(Item::new).collect(Collectors.toList());
+    }
+  }
+}
@@ -0,0 +1,73 @@
+package com.yoloo.server.feed.pagination;
+
+import com.yoloo.server.common.exception.exception.BadRequestException;
+import com.yoloo.server.feed.config.FeedProperties;
+import org.junit.Test;
+
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.Assert.assertEquals;
+
+public class FeedCursorCodecTest {
+
+  private static final FeedCursor CURSOR =
+      FeedCursor.of(LocalDateTime.of(2018, 9, 1, 12, 30, 15, 123_456_789), 125L);
+
+  private static FeedCursorCodec codec(String secret) {
+    FeedProperties properties = new FeedProperties();
+    properties.setCursorSecret(secret);
+    return new FeedCursorCodec(properties);
+  }
+
+  @Test
+  public void decode_whenEncoded_willReturnSameCursor() {
+    FeedCursorCodec codec = codec("secret");
+
+    FeedCursor decoded = codec.decode(codec.encode(CURSOR));
+
+    assertEquals(CURSOR.getCreatedAt(), decoded.getCreatedAt());
+    assertEquals(CURSOR.getPostId(), decoded.getPostId());
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void decode_whenPositionIsChanged_willThrowBadRequest() {
+    FeedCursorCodec codec = codec("secret");
+    byte[] bytes = Base64.getUrlDecoder().decode(codec.encode(CURSOR));
+    // last byte of the post id
+    bytes[20] ^= 1;
+
+    codec.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void decode_whenSignatureIsChanged_willThrowBadRequest() {
+    FeedCursorCodec codec = codec("secret");
+    byte[] bytes = Base64.getUrlDecoder().decode(codec.encode(CURSOR));
+    bytes[bytes.length - 1] ^= 1;
+
+    codec.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(bytes));
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void decode_whenSignedWithOtherSecret_willThrowBadRequest() {
+    codec("secret").decode(codec("other-secret").encode(CURSOR));
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void decode_whenTruncated_willThrowBadRequest() {
+    String token = codec("secret").encode(CURSOR);
+
+    codec("secret").decode(token.substring(0, token.length() - 4));
+  }
+
+  @Test(expected = BadRequestException.class)
+  public void decode_whenNotBase64_willThrowBadRequest() {
+    codec("secret").decode("not a cursor!");
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void new_whenSecretIsBlank_willThrowIllegalState() {
+    codec(" ");
+  }
+}
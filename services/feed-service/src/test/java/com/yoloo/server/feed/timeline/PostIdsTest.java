@@ -0,0 +1,86 @@
+package com.yoloo.server.feed.timeline;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+public class PostIdsTest {
+
+  @Test
+  public void insert_whenNewerId_willPutItFirst() {
+    long[] ids = PostIds.insert(new long[] {30, 20, 10}, 40, 10);
+
+    assertArrayEquals(new long[] {40, 30, 20, 10}, ids);
+  }
+
+  @Test
+  public void insert_whenIdInBetween_willKeepOrder() {
+    long[] ids = PostIds.insert(new long[] {30, 20, 10}, 25, 10);
+
+    assertArrayEquals(new long[] {30, 25, 20, 10}, ids);
+  }
+
+  @Test
+  public void insert_whenFull_willDropOldest() {
+    long[] ids = PostIds.insert(new long[] {30, 20, 10}, 25, 3);
+
+    assertArrayEquals(new long[] {30, 25, 20}, ids);
+  }
+
+  @Test
+  public void insert_whenOlderThanFullTimeline_willReturnSameTimeline() {
+    long[] timeline = {30, 20, 10};
+
+    assertSame(timeline, PostIds.insert(timeline, 5, 3));
+  }
+
+  @Test
+  public void insert_whenDuplicate_willReturnSameTimeline() {
+    long[] timeline = {30, 20, 10};
+
+    assertSame(timeline, PostIds.insert(timeline, 20, 10));
+  }
+
+  @Test
+  public void before_whenFirstPage_willStartAtNewest() {
+    long[] page = PostIds.before(new long[] {50, 40, 30, 20, 10}, Long.MAX_VALUE, 2);
+
+    assertArrayEquals(new long[] {50, 40}, page);
+  }
+
+  @Test
+  public void before_whenCursorIsInTimeline_willSkipIt() {
+    long[] page = PostIds.before(new long[] {50, 40, 30, 20, 10}, 40, 2);
+
+    assertArrayEquals(new long[] {30, 20}, page);
+  }
+
+  @Test
+  public void before_whenCursorIsNotInTimeline_willStartAtNextOlder() {
+    long[] page = PostIds.before(new long[] {50, 40, 30, 20, 10}, 35, 10);
+
+    assertArrayEquals(new long[] {30, 20, 10}, page);
+  }
+
+  @Test
+  public void merge_whenOverlapping_willDropDuplicates() {
+    long[] merged = PostIds.merge(new long[] {50, 30, 10}, new long[] {40, 30, 20}, 10);
+
+    assertArrayEquals(new long[] {50, 40, 30, 20, 10}, merged);
+  }
+
+  @Test
+  public void merge_whenLimited_willKeepNewest() {
+    long[] merged = PostIds.merge(new long[] {50, 30, 10}, new long[] {40, 20}, 3);
+
+    assertArrayEquals(new long[] {50, 40, 30}, merged);
+  }
+
+  @Test
+  public void merge_whenOneIsEmpty_willReturnOther() {
+    long[] merged = PostIds.merge(new long[0], new long[] {40, 20}, 10);
+
+    assertArrayEquals(new long[] {40, 20}, merged);
+  }
+}